@@ -0,0 +1,167 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+/**
+ * A mergeable running aggregate of expression results: count, compensated sum, mean, minimum, maximum and variance,
+ * see {@link Expression#aggregate(java.util.Map, int, int)}. The sum uses Neumaier's compensated summation and the
+ * variance Welford's online algorithm, partial aggregates are combined with Chan's parallel formula. Results are
+ * aggregated as they are, so a NaN result makes the sum, mean, minimum, maximum and variance NaN. Once the sum is
+ * infinite or NaN it is no longer compensated, so that it keeps the IEEE 754 result of the plain sum.
+ */
+public final class Aggregate {
+
+    private long count;
+
+    private double sum;
+
+    private double compensation;
+
+    private double mean;
+
+    private double m2;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Add a value
+     *
+     * @param value the value
+     */
+    public void add(final double value) {
+        count++;
+        final double t = sum + value;
+        if (!Double.isFinite(t)) {
+            compensation = 0d;
+        } else if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+        final double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Merge another aggregate into this one. Combining the same partial aggregates in the same order always gives the
+     * same result, independent of the threads which computed them.
+     *
+     * @param other the aggregate to merge
+     * @return this aggregate
+     */
+    public Aggregate combine(final Aggregate other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            count = other.count;
+            sum = other.sum;
+            compensation = other.compensation;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            return this;
+        }
+        final long n = count + other.count;
+        final double delta = other.mean - mean;
+        mean += delta * other.count / n;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / n);
+        count = n;
+        final double t = sum + other.sum;
+        if (!Double.isFinite(t)) {
+            compensation = 0d;
+        } else if (Math.abs(sum) >= Math.abs(other.sum)) {
+            compensation += (sum - t) + other.sum;
+            compensation += other.compensation;
+        } else {
+            compensation += (other.sum - t) + sum;
+            compensation += other.compensation;
+        }
+        sum = t;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    /**
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the compensated sum of the values, 0 if there are none
+     */
+    public double getSum() {
+        return sum + compensation;
+    }
+
+    /**
+     * @return the mean of the values, NaN if there are none
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : getSum() / count;
+    }
+
+    /**
+     * @return the smallest value, NaN if there are none
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return the largest value, NaN if there are none
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @return the sample variance of the values, NaN if there are less than two
+     */
+    public double getVariance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    /**
+     * @return the population variance of the values, NaN if there are none
+     */
+    public double getPopulationVariance() {
+        return count == 0 ? Double.NaN : m2 / count;
+    }
+
+    /**
+     * @return the sample standard deviation of the values, NaN if there are less than two
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    @Override
+    public String toString() {
+        return "Aggregate{count=" + count + ", sum=" + getSum() + ", mean=" + getMean() + ", min=" + getMin()
+                + ", max=" + getMax() + ", variance=" + getVariance() + '}';
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * A column of doubles in a {@link ByteBuffer} or {@link DoubleBuffer}, e.g. a direct or memory mapped buffer, read
+ * and written in place by {@link Expression#evaluate(java.util.Map, BufferColumn, int)}. Row {@code i} is at
+ * {@code offset + i * stride}, in bytes for byte buffers and in doubles for double buffers. Positions and limits of
+ * the given buffers are ignored and never modified, the offset is absolute.
+ */
+public final class BufferColumn {
+
+    private final ByteBuffer bytes;
+
+    private final DoubleBuffer doubles;
+
+    private final int offset;
+
+    private final int stride;
+
+    private final int rows;
+
+    private BufferColumn(final ByteBuffer bytes, final DoubleBuffer doubles, final int offset, final int stride,
+                         final int rows) {
+        this.bytes = bytes;
+        this.doubles = doubles;
+        this.offset = offset;
+        this.stride = stride;
+        this.rows = rows;
+    }
+
+    /**
+     * Create a column of consecutive doubles in a byte buffer, starting at index 0 in the byte order of the buffer
+     *
+     * @param buffer the buffer
+     * @return the column
+     */
+    public static BufferColumn of(ByteBuffer buffer) {
+        return of(buffer, 0, Double.BYTES, buffer.order());
+    }
+
+    /**
+     * Create a column of doubles in a byte buffer
+     *
+     * @param buffer the buffer
+     * @param offset the index of the first byte of row 0
+     * @param stride the distance between two rows in bytes, at least 8
+     * @param order  the byte order of the doubles
+     * @return the column
+     */
+    public static BufferColumn of(ByteBuffer buffer, int offset, int stride, ByteOrder order) {
+        if (order == null) {
+            throw new IllegalArgumentException("The byte order can not be null");
+        }
+        if (stride < Double.BYTES) {
+            throw new IllegalArgumentException("The stride of a byte buffer column must be at least " + Double.BYTES);
+        }
+        checkOffset(offset, buffer.capacity());
+        final int available = buffer.capacity() - offset;
+        final int rows = available < Double.BYTES ? 0 : (available - Double.BYTES) / stride + 1;
+        final ByteBuffer view = buffer.duplicate().order(order);
+        view.clear();
+        return new BufferColumn(view, null, offset, stride, rows);
+    }
+
+    /**
+     * Create a column of consecutive doubles in a double buffer, starting at index 0
+     *
+     * @param buffer the buffer
+     * @return the column
+     */
+    public static BufferColumn of(DoubleBuffer buffer) {
+        return of(buffer, 0, 1);
+    }
+
+    /**
+     * Create a column of doubles in a double buffer
+     *
+     * @param buffer the buffer
+     * @param offset the index of row 0
+     * @param stride the distance between two rows in doubles, at least 1
+     * @return the column
+     */
+    public static BufferColumn of(DoubleBuffer buffer, int offset, int stride) {
+        if (stride < 1) {
+            throw new IllegalArgumentException("The stride of a double buffer column must be at least 1");
+        }
+        checkOffset(offset, buffer.capacity());
+        final int available = buffer.capacity() - offset;
+        final int rows = available < 1 ? 0 : (available - 1) / stride + 1;
+        final DoubleBuffer view = buffer.duplicate();
+        view.clear();
+        return new BufferColumn(null, view, offset, stride, rows);
+    }
+
+    private static void checkOffset(final int offset, final int capacity) {
+        if (offset < 0 || offset > capacity) {
+            throw new IllegalArgumentException("The offset " + offset + " is outside of the buffer");
+        }
+    }
+
+    /**
+     * Get the number of rows the buffer holds from the offset on
+     *
+     * @return the number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Read a row
+     *
+     * @param row the row
+     * @return the value of the row
+     */
+    public double get(final int row) {
+        if (bytes != null) {
+            return bytes.getDouble(offset + row * stride);
+        }
+        return doubles.get(offset + row * stride);
+    }
+
+    /**
+     * Write a row
+     *
+     * @param row   the row
+     * @param value the value of the row
+     */
+    public void put(final int row, final double value) {
+        if (bytes != null) {
+            bytes.putDouble(offset + row * stride, value);
+        } else {
+            doubles.put(offset + row * stride, value);
+        }
+    }
+}
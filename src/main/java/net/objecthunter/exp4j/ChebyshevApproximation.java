@@ -0,0 +1,254 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A piecewise Chebyshev approximation of an expression in one variable over a finite domain. The domain is split into
+ * equally wide pieces, each approximated by a Chebyshev series of the same degree, so that an evaluation locates its
+ * piece with one multiplication and sums the series with Clenshaw's recurrence, two multiply-adds per degree.
+ * <p>
+ * The number of pieces is doubled until the series of at most the maximum degree meet half the tolerance by their
+ * truncated coefficients, and the maximum error is then measured against the expression on a grid of 64 points per piece
+ * including the piece boundaries. The measured error is a verification on that grid, not a bound between the grid
+ * points. A lower maximum degree makes evaluations cheaper at the cost of more pieces, and so more memory. Outside the
+ * domain the nearest piece is extrapolated.
+ */
+public final class ChebyshevApproximation implements DoubleUnaryOperator {
+
+    private static final int MAX_DEGREE = 16;
+
+    private static final int NODES = MAX_DEGREE + 1;
+
+    private static final int MAX_PIECES = 1 << 16;
+
+    private static final int VERIFICATION_POINTS = 64;
+
+    private final double lower;
+
+    private final double upper;
+
+    private final double scale;
+
+    private final int pieces;
+
+    private final int degree;
+
+    private final double[] coefficients;
+
+    private final double maxError;
+
+    private ChebyshevApproximation(final double lower, final double upper, final int pieces, final int degree,
+                                   final double[] coefficients, final double maxError) {
+        this.lower = lower;
+        this.upper = upper;
+        this.scale = pieces / (upper - lower);
+        this.pieces = pieces;
+        this.degree = degree;
+        this.coefficients = coefficients;
+        this.maxError = maxError;
+    }
+
+    /**
+     * Approximate an expression in one variable with series of degree at most 16, see
+     * {@link #of(Expression, String, double, double, double, int)}
+     *
+     * @param expression the expression
+     * @param variable   the name of the variable
+     * @param lower      the lower bound of the domain
+     * @param upper      the upper bound of the domain
+     * @param tolerance  the maximum absolute error
+     * @return the approximation
+     */
+    public static ChebyshevApproximation of(final Expression expression, final String variable, final double lower,
+                                            final double upper, final double tolerance) {
+        return of(expression, variable, lower, upper, tolerance, MAX_DEGREE);
+    }
+
+    /**
+     * Approximate an expression in one variable. The other variables keep the values set on the expression at the
+     * time of the call.
+     *
+     * @param expression the expression
+     * @param variable   the name of the variable
+     * @param lower      the lower bound of the domain
+     * @param upper      the upper bound of the domain
+     * @param tolerance  the maximum absolute error
+     * @param maxDegree  the maximum degree of the series, between 1 and 16
+     * @return the approximation
+     * @throws IllegalArgumentException if the expression is not finite on the domain, or the tolerance can not be met
+     *                                  with 65536 pieces
+     */
+    public static ChebyshevApproximation of(final Expression expression, final String variable, final double lower,
+                                            final double upper, final double tolerance, final int maxDegree) {
+        if (!(Double.isFinite(lower) && Double.isFinite(upper) && lower < upper)) {
+            throw new IllegalArgumentException("The domain must be a finite interval");
+        }
+        if (!(tolerance > 0d)) {
+            throw new IllegalArgumentException("The tolerance must be positive");
+        }
+        if (maxDegree < 1 || maxDegree > MAX_DEGREE) {
+            throw new IllegalArgumentException("The maximum degree must be between 1 and " + MAX_DEGREE);
+        }
+        final int slot = expression.getSlot(variable);
+        if (slot < 0) {
+            throw new IllegalArgumentException("The expression has no variable '" + variable + "'");
+        }
+        final Expression snapshot = expression.snapshot();
+        final boolean[] bound = new boolean[snapshot.getSlotNames().length];
+        bound[slot] = true;
+        snapshot.checkBound(bound);
+        final EvaluationState state = snapshot.newEvaluationState();
+        final DoubleUnaryOperator f = x -> {
+            state.values[slot] = x;
+            state.error = false;
+            final double y = snapshot.evaluate(state);
+            if (!Double.isFinite(y)) {
+                throw new IllegalArgumentException("The expression is not finite at " + variable + " = " + x);
+            }
+            return y;
+        };
+
+        double error = Double.POSITIVE_INFINITY;
+        for (int pieces = 1; pieces <= MAX_PIECES; pieces <<= 1) {
+            final double[] series = new double[pieces * NODES];
+            final int degree = fit(f, lower, upper, pieces, series, maxDegree, 0.5 * tolerance);
+            if (degree < 0) {
+                continue;
+            }
+            final double[] truncated = new double[pieces * (degree + 1)];
+            for (int p = 0; p < pieces; p++) {
+                System.arraycopy(series, p * NODES, truncated, p * (degree + 1), degree + 1);
+            }
+            final ChebyshevApproximation approximation =
+                    new ChebyshevApproximation(lower, upper, pieces, degree, truncated, 0d);
+            error = approximation.measure(f);
+            if (error <= tolerance) {
+                return new ChebyshevApproximation(lower, upper, pieces, degree, truncated, error);
+            }
+        }
+        throw new IllegalArgumentException("The tolerance " + tolerance + " can not be met with " + MAX_PIECES
+                + " pieces, the last error was " + error);
+    }
+
+    /*
+     * Compute the Chebyshev series of each piece by interpolation at the Chebyshev nodes and return the lowest degree
+     * up to the maximum whose truncated coefficients sum to at most the tolerance in every piece, or -1 if none does
+     */
+    private static int fit(final DoubleUnaryOperator f, final double lower, final double upper, final int pieces,
+                           final double[] series, final int maxDegree, final double tolerance) {
+        final double width = (upper - lower) / pieces;
+        final double[] values = new double[NODES];
+        int degree = 0;
+        for (int p = 0; p < pieces; p++) {
+            final double center = lower + (p + 0.5) * width;
+            for (int j = 0; j < NODES; j++) {
+                values[j] = f.applyAsDouble(center + 0.5 * width * Math.cos(Math.PI * (j + 0.5) / NODES));
+            }
+            final int offset = p * NODES;
+            for (int k = 0; k < NODES; k++) {
+                double sum = 0d;
+                for (int j = 0; j < NODES; j++) {
+                    sum += values[j] * Math.cos(Math.PI * k * (j + 0.5) / NODES);
+                }
+                series[offset + k] = (k == 0 ? 1d : 2d) * sum / NODES;
+            }
+            double tail = 0d;
+            int d = MAX_DEGREE;
+            while (d > 0 && tail + Math.abs(series[offset + d]) <= tolerance) {
+                tail += Math.abs(series[offset + d]);
+                d--;
+            }
+            if (d > maxDegree || d == MAX_DEGREE) {
+                return -1;
+            }
+            degree = Math.max(degree, d);
+        }
+        return degree;
+    }
+
+    private double measure(final DoubleUnaryOperator f) {
+        final double width = (upper - lower) / pieces;
+        double max = 0d;
+        for (int p = 0; p < pieces; p++) {
+            final double start = lower + p * width;
+            for (int i = 0; i < VERIFICATION_POINTS; i++) {
+                final double x = p == pieces - 1 && i == VERIFICATION_POINTS - 1
+                        ? upper : start + width * i / (VERIFICATION_POINTS - 1);
+                max = Math.max(max, Math.abs(applyAsDouble(x) - f.applyAsDouble(x)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Evaluate the approximation
+     *
+     * @param x the value of the variable
+     * @return the approximated value of the expression
+     */
+    @Override
+    public double applyAsDouble(final double x) {
+        final double position = (x - lower) * scale;
+        final int piece = position <= 0d ? 0 : Math.min((int) position, pieces - 1);
+        final double t = 2d * (position - piece) - 1d;
+        final double t2 = 2d * t;
+        final int offset = piece * (degree + 1);
+        double b1 = 0d;
+        double b2 = 0d;
+        for (int k = degree; k > 0; k--) {
+            final double b = t2 * b1 - b2 + coefficients[offset + k];
+            b2 = b1;
+            b1 = b;
+        }
+        return t * b1 - b2 + coefficients[offset];
+    }
+
+    /**
+     * @return the maximum absolute error measured on the verification grid
+     */
+    public double getMaxError() {
+        return maxError;
+    }
+
+    /**
+     * @return the number of pieces
+     */
+    public int getPieces() {
+        return pieces;
+    }
+
+    /**
+     * @return the degree of the series of each piece
+     */
+    public int getDegree() {
+        return degree;
+    }
+
+    /**
+     * @return the number of bytes of the coefficients
+     */
+    public long getMemoryBytes() {
+        return 8L * coefficients.length;
+    }
+
+    @Override
+    public String toString() {
+        return "ChebyshevApproximation{domain=[" + lower + ", " + upper + "], pieces=" + pieces + ", degree=" + degree
+                + ", maxError=" + maxError + ", memoryBytes=" + getMemoryBytes() + '}';
+    }
+}
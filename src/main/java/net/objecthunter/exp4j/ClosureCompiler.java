@@ -0,0 +1,259 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import net.objecthunter.exp4j.function.Function;
+import net.objecthunter.exp4j.function.Function0;
+import net.objecthunter.exp4j.function.Function1;
+import net.objecthunter.exp4j.function.Function2;
+import net.objecthunter.exp4j.operator.BinaryOperator;
+import net.objecthunter.exp4j.operator.Operator;
+import net.objecthunter.exp4j.operator.Operators;
+import net.objecthunter.exp4j.operator.UnaryOperator;
+import net.objecthunter.exp4j.optimizer.Node;
+import net.objecthunter.exp4j.tokenizer.Token;
+import net.objecthunter.exp4j.tokenizer.VariableToken;
+
+/**
+ * Compiles an {@link Expression} into a tree of closures. Each node evaluates its children directly, which removes
+ * the operand stack, the token type dispatch and the operand count checks of the token interpreter.
+ */
+final class ClosureCompiler {
+
+    private static final Operator ADDITION = Operators.getBuiltinOperator('+', 2);
+    private static final Operator SUBTRACTION = Operators.getBuiltinOperator('-', 2);
+    private static final Operator MULTIPLICATION = Operators.getBuiltinOperator('*', 2);
+    private static final Operator UNARY_MINUS = Operators.getBuiltinOperator('-', 1);
+
+    private ClosureCompiler() {
+    }
+
+    /**
+     * A compiled node evaluating to a double for the variable values by slot
+     */
+    abstract static class Compiled {
+        abstract double evaluate(double[] values);
+    }
+
+    /**
+     * Compile an expression
+     *
+     * @param expression the expression to compile
+     * @return the root of the compiled tree, or null if the expression is not well formed
+     */
+    static Compiled compile(final Expression expression) {
+        final Node root = Node.fromRPN(expression.getTokens());
+        return root == null ? null : compile(root, expression);
+    }
+
+    private static Compiled compile(final Node node, final Expression expression) {
+        switch (node.getType()) {
+            case Token.TOKEN_NUMBER:
+                return new Constant(node.getNumber());
+            case Token.TOKEN_VARIABLE:
+                return new Variable(expression.getSlot(((VariableToken) node.getToken()).getName()));
+            case Token.TOKEN_OPERATOR:
+                final Operator operator = node.getOperator();
+                if (operator instanceof BinaryOperator) {
+                    final Compiled left = compile(node.getChild(0), expression);
+                    final Compiled right = compile(node.getChild(1), expression);
+                    if (operator == ADDITION) {
+                        return new Addition(left, right);
+                    } else if (operator == SUBTRACTION) {
+                        return new Subtraction(left, right);
+                    } else if (operator == MULTIPLICATION) {
+                        return new Multiplication(left, right);
+                    }
+                    return new Binary((BinaryOperator) operator, left, right);
+                }
+                final Compiled operand = compile(node.getChild(0), expression);
+                if (operator == UNARY_MINUS) {
+                    return new Negation(operand);
+                }
+                return new Unary((UnaryOperator) operator, operand);
+            default:
+                final Function function = node.getFunction();
+                if (function instanceof Function0) {
+                    return new Call0((Function0) function);
+                } else if (function instanceof Function1) {
+                    return new Call1((Function1) function, compile(node.getChild(0), expression));
+                }
+                return new Call2((Function2) function, compile(node.getChild(0), expression),
+                        compile(node.getChild(1), expression));
+        }
+    }
+
+    private static final class Constant extends Compiled {
+        private final double value;
+
+        Constant(final double value) {
+            this.value = value;
+        }
+
+        @Override
+        double evaluate(final double[] values) {
+            return value;
+        }
+    }
+
+    private static final class Variable extends Compiled {
+        private final int slot;
+
+        Variable(final int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        double evaluate(final double[] values) {
+            return values[slot];
+        }
+    }
+
+    private static final class Addition extends Compiled {
+        private final Compiled left;
+        private final Compiled right;
+
+        Addition(final Compiled left, final Compiled right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(final double[] values) {
+            return left.evaluate(values) + right.evaluate(values);
+        }
+    }
+
+    private static final class Subtraction extends Compiled {
+        private final Compiled left;
+        private final Compiled right;
+
+        Subtraction(final Compiled left, final Compiled right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(final double[] values) {
+            return left.evaluate(values) - right.evaluate(values);
+        }
+    }
+
+    private static final class Multiplication extends Compiled {
+        private final Compiled left;
+        private final Compiled right;
+
+        Multiplication(final Compiled left, final Compiled right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(final double[] values) {
+            return left.evaluate(values) * right.evaluate(values);
+        }
+    }
+
+    private static final class Negation extends Compiled {
+        private final Compiled operand;
+
+        Negation(final Compiled operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        double evaluate(final double[] values) {
+            return -operand.evaluate(values);
+        }
+    }
+
+    private static final class Binary extends Compiled {
+        private final BinaryOperator operator;
+        private final Compiled left;
+        private final Compiled right;
+
+        Binary(final BinaryOperator operator, final Compiled left, final Compiled right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(final double[] values) {
+            return operator.apply(left.evaluate(values), right.evaluate(values));
+        }
+    }
+
+    private static final class Unary extends Compiled {
+        private final UnaryOperator operator;
+        private final Compiled operand;
+
+        Unary(final UnaryOperator operator, final Compiled operand) {
+            this.operator = operator;
+            this.operand = operand;
+        }
+
+        @Override
+        double evaluate(final double[] values) {
+            return operator.apply(operand.evaluate(values));
+        }
+    }
+
+    private static final class Call0 extends Compiled {
+        private final Function0 function;
+
+        Call0(final Function0 function) {
+            this.function = function;
+        }
+
+        @Override
+        double evaluate(final double[] values) {
+            return function.apply();
+        }
+    }
+
+    private static final class Call1 extends Compiled {
+        private final Function1 function;
+        private final Compiled argument;
+
+        Call1(final Function1 function, final Compiled argument) {
+            this.function = function;
+            this.argument = argument;
+        }
+
+        @Override
+        double evaluate(final double[] values) {
+            return function.apply(argument.evaluate(values));
+        }
+    }
+
+    private static final class Call2 extends Compiled {
+        private final Function2 function;
+        private final Compiled first;
+        private final Compiled second;
+
+        Call2(final Function2 function, final Compiled first, final Compiled second) {
+            this.function = function;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        double evaluate(final double[] values) {
+            return function.apply(first.evaluate(values), second.evaluate(values));
+        }
+    }
+}
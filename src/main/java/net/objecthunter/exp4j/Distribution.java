@@ -0,0 +1,170 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The distribution of a random input variable of a {@link MonteCarlo} simulation
+ */
+public abstract class Distribution {
+
+    /**
+     * Draw a value
+     *
+     * @param random the random number generator
+     * @return the value
+     */
+    public abstract double sample(SplittableRandom random);
+
+    /**
+     * Draw a batch of values
+     *
+     * @param random the random number generator
+     * @param values the array receiving the values
+     * @param count  the number of values to draw
+     */
+    public void sample(final SplittableRandom random, final double[] values, final int count) {
+        for (int i = 0; i < count; i++) {
+            values[i] = sample(random);
+        }
+    }
+
+    /**
+     * Create a uniform distribution
+     *
+     * @param min the inclusive lower bound
+     * @param max the exclusive upper bound
+     * @return the distribution
+     */
+    public static Distribution uniform(final double min, final double max) {
+        if (!(min < max)) {
+            throw new IllegalArgumentException("The lower bound must be less than the upper bound");
+        }
+        final double range = max - min;
+        return new Distribution() {
+            @Override
+            public double sample(final SplittableRandom random) {
+                return min + range * random.nextDouble();
+            }
+        };
+    }
+
+    /**
+     * Create a normal distribution
+     *
+     * @param mean              the mean
+     * @param standardDeviation the standard deviation
+     * @return the distribution
+     */
+    public static Distribution normal(final double mean, final double standardDeviation) {
+        checkStandardDeviation(standardDeviation);
+        return new Gaussian(mean, standardDeviation, false);
+    }
+
+    /**
+     * Create a lognormal distribution, the distribution of {@code exp(X)} for a normally distributed {@code X}
+     *
+     * @param mu    the mean of the logarithm
+     * @param sigma the standard deviation of the logarithm
+     * @return the distribution
+     */
+    public static Distribution lognormal(final double mu, final double sigma) {
+        checkStandardDeviation(sigma);
+        return new Gaussian(mu, sigma, true);
+    }
+
+    /**
+     * Create an empirical distribution which draws each of the observed values with equal probability
+     *
+     * @param observations the observed values, copied
+     * @return the distribution
+     */
+    public static Distribution empirical(final double[] observations) {
+        if (observations.length == 0) {
+            throw new IllegalArgumentException("An empirical distribution needs at least one observation");
+        }
+        final double[] values = Arrays.copyOf(observations, observations.length);
+        return new Distribution() {
+            @Override
+            public double sample(final SplittableRandom random) {
+                return values[random.nextInt(values.length)];
+            }
+        };
+    }
+
+    private static void checkStandardDeviation(final double standardDeviation) {
+        if (!(standardDeviation >= 0d) || Double.isInfinite(standardDeviation)) {
+            throw new IllegalArgumentException("The standard deviation must be finite and not negative");
+        }
+    }
+
+    /**
+     * Draws normal deviates by Marsaglia's polar method. A batch keeps both deviates of each pair, a single sample
+     * discards the second one.
+     */
+    private static final class Gaussian extends Distribution {
+
+        private final double mean;
+
+        private final double standardDeviation;
+
+        private final boolean exponential;
+
+        Gaussian(final double mean, final double standardDeviation, final boolean exponential) {
+            this.mean = mean;
+            this.standardDeviation = standardDeviation;
+            this.exponential = exponential;
+        }
+
+        @Override
+        public double sample(final SplittableRandom random) {
+            double u;
+            double v;
+            double s;
+            do {
+                u = 2d * random.nextDouble() - 1d;
+                v = 2d * random.nextDouble() - 1d;
+                s = u * u + v * v;
+            } while (s >= 1d || s == 0d);
+            return transform(u * Math.sqrt(-2d * Math.log(s) / s));
+        }
+
+        @Override
+        public void sample(final SplittableRandom random, final double[] values, final int count) {
+            int i = 0;
+            while (i < count) {
+                final double u = 2d * random.nextDouble() - 1d;
+                final double v = 2d * random.nextDouble() - 1d;
+                final double s = u * u + v * v;
+                if (s >= 1d || s == 0d) {
+                    continue;
+                }
+                final double scale = Math.sqrt(-2d * Math.log(s) / s);
+                values[i++] = transform(u * scale);
+                if (i < count) {
+                    values[i++] = transform(v * scale);
+                }
+            }
+        }
+
+        private double transform(final double z) {
+            final double x = mean + standardDeviation * z;
+            return exponential ? Math.exp(x) : x;
+        }
+    }
+}
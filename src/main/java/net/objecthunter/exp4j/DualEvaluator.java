@@ -0,0 +1,409 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import net.objecthunter.exp4j.function.Function;
+import net.objecthunter.exp4j.function.Function0;
+import net.objecthunter.exp4j.function.Function1;
+import net.objecthunter.exp4j.function.Function2;
+import net.objecthunter.exp4j.function.Functions;
+import net.objecthunter.exp4j.function.MathMode;
+import net.objecthunter.exp4j.operator.BinaryOperator;
+import net.objecthunter.exp4j.operator.Operator;
+import net.objecthunter.exp4j.operator.Operators;
+import net.objecthunter.exp4j.operator.UnaryOperator;
+import net.objecthunter.exp4j.tokenizer.FunctionToken;
+import net.objecthunter.exp4j.tokenizer.NumberToken;
+import net.objecthunter.exp4j.tokenizer.OperatorToken;
+import net.objecthunter.exp4j.tokenizer.Token;
+import net.objecthunter.exp4j.tokenizer.VariableToken;
+
+/**
+ * Evaluates an expression and its exact derivative with respect to one variable in forward mode, on dual numbers
+ * held in two primitive stacks. The values are computed by the operators and functions the expression is bound to,
+ * the derivatives by the differentiation rule of each builtin operator and function.
+ */
+final class DualEvaluator {
+
+    private static final int CONSTANT = 0;
+    private static final int VARIABLE = 1;
+    private static final int ARGUMENT = 2;
+    private static final int ADD = 3;
+    private static final int SUBTRACT = 4;
+    private static final int MULTIPLY = 5;
+    private static final int DIVIDE = 6;
+    private static final int MODULO = 7;
+    private static final int POWER = 8;
+    private static final int NEGATE = 9;
+    private static final int IDENTITY = 10;
+    private static final int STEP = 11;
+    private static final int SIN = 12;
+    private static final int COS = 13;
+    private static final int TAN = 14;
+    private static final int COT = 15;
+    private static final int CSC = 16;
+    private static final int SEC = 17;
+    private static final int SINH = 18;
+    private static final int COSH = 19;
+    private static final int TANH = 20;
+    private static final int CSCH = 21;
+    private static final int SECH = 22;
+    private static final int COTH = 23;
+    private static final int ASIN = 24;
+    private static final int ACOS = 25;
+    private static final int ATAN = 26;
+    private static final int SQRT = 27;
+    private static final int CBRT = 28;
+    private static final int ABS = 29;
+    private static final int EXP = 30;
+    private static final int EXPM1 = 31;
+    private static final int LOG = 32;
+    private static final int LOG10 = 33;
+    private static final int LOG2 = 34;
+    private static final int LOG1P = 35;
+    private static final int LOGB = 36;
+    private static final int TO_RADIAN = 37;
+    private static final int TO_DEGREE = 38;
+    private static final int MIN = 39;
+    private static final int MAX = 40;
+
+    private static final double LN_2 = Math.log(2d);
+
+    private static final double LN_10 = Math.log(10d);
+
+    private final Token[] tokens;
+
+    private final int[] opcodes;
+
+    private final int[] slots;
+
+    private final int stackSize;
+
+    /**
+     * Prepare the evaluation of an expression and its derivative
+     *
+     * @throws IllegalArgumentException if the expression contains a function which can not be differentiated
+     */
+    DualEvaluator(final Expression expression, final int argument) {
+        this.tokens = expression.getTokens();
+        this.opcodes = new int[tokens.length];
+        this.slots = new int[tokens.length];
+        int depth = 0;
+        int max = 1;
+        for (int i = 0; i < tokens.length; i++) {
+            final Token t = tokens[i];
+            switch (t.getType()) {
+                case Token.TOKEN_NUMBER:
+                    opcodes[i] = CONSTANT;
+                    depth++;
+                    break;
+                case Token.TOKEN_VARIABLE:
+                    slots[i] = expression.getSlot(((VariableToken) t).getName());
+                    opcodes[i] = slots[i] == argument ? ARGUMENT : VARIABLE;
+                    depth++;
+                    break;
+                case Token.TOKEN_OPERATOR:
+                    final Operator op = ((OperatorToken) t).getOperator();
+                    opcodes[i] = opcode(op);
+                    depth += 1 - op.getNumOperands();
+                    break;
+                case Token.TOKEN_FUNCTION:
+                    final Function f = ((FunctionToken) t).getFunction();
+                    opcodes[i] = opcode(f);
+                    depth += 1 - f.getNumArguments();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected token " + t);
+            }
+            max = Math.max(max, depth);
+        }
+        this.stackSize = max;
+    }
+
+    /**
+     * Get the size the stacks passed to {@link #evaluate(double[], double[], double[])} must have at least
+     */
+    int getStackSize() {
+        return stackSize;
+    }
+
+    /**
+     * Evaluate the expression and its derivative. On return the value is the first element of the value stack and
+     * the derivative the first element of the derivative stack.
+     *
+     * @param values     the variable values by slot, including the argument
+     * @param value      the value stack
+     * @param derivative the derivative stack
+     */
+    void evaluate(final double[] values, final double[] value, final double[] derivative) {
+        int top = -1;
+        for (int i = 0; i < tokens.length; i++) {
+            final int opcode = opcodes[i];
+            switch (opcode) {
+                case CONSTANT:
+                    value[++top] = ((NumberToken) tokens[i]).getValue();
+                    derivative[top] = 0d;
+                    continue;
+                case VARIABLE:
+                    value[++top] = values[slots[i]];
+                    derivative[top] = 0d;
+                    continue;
+                case ARGUMENT:
+                    value[++top] = values[slots[i]];
+                    derivative[top] = 1d;
+                    continue;
+                default:
+                    break;
+            }
+            final Token t = tokens[i];
+            if (t.getType() == Token.TOKEN_OPERATOR) {
+                final Operator op = ((OperatorToken) t).getOperator();
+                if (op.getNumOperands() == 2) {
+                    final double b = value[top];
+                    final double db = derivative[top--];
+                    final double a = value[top];
+                    final double da = derivative[top];
+                    final double v = ((BinaryOperator) op).apply(a, b);
+                    value[top] = v;
+                    derivative[top] = binary(opcode, a, da, b, db, v);
+                } else {
+                    final double u = value[top];
+                    value[top] = ((UnaryOperator) op).apply(u);
+                    derivative[top] = opcode == NEGATE ? -derivative[top] : derivative[top];
+                }
+            } else {
+                final Function f = ((FunctionToken) t).getFunction();
+                if (f instanceof Function1) {
+                    final double u = value[top];
+                    final double v = ((Function1) f).apply(u);
+                    value[top] = v;
+                    derivative[top] = opcode == STEP ? 0d : unary(opcode, u, v) * derivative[top];
+                } else if (f instanceof Function2) {
+                    final double b = value[top];
+                    final double db = derivative[top--];
+                    final double a = value[top];
+                    final double da = derivative[top];
+                    final double v = ((Function2) f).apply(a, b);
+                    value[top] = v;
+                    derivative[top] = binary(opcode, a, da, b, db, v);
+                } else {
+                    value[++top] = ((Function0) f).apply();
+                    derivative[top] = 0d;
+                }
+            }
+        }
+    }
+
+    /* the derivative of a function of one argument with respect to its argument */
+    private static double unary(final int opcode, final double u, final double v) {
+        switch (opcode) {
+            case SIN:
+                return Math.cos(u);
+            case COS:
+                return -Math.sin(u);
+            case TAN:
+                return 1d + v * v;
+            case COT:
+                return -(1d + v * v);
+            case CSC:
+                return -v * Math.cos(u) / Math.sin(u);
+            case SEC:
+                return v * Math.tan(u);
+            case SINH:
+                return Math.cosh(u);
+            case COSH:
+                return Math.sinh(u);
+            case TANH:
+            case COTH:
+                return 1d - v * v;
+            case CSCH:
+                return -v * Math.cosh(u) / Math.sinh(u);
+            case SECH:
+                return -v * Math.tanh(u);
+            case ASIN:
+                return 1d / Math.sqrt(1d - u * u);
+            case ACOS:
+                return -1d / Math.sqrt(1d - u * u);
+            case ATAN:
+                return 1d / (1d + u * u);
+            case SQRT:
+                return 0.5 / v;
+            case CBRT:
+                return 1d / (3d * v * v);
+            case ABS:
+                return Math.signum(u);
+            case EXP:
+                return v;
+            case EXPM1:
+                return v + 1d;
+            case LOG:
+                return 1d / u;
+            case LOG10:
+                return 1d / (u * LN_10);
+            case LOG2:
+                return 1d / (u * LN_2);
+            case LOG1P:
+                return 1d / (1d + u);
+            case TO_RADIAN:
+                return Math.PI / 180d;
+            case TO_DEGREE:
+                return 180d / Math.PI;
+            default:
+                throw new IllegalStateException("No derivative for opcode " + opcode);
+        }
+    }
+
+    /* the derivative of an operation of two operands by the chain rule */
+    private static double binary(final int opcode, final double a, final double da, final double b, final double db,
+                                 final double v) {
+        switch (opcode) {
+            case ADD:
+                return da + db;
+            case SUBTRACT:
+                return da - db;
+            case MULTIPLY:
+                return a * db + b * da;
+            case DIVIDE:
+                return (da * b - a * db) / (b * b);
+            case MODULO:
+                return db == 0d ? da : da - db * (a - v) / b;
+            case POWER:
+                if (db == 0d) {
+                    return da == 0d ? 0d : b * Math.pow(a, b - 1d) * da;
+                }
+                return v * (db * Math.log(a) + (da == 0d ? 0d : b * da / a));
+            case LOGB:
+                final double lnBase = Math.log(a);
+                return db / (b * lnBase) - (da == 0d ? 0d : Math.log(b) * da / (a * lnBase * lnBase));
+            case MIN:
+                return a <= b ? da : db;
+            case MAX:
+                return a >= b ? da : db;
+            case STEP:
+                return 0d;
+            default:
+                throw new IllegalStateException("No derivative for opcode " + opcode);
+        }
+    }
+
+    private static int opcode(final Operator op) {
+        final String symbol = op.getSymbol();
+        final Operator strict = symbol.length() == 1
+                ? Operators.getBuiltinOperator(symbol.charAt(0), op.getNumOperands(), MathMode.STRICT)
+                : Operators.getBuiltinOperator(symbol);
+        if (strict == null || (op != strict && op != Operators.getNonThrowingOperator(strict)
+                && op != Operators.getBuiltinOperator(symbol.charAt(0), op.getNumOperands(), MathMode.FAST))) {
+            throw new IllegalArgumentException("The operator '" + symbol + "' can not be differentiated");
+        }
+        if (op.getNumOperands() == 1) {
+            return symbol.equals("-") ? NEGATE : IDENTITY;
+        }
+        switch (symbol) {
+            case "+":
+                return ADD;
+            case "-":
+                return SUBTRACT;
+            case "*":
+                return MULTIPLY;
+            case "/":
+                return DIVIDE;
+            case "%":
+                return MODULO;
+            case "^":
+                return POWER;
+            default:
+                /* comparisons and logical operators are piecewise constant */
+                return STEP;
+        }
+    }
+
+    private static int opcode(final Function f) {
+        final String name = f.getName();
+        final Function strict = Functions.getBuiltinFunction(name, MathMode.STRICT);
+        if (strict == null || !f.isDeterministic() || (f != strict && f != Functions.getNonThrowingFunction(strict)
+                && f != Functions.getBuiltinFunction(name, MathMode.FAST))) {
+            throw new IllegalArgumentException("The function '" + name + "' can not be differentiated");
+        }
+        switch (name) {
+            case "sin":
+                return SIN;
+            case "cos":
+                return COS;
+            case "tan":
+                return TAN;
+            case "cot":
+                return COT;
+            case "csc":
+                return CSC;
+            case "sec":
+                return SEC;
+            case "sinh":
+                return SINH;
+            case "cosh":
+                return COSH;
+            case "tanh":
+                return TANH;
+            case "csch":
+                return CSCH;
+            case "sech":
+                return SECH;
+            case "coth":
+                return COTH;
+            case "asin":
+                return ASIN;
+            case "acos":
+                return ACOS;
+            case "atan":
+                return ATAN;
+            case "sqrt":
+                return SQRT;
+            case "cbrt":
+                return CBRT;
+            case "abs":
+                return ABS;
+            case "exp":
+                return EXP;
+            case "expm1":
+                return EXPM1;
+            case "log":
+                return LOG;
+            case "log10":
+                return LOG10;
+            case "log2":
+                return LOG2;
+            case "log1p":
+                return LOG1P;
+            case "logb":
+                return LOGB;
+            case "pow":
+                return POWER;
+            case "toradian":
+                return TO_RADIAN;
+            case "todegree":
+                return TO_DEGREE;
+            case "min":
+                return MIN;
+            case "max":
+                return MAX;
+            case "ceil":
+            case "floor":
+            case "signum":
+                return STEP;
+            default:
+                throw new IllegalArgumentException("The function '" + name + "' can not be differentiated");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+/**
+ * Defines how an {@link Expression} reports arithmetic errors and missing variables during evaluation
+ */
+public enum ErrorPolicy {
+    /**
+     * Throw an {@link ArithmeticException} on zero divisors and an {@link IllegalArgumentException} on missing
+     * variables
+     */
+    THROW,
+    /**
+     * Never throw during evaluation. Zero divisors produce the IEEE 754 result (an infinity or NaN) and missing
+     * variables evaluate to NaN
+     */
+    IEEE_NAN,
+    /**
+     * Evaluate like {@link #IEEE_NAN} and additionally set the bit of each row that read a missing variable or
+     * produced a NaN or an infinity from finite operands in the caller supplied error bitmap
+     */
+    FLAG
+}
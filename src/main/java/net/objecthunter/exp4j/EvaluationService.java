@@ -0,0 +1,320 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import net.objecthunter.exp4j.tokenizer.Token;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous evaluation service coalescing concurrent single evaluations. Requests for the same program, i.e.
+ * expressions sharing a token array such as copies or expressions interned by an {@link ExpressionPool}, are
+ * collected into a columnar batch until the window elapses or the batch is full, evaluated in one pass by
+ * {@link Expression#evaluate(Map, double[])} and their futures completed. This trades up to one window of latency
+ * for the throughput of batch evaluation.
+ */
+public class EvaluationService {
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final Executor executor;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ConcurrentHashMap<BatchKey, Batch> batches = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder flushes = new LongAdder();
+
+    /**
+     * Create a new evaluation service evaluating the batches in the common fork join pool
+     *
+     * @param window       the maximum time a request waits for further requests
+     * @param unit         the unit of the window
+     * @param maxBatchSize the number of requests after which a batch is evaluated without waiting for the window
+     */
+    public EvaluationService(long window, TimeUnit unit, int maxBatchSize) {
+        this(window, unit, maxBatchSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a new evaluation service
+     *
+     * @param window       the maximum time a request waits for further requests
+     * @param unit         the unit of the window
+     * @param maxBatchSize the number of requests after which a batch is evaluated without waiting for the window
+     * @param executor     the executor evaluating the batches
+     */
+    public EvaluationService(long window, TimeUnit unit, int maxBatchSize, Executor executor) {
+        if (window < 0) {
+            throw new IllegalArgumentException("The batching window can not be negative");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The maximum batch size must be positive");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor can not be null");
+        }
+        this.windowNanos = unit.toNanos(window);
+        this.maxBatchSize = maxBatchSize;
+        this.executor = executor;
+        final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+            final Thread t = new Thread(r, "exp4j-evaluation-service");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        this.scheduler = timer;
+    }
+
+    /**
+     * Submit an evaluation. Variables missing from the given values use the values set on the expression.
+     *
+     * @param expression the expression to evaluate
+     * @param variables  the variable values of this evaluation
+     * @return the future result, completed exceptionally if the evaluation fails or the executor rejects its batch
+     */
+    public CompletableFuture<Double> submit(final Expression expression, final Map<String, Double> variables) {
+        final CompletableFuture<Double> future = new CompletableFuture<>();
+        final String[] names = expression.getSlotNames();
+        final double[] row = new double[names.length];
+        for (int slot = 0; slot < names.length; slot++) {
+            final Double value = variables.get(names[slot]);
+            if (value != null) {
+                row[slot] = value;
+            } else if (expression.isAssigned(slot)) {
+                row[slot] = expression.getValue(slot);
+            } else if (expression.getErrorPolicy() == ErrorPolicy.THROW) {
+                future.completeExceptionally(new IllegalArgumentException("No value has been set for the setVariable '" + names[slot] + "'."));
+                return future;
+            } else {
+                row[slot] = Double.NaN;
+            }
+        }
+        requests.increment();
+        final BatchKey key = new BatchKey(expression.getTokens(), names, expression.getErrorPolicy());
+        while (true) {
+            final Batch batch = batches.computeIfAbsent(key, k -> new Batch(k, expression, maxBatchSize));
+            final boolean first;
+            final boolean full;
+            synchronized (batch) {
+                if (batch.closed) {
+                    continue;
+                }
+                if (batch.size == batch.futures.length) {
+                    batch.grow(maxBatchSize);
+                }
+                for (int slot = 0; slot < row.length; slot++) {
+                    batch.columns[slot][batch.size] = row[slot];
+                }
+                batch.futures[batch.size++] = future;
+                first = batch.size == 1;
+                full = batch.size == maxBatchSize;
+                if (full) {
+                    batch.closed = true;
+                }
+            }
+            if (full) {
+                batches.remove(key, batch);
+                dispatch(batch);
+            } else if (first) {
+                try {
+                    scheduler.schedule(() -> flush(batch), windowNanos, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    flush(batch);
+                }
+            }
+            return future;
+        }
+    }
+
+    private void flush(final Batch batch) {
+        synchronized (batch) {
+            if (batch.closed) {
+                return;
+            }
+            batch.closed = true;
+        }
+        batches.remove(batch.key, batch);
+        dispatch(batch);
+    }
+
+    private void dispatch(final Batch batch) {
+        try {
+            executor.execute(() -> evaluate(batch));
+        } catch (RejectedExecutionException e) {
+            for (int i = 0; i < batch.size; i++) {
+                batch.futures[i].completeExceptionally(e);
+            }
+        }
+    }
+
+    private void evaluate(final Batch batch) {
+        flushes.increment();
+        final int rows = batch.size;
+        final String[] names = batch.expression.getSlotNames();
+        final Map<String, double[]> columns = new HashMap<>(names.length * 2);
+        for (int slot = 0; slot < names.length; slot++) {
+            columns.put(names[slot], batch.columns[slot]);
+        }
+        final double[] results = new double[rows];
+        try {
+            batch.expression.evaluate(columns, results);
+        } catch (RuntimeException e) {
+            /* a throwing row fails the whole batch, evaluate the rows one by one to attribute the exception */
+            evaluateRows(batch);
+            return;
+        }
+        for (int i = 0; i < rows; i++) {
+            batch.futures[i].complete(results[i]);
+        }
+    }
+
+    private static void evaluateRows(final Batch batch) {
+        final String[] names = batch.expression.getSlotNames();
+        for (int i = 0; i < batch.size; i++) {
+            try {
+                for (int slot = 0; slot < names.length; slot++) {
+                    batch.expression.setVariable(names[slot], batch.columns[slot][i]);
+                }
+                batch.futures[i].complete(batch.expression.evaluate());
+            } catch (RuntimeException e) {
+                batch.futures[i].completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Evaluate all pending batches and stop the timer. Requests submitted after the shutdown are evaluated without
+     * waiting for further requests.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Batch batch : batches.values()) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * Get the number of accepted evaluation requests
+     *
+     * @return the number of requests
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Get the number of evaluated batches
+     *
+     * @return the number of batches
+     */
+    public long getBatchCount() {
+        return flushes.sum();
+    }
+
+    /**
+     * Get the average number of requests per evaluated batch
+     *
+     * @return the average batch size
+     */
+    public double getAverageBatchSize() {
+        final long n = flushes.sum();
+        return n == 0 ? 0d : (double) requests.sum() / n;
+    }
+
+    /*
+     * Expressions are batched together if they share the tokens and the slots, which differ between an expression and
+     * its copies bound to a scope
+     */
+    private static final class BatchKey {
+        final Token[] tokens;
+        final String[] slotNames;
+        final ErrorPolicy policy;
+
+        BatchKey(final Token[] tokens, final String[] slotNames, final ErrorPolicy policy) {
+            this.tokens = tokens;
+            this.slotNames = slotNames;
+            this.policy = policy;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            final BatchKey other = (BatchKey) o;
+            return tokens == other.tokens && slotNames == other.slotNames && policy == other.policy;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(tokens) + System.identityHashCode(slotNames)) + policy.hashCode();
+        }
+    }
+
+    /*
+     * The requests of a batch, held in arrays which start small and double up to the maximum batch size, so that
+     * batches closed by the window after a few requests allocate little
+     */
+    private static final class Batch {
+        private static final int INITIAL_CAPACITY = 16;
+
+        final BatchKey key;
+        final Expression expression;
+        double[][] columns;
+        CompletableFuture<Double>[] futures;
+        int size;
+        boolean closed;
+
+        Batch(final BatchKey key, final Expression expression, final int maxBatchSize) {
+            this.key = key;
+            this.expression = expression.snapshot().clearVariables();
+            this.columns = new double[expression.getSlotNames().length][0];
+            this.futures = newFutures(0);
+            grow(maxBatchSize);
+        }
+
+        void grow(final int maxBatchSize) {
+            final int capacity = (int) Math.min(maxBatchSize, Math.max(INITIAL_CAPACITY, 2L * futures.length));
+            for (int slot = 0; slot < columns.length; slot++) {
+                columns[slot] = Arrays.copyOf(columns[slot], capacity);
+            }
+            final CompletableFuture<Double>[] grown = newFutures(capacity);
+            System.arraycopy(futures, 0, grown, 0, size);
+            futures = grown;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static CompletableFuture<Double>[] newFutures(final int capacity) {
+            return (CompletableFuture<Double>[]) new CompletableFuture<?>[capacity];
+        }
+    }
+}
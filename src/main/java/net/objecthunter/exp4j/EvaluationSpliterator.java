@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Evaluates an expression lazily for the elements of a source spliterator. Each split owns its evaluation state,
+ * and the spliterator is the consumer of its source, so that evaluating an element allocates nothing. The values are
+ * reset to those of the expression before each element is bound, so that slots the binder does not write never keep
+ * the value of a previous element.
+ */
+final class EvaluationSpliterator<T> implements Spliterator.OfDouble, Consumer<T> {
+
+    /* a NaN payload no arithmetic produces, marking the missing variables the binder has not written */
+    private static final long UNBOUND = 0x7ff8_0000_dead_beefL;
+
+    private final Spliterator<T> source;
+
+    private final Expression expression;
+
+    private final VariableBinder<? super T> binder;
+
+    private final EvaluationState state;
+
+    /* the values of the expression, with the missing variables marked as unbound */
+    private final double[] initial;
+
+    private final int[] missing;
+
+    private DoubleConsumer action;
+
+    EvaluationSpliterator(final Spliterator<T> source, final Expression expression,
+                          final VariableBinder<? super T> binder) {
+        this.source = source;
+        this.expression = expression;
+        this.binder = binder;
+        this.state = expression.newEvaluationState();
+        this.missing = expression.missingSlots();
+        this.initial = state.values.clone();
+        for (final int slot : missing) {
+            this.initial[slot] = Double.longBitsToDouble(UNBOUND);
+        }
+    }
+
+    @Override
+    public void accept(final T element) {
+        final double[] values = state.values;
+        System.arraycopy(initial, 0, values, 0, values.length);
+        binder.bind(element, values);
+        for (final int slot : missing) {
+            if (Double.doubleToRawLongBits(values[slot]) == UNBOUND) {
+                throw new IllegalArgumentException("No value has been set for the setVariable '" + expression.getSlotNames()[slot] + "'.");
+            }
+        }
+        action.accept(expression.evaluate(state));
+    }
+
+    @Override
+    public boolean tryAdvance(final DoubleConsumer action) {
+        this.action = action;
+        return source.tryAdvance(this);
+    }
+
+    @Override
+    public void forEachRemaining(final DoubleConsumer action) {
+        this.action = action;
+        source.forEachRemaining(this);
+    }
+
+    @Override
+    public Spliterator.OfDouble trySplit() {
+        final Spliterator<T> split = source.trySplit();
+        return split == null ? null : new EvaluationSpliterator<>(split, expression, binder);
+    }
+
+    @Override
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics() & (ORDERED | SIZED | SUBSIZED);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.Arrays;
+
+/**
+ * The mutable state of a single evaluation: the variable values by slot, the operand stack and the error flag, and
+ * while evaluating with a {@link VariableResolver} the resolver and the slots it has not resolved yet. Evaluations
+ * running concurrently on the same {@link Expression} each need their own state.
+ */
+final class EvaluationState {
+
+    final double[] values;
+
+    final ArrayStack stack;
+
+    boolean error;
+
+    VariableResolver resolver;
+
+    boolean[] unresolved;
+
+    EvaluationState(final int slots, final int stackSize) {
+        this.values = new double[slots];
+        Arrays.fill(this.values, Double.NaN);
+        this.stack = new ArrayStack(stackSize);
+    }
+
+    EvaluationState(final double[] values, final ArrayStack stack) {
+        this.values = values;
+        this.stack = stack;
+    }
+}
@@ -20,68 +20,180 @@ import net.objecthunter.exp4j.function.Function0;
 import net.objecthunter.exp4j.function.Function1;
 import net.objecthunter.exp4j.function.Function2;
 import net.objecthunter.exp4j.function.Functions;
+import net.objecthunter.exp4j.metrics.Metrics;
 import net.objecthunter.exp4j.operator.Operator;
 import net.objecthunter.exp4j.operator.BinaryOperator;
+import net.objecthunter.exp4j.operator.Operators;
 import net.objecthunter.exp4j.operator.UnaryOperator;
+import net.objecthunter.exp4j.optimizer.ConstantFolding;
 import net.objecthunter.exp4j.tokenizer.*;
 
 import java.util.*;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Expression {
     private final Token[] tokens;
 
-    private final Map<String, MutableDouble> variables;
+    private final String[] slotNames;
+
+    private final int[] tokenSlots;
+
+    private final Map<String, Integer> slots;
+
+    private final boolean[] assigned;
+
+    private int assignedCount;
 
     private final HashSet<String> variableNames;
 
     private final int requiredStackSize;
 
-    private final ArrayStack stack;
+    private final ErrorPolicy errorPolicy;
+
+    private final EvaluationState state;
+
+    private final String source;
+
+    private ResultCache cache;
+
+    /* the state of evaluations with a resolver, created on first use */
+    private EvaluationState resolving;
+
+    private final VariableScope scope;
+
+    private final boolean[] used;
+
+    private final int[] usedSlots;
 
     /**
-     * Creates a new expression that is a copy of the existing one.
+     * Creates a new expression that is a copy of the existing one. A copy of an expression bound to a
+     * {@link VariableScope} stays bound to it and shares its values.
      *
      * @param existing the expression to copy
      */
     public Expression(final Expression existing) {
-        this.tokens = Arrays.copyOf(existing.tokens, existing.tokens.length);
-        this.variables = new HashMap<>(existing.variables.size());
-        for (Map.Entry<String, MutableDouble> entry : existing.variables.entrySet()) {
-            this.variables.put(entry.getKey(), new MutableDouble(entry.getValue().value));
-        }
+        this(existing, false);
+    }
+
+    /*
+     * Create a copy of an expression, which holds values of its own if detached even if the existing one is bound to a
+     * scope. A detached copy keeps the slots of the scope.
+     */
+    private Expression(final Expression existing, final boolean detached) {
+        this.tokens = existing.tokens;
+        this.slotNames = existing.slotNames;
+        this.tokenSlots = existing.tokenSlots;
+        this.slots = existing.slots;
+        this.assignedCount = existing.assignedCount;
         this.requiredStackSize = getRequiredStackSize(tokens);
-        this.stack = new ArrayStack(this.requiredStackSize);
+        this.errorPolicy = existing.errorPolicy;
+        this.scope = detached ? null : existing.scope;
+        this.used = existing.used;
+        this.usedSlots = existing.usedSlots;
+        if (this.scope == null) {
+            this.assigned = Arrays.copyOf(existing.assigned, existing.assigned.length);
+            this.state = new EvaluationState(this.slotNames.length, this.requiredStackSize);
+            System.arraycopy(existing.state.values, 0, this.state.values, 0, this.slotNames.length);
+        } else {
+            this.assigned = existing.assigned;
+            this.state = new EvaluationState(existing.state.values, new ArrayStack(this.requiredStackSize));
+        }
         this.variableNames = new HashSet<>(existing.variableNames);
+        this.source = existing.source;
+        this.cache = existing.cache;
+    }
+
+    /*
+     * Create a copy of an expression bound to a scope, with the variable tokens remapped to the slots of the scope
+     */
+    private Expression(final Expression existing, final VariableScope scope, final int[] tokenSlots) {
+        this.tokens = existing.tokens;
+        this.slotNames = scope.names;
+        this.tokenSlots = tokenSlots;
+        this.slots = scope.slots;
+        this.assigned = scope.assigned;
+        this.requiredStackSize = existing.requiredStackSize;
+        this.errorPolicy = existing.errorPolicy;
+        this.scope = scope;
+        this.used = new boolean[scope.names.length];
+        int count = 0;
+        for (final int slot : tokenSlots) {
+            if (slot >= 0 && !this.used[slot]) {
+                this.used[slot] = true;
+                count++;
+            }
+        }
+        this.usedSlots = new int[count];
+        for (int slot = 0, i = 0; slot < this.used.length; slot++) {
+            if (this.used[slot]) {
+                this.usedSlots[i++] = slot;
+            }
+        }
+        this.state = new EvaluationState(scope.values, new ArrayStack(this.requiredStackSize));
+        this.variableNames = new HashSet<>(existing.variableNames);
+        this.source = existing.source;
     }
 
     Expression(final Token[] tokens) {
+        this(tokens, ErrorPolicy.THROW, null);
+    }
+
+    Expression(final Token[] tokens, final ErrorPolicy errorPolicy) {
+        this(tokens, errorPolicy, null);
+    }
+
+    Expression(final Token[] tokens, final ErrorPolicy errorPolicy, final String source) {
         this.tokens = tokens;
-        this.variables = new HashMap<>();
+        this.source = source;
+        this.errorPolicy = errorPolicy;
         this.requiredStackSize = getRequiredStackSize(tokens);
-        this.stack = new ArrayStack(this.requiredStackSize);
 
-        variableNames = new HashSet<>();
-        for (final Token t : tokens) {
-            if (t.getType() == Token.TOKEN_VARIABLE)
-                variableNames.add(((VariableToken) t).getName());
+        /* assign a slot to each variable in the order of its first occurrence */
+        this.variableNames = new HashSet<>();
+        this.slots = new HashMap<>();
+        this.tokenSlots = new int[tokens.length];
+        final List<String> names = new ArrayList<>();
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].getType() == Token.TOKEN_VARIABLE) {
+                final String name = ((VariableToken) tokens[i]).getName();
+                Integer slot = this.slots.get(name);
+                if (slot == null) {
+                    slot = names.size();
+                    names.add(name);
+                    this.slots.put(name, slot);
+                    this.variableNames.add(name);
+                }
+                this.tokenSlots[i] = slot;
+            } else {
+                this.tokenSlots[i] = -1;
+            }
         }
+        this.slotNames = names.toArray(new String[0]);
+        this.assigned = new boolean[this.slotNames.length];
+        this.state = new EvaluationState(this.slotNames.length, this.requiredStackSize);
+        this.scope = null;
+        this.used = null;
+        this.usedSlots = null;
     }
 
     public Expression setVariable(final String name, final double value) {
         this.checkVariableName(name);
-        final MutableDouble holder = this.variables.get(name);
-        if (holder != null) {
-            holder.value = value;
-        } else {
-            this.variables.put(name, new MutableDouble(value));
+        final Integer slot = this.slots.get(name);
+        if (slot != null) {
+            if (!this.assigned[slot]) {
+                this.assigned[slot] = true;
+                this.assignedCount++;
+            }
+            this.state.values[slot] = value;
         }
         return this;
     }
 
-    private void clearStack () {
-        this.stack.clear();
-    }
-
     private void checkVariableName(String name) {
         if (Functions.getBuiltinFunction(name) != null) {
             throw new IllegalArgumentException("The variable name '" + name + "' is invalid. Since there exists a function with the same name");
@@ -95,8 +207,49 @@ public class Expression {
         return this;
     }
 
+    /**
+     * Create a copy of this expression which reads its variables from a shared scope instead of its own values. A
+     * value set in the scope is seen by every expression bound to it without copying, and
+     * {@link #setVariable(String, double)} and {@link #clearVariables()} of a bound expression write to the scope.
+     * The values set on this expression are not carried over, and copies of the bound expression stay bound to the
+     * scope. If this expression has a result cache the bound one gets a cache of its own.
+     *
+     * @param scope the scope, which must declare every variable of this expression
+     * @return the bound expression
+     */
+    public Expression bind(final VariableScope scope) {
+        final int[] remapped = new int[this.tokens.length];
+        for (int i = 0; i < this.tokens.length; i++) {
+            remapped[i] = this.tokenSlots[i] < 0 ? -1 : scope.getIndex(this.slotNames[this.tokenSlots[i]]);
+        }
+        final Expression result = new Expression(this, scope, remapped);
+        if (this.cache != null) {
+            result.enableCache(this.cache.getCapacity());
+        }
+        return result;
+    }
+
+    /**
+     * Create a copy holding a snapshot of the current variable values, which are not shared with a scope even if this
+     * expression is bound to one, so that the copy can be modified without affecting other expressions
+     */
+    Expression snapshot() {
+        return new Expression(this, true);
+    }
+
+    /**
+     * Get the scope this expression has been bound to
+     *
+     * @return the scope, or null if the expression holds its own values
+     */
+    public VariableScope getScope() {
+        return this.scope;
+    }
+
     public Expression clearVariables() {
-        this.variables.clear();
+        Arrays.fill(this.assigned, false);
+        Arrays.fill(this.state.values, Double.NaN);
+        this.assignedCount = 0;
         return this;
     }
 
@@ -108,16 +261,22 @@ public class Expression {
         return variableNames;
     }
 
+    /**
+     * Get the policy this expression reports arithmetic errors and missing variables with
+     *
+     * @return the error policy
+     */
+    public ErrorPolicy getErrorPolicy() {
+        return errorPolicy;
+    }
+
     public ValidationResult validate(boolean checkVariablesSet) {
         final List<String> errors = new ArrayList<>(0);
         if (checkVariablesSet) {
             /* check that all vars have a value set */
-            for (final Token t : this.tokens) {
-                if (t.getType() == Token.TOKEN_VARIABLE) {
-                    final String var = ((VariableToken) t).getName();
-                    if (!variables.containsKey(var)) {
-                        errors.add("The setVariable '" + var + "' has not been set");
-                    }
+            for (int i = 0; i < this.tokens.length; i++) {
+                if (this.tokens[i].getType() == Token.TOKEN_VARIABLE && !this.assigned[this.tokenSlots[i]]) {
+                    errors.add("The setVariable '" + this.slotNames[this.tokenSlots[i]] + "' has not been set");
                 }
             }
         }
@@ -168,20 +327,761 @@ public class Expression {
     }
 
     public double evaluate() {
-        clearStack();
-        final ArrayStack output = this.stack;
+        if (!Metrics.ENABLED) {
+            return evaluateUnobserved();
+        }
+        final long start = System.nanoTime();
+        try {
+            final double result = evaluateUnobserved();
+            Metrics.getListener().onEvaluation(this.source, 1, System.nanoTime() - start, this.state.error ? 1 : 0);
+            return result;
+        } catch (RuntimeException e) {
+            Metrics.getListener().onEvaluation(this.source, 1, System.nanoTime() - start, 1);
+            throw e;
+        }
+    }
+
+    private double evaluateUnobserved() {
+        final boolean missing = isMissing();
+        if (missing && this.errorPolicy == ErrorPolicy.THROW) {
+            throw new IllegalArgumentException("No value has been set for the setVariable '" + firstMissingVariable() + "'.");
+        }
+        this.state.error = missing;
+        return evaluate(this.state);
+    }
+
+    /**
+     * Evaluate the expression, asking a resolver for the value of each variable without a value set the first time
+     * the evaluation reads it. The resolved value is used for the rest of this evaluation only, and a variable the
+     * evaluation does not read is never resolved. The result cache is bypassed.
+     *
+     * @param resolver the resolver of the variables without a value
+     * @return the result of the evaluation
+     */
+    public double evaluate(final VariableResolver resolver) {
+        if (!Metrics.ENABLED) {
+            return evaluateUnobserved(resolver);
+        }
+        final long start = System.nanoTime();
+        try {
+            final double result = evaluateUnobserved(resolver);
+            Metrics.getListener().onEvaluation(this.source, 1, System.nanoTime() - start, this.state.error ? 1 : 0);
+            return result;
+        } catch (RuntimeException e) {
+            Metrics.getListener().onEvaluation(this.source, 1, System.nanoTime() - start, 1);
+            throw e;
+        }
+    }
+
+    private double evaluateUnobserved(final VariableResolver resolver) {
+        /* resolve into a copy of the values, which may be the values of a scope shared with other expressions */
+        EvaluationState s = this.resolving;
+        if (s == null) {
+            s = new EvaluationState(new double[this.slotNames.length], this.state.stack);
+            s.unresolved = new boolean[this.slotNames.length];
+            this.resolving = s;
+        }
+        System.arraycopy(this.state.values, 0, s.values, 0, this.slotNames.length);
+        for (int slot = 0; slot < this.slotNames.length; slot++) {
+            s.unresolved[slot] = !this.assigned[slot];
+        }
+        s.resolver = resolver;
+        s.error = false;
+        try {
+            return run(s);
+        } finally {
+            s.resolver = null;
+            this.state.error = s.error;
+        }
+    }
+
+    /**
+     * Evaluate the expression and record an error in a bitmap if the expression has been built with
+     * {@link ErrorPolicy#FLAG}
+     *
+     * @param errors the bitmap in which bit {@code row % 64} of element {@code row / 64} is set if the evaluation
+     *               read a missing variable or produced a NaN or an infinity from finite operands
+     * @param row    the row number of this evaluation
+     * @return the result of the evaluation
+     */
+    public double evaluate(final long[] errors, final int row) {
+        final double result = evaluate();
+        if (this.state.error && this.errorPolicy == ErrorPolicy.FLAG) {
+            errors[row >>> 6] |= 1L << row;
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate the expression once for each row of a columnar batch. Variables without a column use the values set
+     * via {@link #setVariable(String, double)}.
+     *
+     * @param columns the input values of the variables by name, each column must have at least as many rows as the
+     *                results
+     * @param results the array receiving the result of each row
+     */
+    public void evaluate(final Map<String, double[]> columns, final double[] results) {
+        evaluate(columns, results, null);
+    }
+
+    /**
+     * Evaluate the expression once for each row of a columnar batch and record the rows with errors in a bitmap if
+     * the expression has been built with {@link ErrorPolicy#FLAG}. Variables without a column use the values set
+     * via {@link #setVariable(String, double)}. Bits of rows without errors are left untouched.
+     *
+     * @param columns the input values of the variables by name, each column must have at least as many rows as the
+     *                results
+     * @param results the array receiving the result of each row
+     * @param errors  the bitmap in which bit {@code row % 64} of element {@code row / 64} is set for each row that
+     *                read a missing variable or produced a NaN or an infinity from finite operands, may be null
+     */
+    public void evaluate(final Map<String, double[]> columns, final double[] results, final long[] errors) {
+        if (!Metrics.ENABLED) {
+            evaluateUnobserved(columns, results, errors);
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            final int failed = evaluateUnobserved(columns, results, errors);
+            Metrics.getListener().onEvaluation(this.source, results.length, System.nanoTime() - start, failed);
+        } catch (RuntimeException e) {
+            Metrics.getListener().onEvaluation(this.source, 1, System.nanoTime() - start, 1);
+            throw e;
+        }
+    }
+
+    private int evaluateUnobserved(final Map<String, double[]> columns, final double[] results, final long[] errors) {
+        final int rows = results.length;
+        if (errors != null && errors.length < (rows + 63) >>> 6) {
+            throw new IllegalArgumentException("The error bitmap is too small for " + rows + " rows");
+        }
+        final ColumnBatch batch = new ColumnBatch(columns, rows);
+        final boolean flag = errors != null && this.errorPolicy == ErrorPolicy.FLAG;
+        int failed = 0;
+        for (int row = 0; row < rows; row++) {
+            results[row] = batch.evaluate(row);
+            if (batch.state.error) {
+                failed++;
+                if (flag) {
+                    errors[row >>> 6] |= 1L << row;
+                }
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Aggregate the results of the expression over a range of rows of a columnar batch without storing them.
+     * Variables without a column use the values set via {@link #setVariable(String, double)}.
+     *
+     * @param columns the input values of the variables by name, each column must hold at least {@code to} rows
+     * @param from    the first row, inclusive
+     * @param to      the last row, exclusive
+     * @return the aggregate of the results
+     */
+    public Aggregate aggregate(final Map<String, double[]> columns, final int from, final int to) {
+        if (from < 0 || from > to) {
+            throw new IllegalArgumentException("Invalid row range [" + from + ", " + to + ")");
+        }
+        final long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+        final ColumnBatch batch = new ColumnBatch(columns, to);
+        final Aggregate aggregate = new Aggregate();
+        for (int row = from; row < to; row++) {
+            aggregate.add(batch.evaluate(row));
+            batch.observe();
+        }
+        batch.report(to - from, start);
+        return aggregate;
+    }
+
+    /**
+     * Aggregate the results of the expression over the rows of a columnar batch in parallel. The rows are split into
+     * fixed chunks which are aggregated in the common fork join pool and combined in row order, so the result is the
+     * same for any number of threads.
+     *
+     * @param columns   the input values of the variables by name, each column must hold at least the given number
+     *                  of rows
+     * @param rows      the number of rows
+     * @param chunkRows the number of rows per chunk
+     * @return the aggregate of the results
+     */
+    public Aggregate aggregateParallel(final Map<String, double[]> columns, final int rows, final int chunkRows) {
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException("The number of rows per chunk must be positive");
+        }
+        final int chunks = (int) ((rows + (long) chunkRows - 1) / chunkRows);
+        final Aggregate[] partials = IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> aggregate(columns, c * chunkRows, (int) Math.min(rows, (long) (c + 1) * chunkRows)))
+                .toArray(Aggregate[]::new);
+        final Aggregate result = new Aggregate();
+        for (Aggregate partial : partials) {
+            result.combine(partial);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate this expression as a predicate over the rows of a columnar batch and collect the selected rows, i.e.
+     * the rows for which the result is neither 0 nor NaN, see {@link Operators#isTrue(double)}. Variables without a
+     * column use the values set via {@link #setVariable(String, double)}.
+     *
+     * @param columns   the input values of the variables by name, each column must hold at least the given number
+     *                  of rows
+     * @param rows      the number of rows
+     * @param selection the array receiving the selected row ids in ascending order, it needs to hold the selected
+     *                  rows only
+     * @return the number of selected rows
+     */
+    public int select(final Map<String, double[]> columns, final int rows, final int[] selection) {
+        final long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+        final ColumnBatch batch = new ColumnBatch(columns, rows);
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if (Operators.isTrue(batch.evaluate(row))) {
+                selection[count++] = row;
+            }
+            batch.observe();
+        }
+        batch.report(rows, start);
+        return count;
+    }
+
+    /**
+     * Evaluate this expression as a predicate over the selected rows of a columnar batch and keep those for which
+     * the result is neither 0 nor NaN. The output may be the input selection, which is then refined in place.
+     *
+     * @param columns   the input values of the variables by name, each column must hold all selected rows
+     * @param selection the selected row ids
+     * @param count     the number of selected rows
+     * @param output    the array receiving the row ids still selected, in the order of the input selection, it
+     *                  needs to hold the rows still selected only
+     * @return the number of rows still selected
+     */
+    public int select(final Map<String, double[]> columns, final int[] selection, final int count, final int[] output) {
+        final long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+        final ColumnBatch batch = new ColumnBatch(columns, maxRow(selection, count) + 1);
+        int selected = 0;
+        for (int i = 0; i < count; i++) {
+            final int row = selection[i];
+            if (Operators.isTrue(batch.evaluate(row))) {
+                output[selected++] = row;
+            }
+            batch.observe();
+        }
+        batch.report(count, start);
+        return selected;
+    }
+
+    /**
+     * Evaluate this expression as a predicate over the rows of a columnar batch into a bitmap, in which the bit of
+     * each row is set if the result is neither 0 nor NaN and cleared otherwise
+     *
+     * @param columns the input values of the variables by name, each column must hold at least the given number of
+     *                rows
+     * @param rows    the number of rows
+     * @param bitmap  the bitmap in which bit {@code row % 64} of element {@code row / 64} receives the row's result
+     * @return the number of selected rows
+     */
+    public int select(final Map<String, double[]> columns, final int rows, final long[] bitmap) {
+        if (bitmap.length < (rows + 63) >>> 6) {
+            throw new IllegalArgumentException("The bitmap is too small for " + rows + " rows");
+        }
+        final long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+        final ColumnBatch batch = new ColumnBatch(columns, rows);
+        int count = 0;
+        for (int w = 0; w << 6 < rows; w++) {
+            long bits = 0L;
+            final int end = Math.min(rows, (w + 1) << 6);
+            for (int row = w << 6; row < end; row++) {
+                if (Operators.isTrue(batch.evaluate(row))) {
+                    bits |= 1L << row;
+                }
+                batch.observe();
+            }
+            count += Long.bitCount(bits);
+            if (end - (w << 6) < 64) {
+                /* keep the bits beyond the last row */
+                bits |= bitmap[w] & (-1L << end);
+            }
+            bitmap[w] = bits;
+        }
+        batch.report(rows, start);
+        return count;
+    }
+
+    /**
+     * Evaluate the expression for the selected rows of a columnar batch only. The result of each selected row is
+     * stored at its row id, the results of the other rows are left untouched.
+     *
+     * @param columns   the input values of the variables by name, each column must hold all selected rows
+     * @param selection the selected row ids
+     * @param count     the number of selected rows
+     * @param results   the array receiving the result of each selected row at its row id
+     */
+    public void evaluate(final Map<String, double[]> columns, final int[] selection, final int count,
+                         final double[] results) {
+        final long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+        final ColumnBatch batch = new ColumnBatch(columns, maxRow(selection, count) + 1);
+        for (int i = 0; i < count; i++) {
+            final int row = selection[i];
+            results[row] = batch.evaluate(row);
+            batch.observe();
+        }
+        batch.report(count, start);
+    }
+
+    /**
+     * Aggregate the results of the expression over the selected rows of a columnar batch without storing them
+     *
+     * @param columns   the input values of the variables by name, each column must hold all selected rows
+     * @param selection the selected row ids
+     * @param count     the number of selected rows
+     * @return the aggregate of the results
+     */
+    public Aggregate aggregate(final Map<String, double[]> columns, final int[] selection, final int count) {
+        final long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+        final ColumnBatch batch = new ColumnBatch(columns, maxRow(selection, count) + 1);
+        final Aggregate aggregate = new Aggregate();
+        for (int i = 0; i < count; i++) {
+            aggregate.add(batch.evaluate(selection[i]));
+            batch.observe();
+        }
+        batch.report(count, start);
+        return aggregate;
+    }
+
+    private static int maxRow(final int[] selection, final int count) {
+        int max = -1;
+        for (int i = 0; i < count; i++) {
+            if (selection[i] < 0) {
+                throw new IllegalArgumentException("Invalid row id " + selection[i] + " in the selection");
+            }
+            max = Math.max(max, selection[i]);
+        }
+        return max;
+    }
+
+    /**
+     * The columns bound to the slots of this expression for one batch, with its own evaluation state
+     */
+    private final class ColumnBatch {
+        final EvaluationState state = newEvaluationState();
+        final int[] boundSlots = new int[slotNames.length];
+        final double[][] boundColumns = new double[slotNames.length][];
+        int bound;
+        boolean missing;
+        int failed;
+
+        ColumnBatch(final Map<String, double[]> columns, final int rows) {
+            for (int slot = 0; slot < slotNames.length; slot++) {
+                final double[] column = columns.get(slotNames[slot]);
+                if (column != null) {
+                    if (column.length < rows) {
+                        throw new IllegalArgumentException("The column for '" + slotNames[slot] + "' has less than " + rows + " rows");
+                    }
+                    boundSlots[bound] = slot;
+                    boundColumns[bound++] = column;
+                } else if (!assigned[slot] && isUsed(slot)) {
+                    if (errorPolicy == ErrorPolicy.THROW) {
+                        throw new IllegalArgumentException("No value has been set for the setVariable '" + slotNames[slot] + "'.");
+                    }
+                    missing = true;
+                }
+            }
+        }
+
+        double evaluate(final int row) {
+            final double[] values = state.values;
+            for (int i = 0; i < bound; i++) {
+                values[boundSlots[i]] = boundColumns[i][row];
+            }
+            state.error = missing;
+            return Expression.this.evaluate(state);
+        }
+
+        /* count the row just evaluated for the metrics if it has an error */
+        void observe() {
+            if (Metrics.ENABLED && state.error) {
+                failed++;
+            }
+        }
+
+        void report(final int rows, final long start) {
+            if (Metrics.ENABLED) {
+                Metrics.getListener().onEvaluation(source, rows, System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    /**
+     * Create an expression with the same error policy, source and variable values running the given tokens, which
+     * must be an equivalent program over the same variables. The result cache is shared if the slots are the same,
+     * otherwise the new expression gets a cache of its own with the same capacity.
+     */
+    Expression withTokens(final Token[] tokens) {
+        if (this.scope != null) {
+            final Expression bound = new Expression(tokens, this.errorPolicy, this.source).bind(this.scope);
+            bound.cache = this.cache;
+            return bound;
+        }
+        final Expression result = new Expression(tokens, this.errorPolicy, this.source);
+        if (Arrays.equals(result.slotNames, this.slotNames)) {
+            result.cache = this.cache;
+        } else if (this.cache != null) {
+            result.enableCache(this.cache.getCapacity());
+        }
+        for (int slot = 0; slot < this.slotNames.length; slot++) {
+            if (this.assigned[slot]) {
+                result.setVariable(this.slotNames[slot], this.state.values[slot]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create a new expression with the given variables replaced by their values and the operations which depend only
+     * on them folded into constants, see {@link ConstantFolding}. Variables which do not occur in the expression are
+     * ignored. The new expression keeps the error policy and the values set for the remaining variables, and gets a
+     * result cache of its own if this expression has one.
+     *
+     * @param fixed the values of the variables to fix
+     * @return the specialized expression
+     */
+    public Expression specialize(final Map<String, Double> fixed) {
+        for (final Map.Entry<String, Double> v : fixed.entrySet()) {
+            this.checkVariableName(v.getKey());
+            if (v.getValue() == null) {
+                throw new IllegalArgumentException("No value for the variable '" + v.getKey() + "'");
+            }
+        }
+        final Token[] substituted = new Token[this.tokens.length];
+        for (int i = 0; i < this.tokens.length; i++) {
+            final Double value = this.tokenSlots[i] < 0 ? null : fixed.get(this.slotNames[this.tokenSlots[i]]);
+            substituted[i] = value == null ? this.tokens[i] : new NumberToken(value);
+        }
+        final Expression result = new Expression(ConstantFolding.apply(substituted), this.errorPolicy, this.source);
+        for (int slot = 0; slot < this.slotNames.length; slot++) {
+            if (this.assigned[slot] && !fixed.containsKey(this.slotNames[slot])) {
+                result.setVariable(this.slotNames[slot], this.state.values[slot]);
+            }
+        }
+        if (this.cache != null) {
+            result.enableCache(this.cache.getCapacity());
+        }
+        return result;
+    }
+
+    /**
+     * Get the cache of the results of this expression
+     *
+     * @return the cache, or null if caching has not been enabled by {@link ExpressionBuilder#cache(int)} or has been
+     * bypassed because the expression calls a function which is not deterministic
+     */
+    public ResultCache getResultCache() {
+        return this.cache;
+    }
+
+    /**
+     * Enable the result cache unless a function of the expression is not deterministic. The cache of an expression
+     * bound to a scope is keyed on the slots the expression reads only.
+     */
+    void enableCache(final int capacity) {
+        for (final Token t : this.tokens) {
+            if (t.getType() == Token.TOKEN_FUNCTION && !((FunctionToken) t).getFunction().isDeterministic()) {
+                return;
+            }
+        }
+        int[] key = this.usedSlots;
+        if (key == null) {
+            key = new int[this.slotNames.length];
+            for (int slot = 0; slot < key.length; slot++) {
+                key[slot] = slot;
+            }
+        }
+        this.cache = new ResultCache(this.source, key, capacity);
+    }
+
+    boolean isAssigned(final int slot) {
+        return this.assigned[slot];
+    }
+
+    double getValue(final int slot) {
+        return this.state.values[slot];
+    }
+
+    Token[] getTokens() {
+        return this.tokens;
+    }
+
+    /**
+     * Get the variable names by slot, i.e. in the order of their first occurrence in the expression
+     */
+    String[] getSlotNames() {
+        return this.slotNames;
+    }
+
+    int getSlot(final String name) {
+        final Integer slot = this.slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Create a function of one variable of this expression. The other variables keep the values set at the time of
+     * the call. The function is safe to use from multiple threads, each thread evaluates on its own state.
+     *
+     * @param variable the name of the argument variable
+     * @return the function
+     */
+    public DoubleUnaryOperator toDoubleUnaryOperator(final String variable) {
+        final int slot = argumentSlot(variable);
+        final boolean[] bound = new boolean[this.slotNames.length];
+        bound[slot] = true;
+        checkBound(bound);
+        final Expression snapshot = snapshot();
+        final ThreadLocal<EvaluationState> states = ThreadLocal.withInitial(snapshot::newEvaluationState);
+        return x -> {
+            final EvaluationState s = states.get();
+            s.values[slot] = x;
+            return snapshot.evaluate(s);
+        };
+    }
+
+    /**
+     * Create a function of two variables of this expression. The other variables keep the values set at the time of
+     * the call. The function is safe to use from multiple threads, each thread evaluates on its own state.
+     *
+     * @param left  the name of the variable receiving the first argument
+     * @param right the name of the variable receiving the second argument
+     * @return the function
+     */
+    public DoubleBinaryOperator toDoubleBinaryOperator(final String left, final String right) {
+        final int leftSlot = argumentSlot(left);
+        final int rightSlot = argumentSlot(right);
+        if (leftSlot == rightSlot) {
+            throw new IllegalArgumentException("The arguments must be two different variables");
+        }
+        final boolean[] bound = new boolean[this.slotNames.length];
+        bound[leftSlot] = true;
+        bound[rightSlot] = true;
+        checkBound(bound);
+        final Expression snapshot = snapshot();
+        final ThreadLocal<EvaluationState> states = ThreadLocal.withInitial(snapshot::newEvaluationState);
+        return (x, y) -> {
+            final EvaluationState s = states.get();
+            s.values[leftSlot] = x;
+            s.values[rightSlot] = y;
+            return snapshot.evaluate(s);
+        };
+    }
 
+    /**
+     * Evaluate the expression lazily for each element of a stream. The resulting stream is parallel if the source
+     * is, and each split evaluates on its own state, so that no element allocates. Variables the binder does not
+     * write keep the values set at the time of the call. If missing variables throw, the evaluation of an element
+     * throws an {@link IllegalArgumentException} if the binder did not write a variable without a value set.
+     *
+     * @param stream the source elements
+     * @param binder writes the variable values of an element
+     * @param <T>    the type of the elements
+     * @return the stream of results in the order of the elements
+     */
+    public <T> DoubleStream evaluateStream(final Stream<T> stream, final VariableBinder<? super T> binder) {
+        final Expression snapshot = snapshot();
+        return StreamSupport.doubleStream(new EvaluationSpliterator<>(stream.spliterator(), snapshot, binder),
+                stream.isParallel()).onClose(stream::close);
+    }
+
+    private int argumentSlot(final String variable) {
+        final Integer slot = this.slots.get(variable);
+        if (slot == null) {
+            throw new IllegalArgumentException("The expression has no variable '" + variable + "'");
+        }
+        return slot;
+    }
+
+    /**
+     * Check that each variable is either bound or has a value set, unless missing variables do not throw
+     */
+    void checkBound(final boolean[] bound) {
+        if (this.errorPolicy != ErrorPolicy.THROW) {
+            return;
+        }
+        for (int slot = 0; slot < this.slotNames.length; slot++) {
+            if (!bound[slot] && !this.assigned[slot] && isUsed(slot)) {
+                throw new IllegalArgumentException("No value has been set for the setVariable '" + this.slotNames[slot] + "'.");
+            }
+        }
+    }
+
+    /**
+     * Get the slots which are read but have no value set, if missing variables throw
+     */
+    int[] missingSlots() {
+        if (this.errorPolicy != ErrorPolicy.THROW || !isMissing()) {
+            return new int[0];
+        }
+        final int[] missing = new int[this.slotNames.length];
+        int count = 0;
+        for (int slot = 0; slot < this.slotNames.length; slot++) {
+            if (!this.assigned[slot] && isUsed(slot)) {
+                missing[count++] = slot;
+            }
+        }
+        return Arrays.copyOf(missing, count);
+    }
+
+    /**
+     * Create a new evaluation state holding the current variable values
+     */
+    EvaluationState newEvaluationState() {
+        final EvaluationState s = new EvaluationState(this.slotNames.length, this.requiredStackSize);
+        System.arraycopy(this.state.values, 0, s.values, 0, this.slotNames.length);
+        return s;
+    }
+
+    /**
+     * Evaluate the expression once for each row of a batch of buffer columns, reading the inputs and writing the
+     * results in place. Variables without a column use the values set via {@link #setVariable(String, double)}.
+     *
+     * @param columns the input columns by variable name, each must hold at least the given number of rows
+     * @param results the column receiving the result of each row
+     * @param rows    the number of rows to evaluate
+     */
+    public void evaluate(final Map<String, BufferColumn> columns, final BufferColumn results, final int rows) {
+        evaluate(columns, results, rows, null);
+    }
+
+    /**
+     * Evaluate the expression once for each row of a batch of buffer columns, reading the inputs and writing the
+     * results in place, and record the rows with errors in a bitmap if the expression has been built with
+     * {@link ErrorPolicy#FLAG}. Variables without a column use the values set via
+     * {@link #setVariable(String, double)}.
+     *
+     * @param columns the input columns by variable name, each must hold at least the given number of rows
+     * @param results the column receiving the result of each row
+     * @param rows    the number of rows to evaluate
+     * @param errors  the bitmap in which bit {@code row % 64} of element {@code row / 64} is set for each row that
+     *                read a missing variable or produced a NaN or an infinity from finite operands, may be null
+     */
+    public void evaluate(final Map<String, BufferColumn> columns, final BufferColumn results, final int rows,
+                         final long[] errors) {
+        if (!Metrics.ENABLED) {
+            evaluateUnobserved(columns, results, rows, errors);
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            final int failed = evaluateUnobserved(columns, results, rows, errors);
+            Metrics.getListener().onEvaluation(this.source, rows, System.nanoTime() - start, failed);
+        } catch (RuntimeException e) {
+            Metrics.getListener().onEvaluation(this.source, 1, System.nanoTime() - start, 1);
+            throw e;
+        }
+    }
+
+    private int evaluateUnobserved(final Map<String, BufferColumn> columns, final BufferColumn results,
+                                   final int rows, final long[] errors) {
+        if (rows < 0 || results.getRows() < rows) {
+            throw new IllegalArgumentException("The result column has less than " + rows + " rows");
+        }
+        if (errors != null && errors.length < (rows + 63) >>> 6) {
+            throw new IllegalArgumentException("The error bitmap is too small for " + rows + " rows");
+        }
+        final EvaluationState batch = newEvaluationState();
+        final int[] boundSlots = new int[this.slotNames.length];
+        final BufferColumn[] boundColumns = new BufferColumn[this.slotNames.length];
+        int bound = 0;
+        boolean missing = false;
+        for (int slot = 0; slot < this.slotNames.length; slot++) {
+            final BufferColumn column = columns.get(this.slotNames[slot]);
+            if (column != null) {
+                if (column.getRows() < rows) {
+                    throw new IllegalArgumentException("The column for '" + this.slotNames[slot] + "' has less than " + rows + " rows");
+                }
+                boundSlots[bound] = slot;
+                boundColumns[bound++] = column;
+            } else if (!this.assigned[slot] && isUsed(slot)) {
+                if (this.errorPolicy == ErrorPolicy.THROW) {
+                    throw new IllegalArgumentException("No value has been set for the setVariable '" + this.slotNames[slot] + "'.");
+                }
+                missing = true;
+            }
+        }
+        final boolean flag = errors != null && this.errorPolicy == ErrorPolicy.FLAG;
+        final double[] values = batch.values;
+        int failed = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int i = 0; i < bound; i++) {
+                values[boundSlots[i]] = boundColumns[i].get(row);
+            }
+            batch.error = missing;
+            results.put(row, evaluate(batch));
+            if (batch.error) {
+                failed++;
+                if (flag) {
+                    errors[row >>> 6] |= 1L << row;
+                }
+            }
+        }
+        return failed;
+    }
+
+    private boolean isMissing() {
+        if (this.usedSlots == null) {
+            return this.assignedCount < this.slotNames.length;
+        }
+        for (final int slot : this.usedSlots) {
+            if (!this.assigned[slot]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* check if a variable slot is read by the tokens, which is false only for the unused slots of a scope */
+    private boolean isUsed(final int slot) {
+        return this.used == null || this.used[slot];
+    }
+
+    private String firstMissingVariable() {
+        for (int slot = 0; slot < this.slotNames.length; slot++) {
+            if (!this.assigned[slot] && isUsed(slot)) {
+                return this.slotNames[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Evaluate the expression on the variable values and the stack of the given state, looking the result up in the
+     * result cache if the expression has one
+     */
+    double evaluate(final EvaluationState state) {
+        return this.cache == null ? run(state) : this.cache.evaluate(this, state);
+    }
+
+    /**
+     * Run the tokens on the variable values and the stack of the given state. The state's error flag is set if the
+     * expression has been built with {@link ErrorPolicy#FLAG} and an operation produced a NaN or an infinity from
+     * finite operands.
+     */
+    double run(final EvaluationState state) {
+        final ArrayStack output = state.stack;
+        final double[] values = state.values;
+        final boolean flag = this.errorPolicy == ErrorPolicy.FLAG;
+        output.clear();
         output.ensureCapacity(this.requiredStackSize);
-        for (Token t : tokens) {
+        for (int i = 0; i < tokens.length; i++) {
+            final Token t = tokens[i];
             if (t.getType() == Token.TOKEN_NUMBER) {
                 output.push(((NumberToken) t).getValue());
             } else if (t.getType() == Token.TOKEN_VARIABLE) {
-                final String name = ((VariableToken) t).getName();
-                final MutableDouble value = this.variables.get(name);
-                if (value == null) {
-                    throw new IllegalArgumentException("No value has been set for the setVariable '" + name + "'.");
+                final int slot = tokenSlots[i];
+                if (state.resolver != null && state.unresolved[slot]) {
+                    values[slot] = state.resolver.resolve(slotNames[slot]);
+                    state.unresolved[slot] = false;
                 }
-                output.push(value.value);
+                output.push(values[slot]);
             } else if (t.getType() == Token.TOKEN_OPERATOR) {
                 OperatorToken op = (OperatorToken) t;
                 final Operator operator = op.getOperator();
@@ -192,10 +1092,18 @@ public class Expression {
                 if (operator instanceof BinaryOperator) {
                     double rightArg = output.pop();
                     double leftArg = output.pop();
-                    output.push(((BinaryOperator) operator).apply(leftArg, rightArg));
+                    final double result = ((BinaryOperator) operator).apply(leftArg, rightArg);
+                    if (flag && !Double.isFinite(result) && Double.isFinite(leftArg) && Double.isFinite(rightArg)) {
+                        state.error = true;
+                    }
+                    output.push(result);
                 } else if (operator instanceof UnaryOperator) {
                     double arg = output.pop();
-                    output.push(((UnaryOperator) operator).apply(arg));
+                    final double result = ((UnaryOperator) operator).apply(arg);
+                    if (flag && !Double.isFinite(result) && Double.isFinite(arg)) {
+                        state.error = true;
+                    }
+                    output.push(result);
                 }
             } else if (t.getType() == Token.TOKEN_FUNCTION) {
                 FunctionToken func = (FunctionToken) t;
@@ -205,13 +1113,26 @@ public class Expression {
                     throw new IllegalArgumentException("Invalid number of arguments available for '" + function.getName() + "' function");
                 }
                 if (function instanceof Function0) {
-                    output.push(((Function0) function).apply());
+                    final double result = ((Function0) function).apply();
+                    if (flag && !Double.isFinite(result)) {
+                        state.error = true;
+                    }
+                    output.push(result);
                 } else if (function instanceof Function1) {
-                    output.push(((Function1) function).apply(output.pop()));
+                    final double arg = output.pop();
+                    final double result = ((Function1) function).apply(arg);
+                    if (flag && !Double.isFinite(result) && Double.isFinite(arg)) {
+                        state.error = true;
+                    }
+                    output.push(result);
                 } else if (function instanceof Function2) {
                     double arg2 = output.pop();
                     double arg1 = output.pop();
-                    output.push(((Function2) function).apply(arg1, arg2));
+                    final double result = ((Function2) function).apply(arg1, arg2);
+                    if (flag && !Double.isFinite(result) && Double.isFinite(arg1) && Double.isFinite(arg2)) {
+                        state.error = true;
+                    }
+                    output.push(result);
                 }
             }
         }
@@ -221,13 +1142,6 @@ public class Expression {
         return output.pop();
     }
 
-    private static final class MutableDouble {
-        double value;
-        MutableDouble(final double value) {
-            this.value = value;
-        }
-    }
-
     private static int getRequiredStackSize(final Token[] tokens) {
         int currentStackDepth = 0;
         int maxStackDepth = 0;
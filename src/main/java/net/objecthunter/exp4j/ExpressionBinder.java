@@ -0,0 +1,285 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Evaluates an expression on domain objects, reading each variable from a getter, a record style accessor or a field
+ * of the object. The members are resolved once when the binder is created. Method accessors are compiled to
+ * {@link ToDoubleFunction}s by the {@link LambdaMetafactory} and fields are read through {@link MethodHandle}s, so
+ * that evaluating an object neither boxes values nor looks up variable names.
+ * <p>
+ * A variable {@code x} is read from the first of the following members with a primitive type: the method {@code x()},
+ * the method {@code getX()}, the method {@code isX()} and the field {@code x}. Boolean members read as 1 and 0.
+ * The binder is safe to use from multiple threads, each thread evaluates on its own state. Variables without a
+ * member keep the values set on the expression at the time the binder was created.
+ *
+ * @param <T> the type of the objects
+ */
+public final class ExpressionBinder<T> implements VariableBinder<T> {
+
+    private static final MethodHandle BOOLEAN_TO_DOUBLE;
+
+    static {
+        try {
+            BOOLEAN_TO_DOUBLE = MethodHandles.lookup().findStatic(ExpressionBinder.class, "toDouble",
+                    MethodType.methodType(double.class, boolean.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Expression expression;
+
+    private final int[] slots;
+
+    private final ToDoubleFunction<Object>[] accessors;
+
+    private final ThreadLocal<EvaluationState> states;
+
+    private ExpressionBinder(final Expression expression, final int[] slots, final ToDoubleFunction<Object>[] accessors) {
+        this.expression = expression;
+        this.slots = slots;
+        this.accessors = accessors;
+        this.states = ThreadLocal.withInitial(expression::newEvaluationState);
+    }
+
+    /**
+     * Create a binder reading each variable from the public member of the same name
+     *
+     * @param expression the expression
+     * @param type       the type of the objects
+     * @param <T>        the type of the objects
+     * @return the binder
+     * @throws IllegalArgumentException if the expression throws on missing variables and a variable has neither a
+     *                                  member nor a value set
+     */
+    public static <T> ExpressionBinder<T> of(final Expression expression, final Class<T> type) {
+        return of(expression, type, Collections.<String, String>emptyMap(), MethodHandles.lookup());
+    }
+
+    /**
+     * Create a binder reading variables from the members named in a mapping and the other variables from the public
+     * member of the same name
+     *
+     * @param expression the expression
+     * @param type       the type of the objects
+     * @param members    the names of the members by variable name, e.g. {@code temperature} for the variable
+     *                   {@code t} to read {@code getTemperature()}
+     * @param <T>        the type of the objects
+     * @return the binder
+     * @throws IllegalArgumentException if a mapped name is not a variable of the expression or has no member, or if
+     *                                  the expression throws on missing variables and a variable has neither a member
+     *                                  nor a value set
+     */
+    public static <T> ExpressionBinder<T> of(final Expression expression, final Class<T> type,
+                                             final Map<String, String> members) {
+        return of(expression, type, members, MethodHandles.lookup());
+    }
+
+    /**
+     * Create a binder with the access rights of the given lookup, e.g. {@code MethodHandles.lookup()} of the caller to
+     * read private fields or the accessors of a class which is not public
+     *
+     * @param expression the expression
+     * @param type       the type of the objects
+     * @param members    the names of the members by variable name
+     * @param lookup     the lookup the members are accessed with
+     * @param <T>        the type of the objects
+     * @return the binder
+     * @throws IllegalArgumentException if a mapped name is not a variable of the expression or has no member, or if
+     *                                  the expression throws on missing variables and a variable has neither a member
+     *                                  nor a value set
+     */
+    public static <T> ExpressionBinder<T> of(final Expression expression, final Class<T> type,
+                                             final Map<String, String> members, final MethodHandles.Lookup lookup) {
+        final String[] names = expression.getSlotNames();
+        for (String name : members.keySet()) {
+            if (expression.getSlot(name) < 0) {
+                throw new IllegalArgumentException("The expression has no variable '" + name + "'");
+            }
+        }
+        final boolean[] bound = new boolean[names.length];
+        final List<Integer> slots = new ArrayList<>(names.length);
+        final List<ToDoubleFunction<Object>> accessors = new ArrayList<>(names.length);
+        for (int slot = 0; slot < names.length; slot++) {
+            final String member = members.get(names[slot]);
+            final MethodHandle handle = findAccessor(type, member == null ? names[slot] : member, lookup);
+            if (handle == null) {
+                if (member != null) {
+                    throw new IllegalArgumentException("The class " + type.getName() + " has no accessible member '"
+                            + member + "' of a primitive type");
+                }
+                continue;
+            }
+            bound[slot] = true;
+            slots.add(slot);
+            accessors.add(toFunction(type, handle, lookup));
+        }
+        expression.checkBound(bound);
+        final int[] boundSlots = new int[slots.size()];
+        for (int i = 0; i < boundSlots.length; i++) {
+            boundSlots[i] = slots.get(i);
+        }
+        @SuppressWarnings("unchecked")
+        final ToDoubleFunction<Object>[] functions =
+                (ToDoubleFunction<Object>[]) accessors.toArray(new ToDoubleFunction<?>[0]);
+        return new ExpressionBinder<>(expression.snapshot(), boundSlots, functions);
+    }
+
+    /**
+     * Evaluate the expression for an object
+     *
+     * @param element the object to read the variables from
+     * @return the result of the evaluation
+     */
+    public double evaluate(final T element) {
+        final EvaluationState s = states.get();
+        bind(element, s.values);
+        return expression.evaluate(s);
+    }
+
+    /**
+     * Write the variable values of an object by the slots of the expression the binder was created for, so that the
+     * binder can be passed to {@link Expression#evaluateStream(java.util.stream.Stream, VariableBinder)} of that
+     * expression
+     *
+     * @param element the object
+     * @param values  the values by slot
+     */
+    @Override
+    public void bind(final T element, final double[] values) {
+        for (int i = 0; i < slots.length; i++) {
+            values[slots[i]] = accessors[i].applyAsDouble(element);
+        }
+    }
+
+    private static MethodHandle findAccessor(final Class<?> type, final String name, final MethodHandles.Lookup lookup) {
+        final String capitalized = name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        final String[] methodNames = {name, "get" + capitalized, "is" + capitalized};
+        for (String methodName : methodNames) {
+            final Method method = findMethod(type, methodName);
+            if (method != null && (!methodName.startsWith("is") || method.getReturnType() == boolean.class
+                    || methodName.equals(name))) {
+                final MethodHandle handle = unreflect(method, lookup);
+                if (handle != null) {
+                    return handle;
+                }
+            }
+        }
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.getName().equals(name) && isReadable(field, field.getType())) {
+                    try {
+                        return lookup.unreflectGetter(field);
+                    } catch (IllegalAccessException e) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Method findMethod(final Class<?> type, final String name) {
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == 0
+                    && isReadable(method, method.getReturnType())) {
+                return method;
+            }
+        }
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == 0 && !method.isBridge()
+                        && isReadable(method, method.getReturnType())) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isReadable(final Member member, final Class<?> type) {
+        return !Modifier.isStatic(member.getModifiers()) && type.isPrimitive() && type != void.class;
+    }
+
+    private static MethodHandle unreflect(final Method method, final MethodHandles.Lookup lookup) {
+        try {
+            return lookup.unreflect(method);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /*
+     * Spin a ToDoubleFunction for accessor methods, which the JIT inlines like a hand written lambda. Boolean members,
+     * fields, and types the lambda could not link from the lookup's class loader are read through the method handle.
+     */
+    @SuppressWarnings("unchecked")
+    private static ToDoubleFunction<Object> toFunction(final Class<?> type, final MethodHandle handle,
+                                                       final MethodHandles.Lookup lookup) {
+        final Class<?> result = handle.type().returnType();
+        if (result != boolean.class && result != char.class && isVisible(type, lookup)) {
+            try {
+                final CallSite site = LambdaMetafactory.metafactory(lookup, "applyAsDouble",
+                        MethodType.methodType(ToDoubleFunction.class), MethodType.methodType(double.class, Object.class),
+                        handle, MethodType.methodType(double.class, type));
+                return (ToDoubleFunction<Object>) site.getTarget().invoke();
+            } catch (Throwable e) {
+                /* fall back to the method handle, e.g. if the lookup has no private access */
+            }
+        }
+        final MethodHandle getter = (result == boolean.class
+                ? MethodHandles.filterReturnValue(handle, BOOLEAN_TO_DOUBLE) : handle)
+                .asType(MethodType.methodType(double.class, Object.class));
+        return element -> {
+            try {
+                return (double) getter.invokeExact(element);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        };
+    }
+
+    private static boolean isVisible(final Class<?> type, final MethodHandles.Lookup lookup) {
+        try {
+            return Class.forName(type.getName(), false, lookup.lookupClass().getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static double toDouble(final boolean value) {
+        return value ? 1d : 0d;
+    }
+}
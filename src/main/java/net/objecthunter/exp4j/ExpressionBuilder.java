@@ -16,8 +16,20 @@
 
 package net.objecthunter.exp4j;
 
+import net.objecthunter.exp4j.function.Function;
 import net.objecthunter.exp4j.function.Functions;
+import net.objecthunter.exp4j.function.MathMode;
+import net.objecthunter.exp4j.metrics.Metrics;
+import net.objecthunter.exp4j.operator.Operator;
+import net.objecthunter.exp4j.operator.Operators;
+import net.objecthunter.exp4j.optimizer.HornerForm;
+import net.objecthunter.exp4j.optimizer.Optimizer;
+import net.objecthunter.exp4j.optimizer.OptimizerPipeline;
+import net.objecthunter.exp4j.optimizer.PassReport;
+import net.objecthunter.exp4j.optimizer.StrengthReduction;
 import net.objecthunter.exp4j.shuntingyard.ShuntingYard;
+import net.objecthunter.exp4j.tokenizer.FunctionToken;
+import net.objecthunter.exp4j.tokenizer.OperatorToken;
 import net.objecthunter.exp4j.tokenizer.Token;
 
 import java.util.*;
@@ -34,6 +46,16 @@ public class ExpressionBuilder {
 
     private boolean implicitMultiplication = true;
 
+    private MathMode mathMode = MathMode.STRICT;
+
+    private final OptimizerPipeline optimizers = OptimizerPipeline.withBuiltins();
+
+    private List<PassReport> optimizationReport = Collections.emptyList();
+
+    private ErrorPolicy errorPolicy = ErrorPolicy.THROW;
+
+    private int cacheCapacity = 0;
+
     /**
      * Create a new ExpressionBuilder instance and initialize it with a given expression string.
      *
@@ -74,6 +96,125 @@ public class ExpressionBuilder {
         return this;
     }
 
+    /**
+     * Select the implementations the builtin functions and operators are bound to. {@link MathMode#FAST} binds
+     * {@code exp}, {@code pow} and {@code ^} to the approximations in
+     * {@link net.objecthunter.exp4j.function.FastMath}, which document their maximum error. Defaults to
+     * {@link MathMode#STRICT}.
+     *
+     * @param mode the math mode
+     * @return the ExpressionBuilder instance
+     */
+    public ExpressionBuilder mathMode(MathMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("The math mode can not be null");
+        }
+        this.mathMode = mode;
+        return this;
+    }
+
+    /**
+     * Enable or disable the replacement of operations by cheaper equivalents, e.g. {@code x^2} by {@code x*x}. See
+     * {@link StrengthReduction} for the rules and the tolerance each of them is accurate to. Disabled by default.
+     *
+     * @param enabled set to true to enable the strength reductions
+     * @return the ExpressionBuilder instance
+     */
+    public ExpressionBuilder strengthReduction(boolean enabled) {
+        return optimizer("strengthReduction", enabled);
+    }
+
+    /**
+     * Enable or disable the rewriting of polynomials into Horner form, e.g. {@code a + b*x + c*x^2} into
+     * {@code (c*x + b)*x + a}. See {@link HornerForm} for the detected polynomials and the tolerance of the rewrite.
+     * Disabled by default.
+     *
+     * @param enabled set to true to enable the rewriting
+     * @return the ExpressionBuilder instance
+     */
+    public ExpressionBuilder hornerForm(boolean enabled) {
+        return optimizer("hornerForm", enabled);
+    }
+
+    /**
+     * Register an optimizer pass, which runs after the builtin passes and the passes registered before it. The
+     * builtin passes of {@link net.objecthunter.exp4j.optimizer.Optimizers} are registered but disabled by default.
+     *
+     * @param pass the pass
+     * @return the ExpressionBuilder instance
+     */
+    public ExpressionBuilder optimizer(Optimizer pass) {
+        this.optimizers.add(pass);
+        return this;
+    }
+
+    /**
+     * Register an optimizer pass which runs right before another registered pass
+     *
+     * @param pass   the pass
+     * @param before the name of the pass to run it before
+     * @return the ExpressionBuilder instance
+     */
+    public ExpressionBuilder optimizer(Optimizer pass, String before) {
+        this.optimizers.add(pass, before);
+        return this;
+    }
+
+    /**
+     * Turn a registered optimizer pass on or off, e.g. the builtin {@code constantFolding}, {@code hornerForm},
+     * {@code strengthReduction} or {@code canonicalize}
+     *
+     * @param name    the name of the pass
+     * @param enabled set to true to run the pass
+     * @return the ExpressionBuilder instance
+     */
+    public ExpressionBuilder optimizer(String name, boolean enabled) {
+        this.optimizers.setEnabled(name, enabled);
+        return this;
+    }
+
+    /**
+     * Get the time and the node counts of each optimizer pass of the last {@link #build()}
+     *
+     * @return the measurements of the passes that ran, in order
+     */
+    public List<PassReport> getOptimizationReport() {
+        return this.optimizationReport;
+    }
+
+    /**
+     * Set the policy the expression reports arithmetic errors and missing variables with. With
+     * {@link ErrorPolicy#IEEE_NAN} and {@link ErrorPolicy#FLAG} the operators and functions are bound to variants
+     * that never throw, and the structure of the expression is validated by {@link #build()} instead, so that an
+     * evaluation never constructs an exception. Defaults to {@link ErrorPolicy#THROW}.
+     *
+     * @param policy the error policy
+     * @return the ExpressionBuilder instance
+     */
+    public ExpressionBuilder errorPolicy(ErrorPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("The error policy can not be null");
+        }
+        this.errorPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Cache the results of the expression keyed by the exact bit patterns of its variable values, see
+     * {@link ResultCache}. The cache is bypassed if the expression calls a function which is not deterministic, such
+     * as {@code random}. Disabled by default.
+     *
+     * @param capacity the number of results to keep, 0 to disable the cache
+     * @return the ExpressionBuilder instance
+     */
+    public ExpressionBuilder cache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity of the cache can not be negative");
+        }
+        this.cacheCapacity = capacity;
+        return this;
+    }
+
     /**
      * Build the {@link Expression} instance using the custom operators and functions set.
      *
@@ -91,12 +232,66 @@ public class ExpressionBuilder {
             }
         }
 
+        final long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+
         Token[] tokens = ShuntingYard.convertToRPN(
                 this.expression,
                 this.variableNames,
-                this.implicitMultiplication);
+                this.implicitMultiplication,
+                this.mathMode);
+
+        final long parsed = Metrics.ENABLED ? System.nanoTime() : 0L;
+
+        final List<PassReport> report = new ArrayList<>();
+        tokens = this.optimizers.optimize(tokens, report);
+        this.optimizationReport = Collections.unmodifiableList(report);
+        if (Metrics.ENABLED) {
+            for (final PassReport pass : report) {
+                Metrics.getListener().onOptimization(this.expression, pass.getName(), pass.getNanos(),
+                        pass.getNodesBefore(), pass.getNodesAfter());
+            }
+        }
 
-        return new Expression(tokens);
+        final Expression result;
+        if (errorPolicy == ErrorPolicy.THROW) {
+            result = new Expression(tokens, errorPolicy, this.expression);
+        } else {
+            result = new Expression(bindNonThrowing(tokens), errorPolicy, this.expression);
+            final ValidationResult validation = result.validate(false);
+            if (!validation.isValid()) {
+                throw new IllegalArgumentException("Invalid expression: " + validation.getErrors());
+            }
+        }
+
+        if (cacheCapacity > 0) {
+            result.enableCache(cacheCapacity);
+        }
+
+        if (Metrics.ENABLED) {
+            final long end = System.nanoTime();
+            Metrics.getListener().onBuild(this.expression, tokens.length, parsed - start, end - start);
+        }
+        return result;
+    }
+
+    private static Token[] bindNonThrowing(final Token[] tokens) {
+        final Token[] bound = new Token[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            final Token t = tokens[i];
+            bound[i] = t;
+            if (t.getType() == Token.TOKEN_OPERATOR) {
+                final Operator op = Operators.getNonThrowingOperator(((OperatorToken) t).getOperator());
+                if (op != ((OperatorToken) t).getOperator()) {
+                    bound[i] = new OperatorToken(op);
+                }
+            } else if (t.getType() == Token.TOKEN_FUNCTION) {
+                final Function f = Functions.getNonThrowingFunction(((FunctionToken) t).getFunction());
+                if (f != ((FunctionToken) t).getFunction()) {
+                    bound[i] = new FunctionToken(f);
+                }
+            }
+        }
+        return bound;
     }
 
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import net.objecthunter.exp4j.optimizer.Canonicalizer;
+import net.objecthunter.exp4j.tokenizer.Token;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A weak interning pool for the programs of expressions. {@link #intern(Expression)} brings the tokens of an
+ * expression into canonical form and returns an expression sharing the token array of a structurally equal
+ * expression interned before, so formulas differing only in whitespace, bracket style, operand order of {@code +} and
+ * {@code *} or implicit multiplication share one program. The pool only references the programs weakly, a program is
+ * dropped once no interned expression uses it anymore.
+ */
+public class ExpressionPool {
+
+    /* estimated size of a token with compressed oops: 12 bytes header, 4 bytes type, 8 bytes value or reference */
+    private static final int TOKEN_BYTES = 24;
+
+    private final Map<Integer, Program> programs = new HashMap<>();
+
+    private final ReferenceQueue<Token[]> queue = new ReferenceQueue<>();
+
+    private long requests;
+
+    private long hits;
+
+    private long tokensSaved;
+
+    private long bytesSaved;
+
+    private static final class Program extends WeakReference<Token[]> {
+        final int hash;
+
+        /* the next program in the same hash bucket */
+        Program next;
+
+        Program(final Token[] tokens, final int hash, final ReferenceQueue<Token[]> queue) {
+            super(tokens, queue);
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Intern the program of an expression. The returned expression has the same error policy and variable values
+     * as the given one.
+     *
+     * @param expression the expression to intern
+     * @return a new expression sharing the program of a structurally equal expression if there is one in the pool
+     */
+    public synchronized Expression intern(final Expression expression) {
+        purge();
+        requests++;
+        final Token[] canonical = Canonicalizer.apply(expression.getTokens());
+        final int hash = Canonicalizer.structuralHash(canonical);
+        final Program head = programs.get(hash);
+        for (Program p = head; p != null; p = p.next) {
+            final Token[] tokens = p.get();
+            if (tokens != null && Canonicalizer.structurallyEqual(tokens, canonical)) {
+                hits++;
+                tokensSaved += tokens.length;
+                bytesSaved += estimateBytes(tokens.length);
+                return expression.withTokens(tokens);
+            }
+        }
+        final Program program = new Program(canonical, hash, queue);
+        program.next = head;
+        programs.put(hash, program);
+        return expression.withTokens(canonical);
+    }
+
+    private void purge() {
+        Program stale;
+        while ((stale = (Program) queue.poll()) != null) {
+            Program p = programs.get(stale.hash);
+            Program previous = null;
+            while (p != null && p != stale) {
+                previous = p;
+                p = p.next;
+            }
+            if (p == null) {
+                continue;
+            }
+            if (previous != null) {
+                previous.next = p.next;
+            } else if (p.next != null) {
+                programs.put(stale.hash, p.next);
+            } else {
+                programs.remove(stale.hash);
+            }
+        }
+    }
+
+    private static long estimateBytes(final int tokens) {
+        /* the token objects plus the array of 4 byte references with its 16 byte header, aligned to 8 bytes */
+        return (long) tokens * TOKEN_BYTES + ((16L + 4L * tokens + 7L) & ~7L);
+    }
+
+    /**
+     * Get a snapshot of the pool statistics
+     *
+     * @return the statistics
+     */
+    public synchronized PoolStats getStats() {
+        purge();
+        int live = 0;
+        for (Program head : programs.values()) {
+            for (Program p = head; p != null; p = p.next) {
+                if (p.get() != null) {
+                    live++;
+                }
+            }
+        }
+        return new PoolStats(requests, hits, live, tokensSaved, bytesSaved);
+    }
+
+    /**
+     * An immutable snapshot of the statistics of an {@link ExpressionPool}
+     */
+    public static final class PoolStats {
+        private final long requests;
+        private final long hits;
+        private final int programs;
+        private final long tokensSaved;
+        private final long bytesSaved;
+
+        PoolStats(long requests, long hits, int programs, long tokensSaved, long bytesSaved) {
+            this.requests = requests;
+            this.hits = hits;
+            this.programs = programs;
+            this.tokensSaved = tokensSaved;
+            this.bytesSaved = bytesSaved;
+        }
+
+        /**
+         * @return the number of interned expressions
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return the number of interned expressions which share the program of an earlier one
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return the number of distinct programs currently alive in the pool
+         */
+        public int getPrograms() {
+            return programs;
+        }
+
+        /**
+         * @return the ratio of interned expressions to distinct programs created, 1 meaning no deduplication
+         */
+        public double getDeduplicationRatio() {
+            final long created = requests - hits;
+            return created == 0 ? 1d : (double) requests / created;
+        }
+
+        /**
+         * @return the number of tokens not allocated again thanks to sharing
+         */
+        public long getTokensSaved() {
+            return tokensSaved;
+        }
+
+        /**
+         * @return the estimated number of bytes not retained thanks to sharing, assuming compressed oops
+         */
+        public long getBytesSaved() {
+            return bytesSaved;
+        }
+
+        @Override
+        public String toString() {
+            return "PoolStats{requests=" + requests + ", hits=" + hits + ", programs=" + programs
+                    + ", deduplicationRatio=" + getDeduplicationRatio() + ", tokensSaved=" + tokensSaved
+                    + ", bytesSaved=" + bytesSaved + '}';
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A versioned registry of expressions by id which is updated while other threads read it. Every update publishes a
+ * new immutable {@link RegistrySnapshot} with the next version number, so a lookup is a single volatile read followed
+ * by a hash lookup and never waits for a writer. Callers which must see the same formulas for a whole request pin the
+ * snapshot returned by {@link #snapshot()}.
+ * <p>
+ * Updates are copy-on-write per shard, so a bulk update of many formulas copies each affected shard once. Writers are
+ * serialized among themselves. The last snapshots are retained for {@link #rollback(long)}, which republishes the
+ * contents of a retained version under a new version number. A replaced expression is retired by the garbage
+ * collector once neither a retained nor a pinned snapshot references it, so readers still using it are never
+ * affected.
+ */
+public final class ExpressionRegistry {
+
+    private final int history;
+
+    private final ArrayDeque<RegistrySnapshot> retained = new ArrayDeque<>();
+
+    private volatile RegistrySnapshot current = RegistrySnapshot.empty();
+
+    /**
+     * Create an empty registry retaining the last 16 versions for rollbacks
+     */
+    public ExpressionRegistry() {
+        this(16);
+    }
+
+    /**
+     * Create an empty registry
+     *
+     * @param history the number of versions, including the current one, to retain for rollbacks
+     */
+    public ExpressionRegistry(final int history) {
+        if (history < 1) {
+            throw new IllegalArgumentException("The history must retain at least one version");
+        }
+        this.history = history;
+        this.retained.addLast(this.current);
+    }
+
+    /**
+     * Look up an expression in the current version
+     *
+     * @param id the id of the expression
+     * @return the expression, or null if there is none with the id
+     */
+    public Expression get(final String id) {
+        return this.current.get(id);
+    }
+
+    /**
+     * Get the current version to pin it, e.g. for the duration of a request
+     *
+     * @return the current snapshot
+     */
+    public RegistrySnapshot snapshot() {
+        return this.current;
+    }
+
+    /**
+     * @return the number of the current version
+     */
+    public long getVersion() {
+        return this.current.getVersion();
+    }
+
+    /**
+     * Add or replace an expression
+     *
+     * @param id         the id of the expression
+     * @param expression the expression
+     * @return the new snapshot
+     */
+    public RegistrySnapshot put(final String id, final Expression expression) {
+        return update(Collections.singletonMap(id, expression), Collections.<String>emptySet());
+    }
+
+    /**
+     * Remove an expression
+     *
+     * @param id the id of the expression
+     * @return the new snapshot
+     */
+    public RegistrySnapshot remove(final String id) {
+        return update(Collections.<String, Expression>emptyMap(), Collections.singleton(id));
+    }
+
+    /**
+     * Add, replace and remove expressions in one atomic step. Readers see either none or all of the changes.
+     *
+     * @param expressions the expressions to add or replace by id
+     * @param removals    the ids of the expressions to remove
+     * @return the new snapshot
+     */
+    public synchronized RegistrySnapshot update(final Map<String, Expression> expressions,
+                                                final Collection<String> removals) {
+        for (final Map.Entry<String, Expression> e : expressions.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null) {
+                throw new IllegalArgumentException("The ids and expressions of a registry can not be null");
+            }
+        }
+        final RegistrySnapshot base = this.current;
+        final Map<String, Expression>[] shards = RegistrySnapshot.copyShards(base);
+        final boolean[] copied = new boolean[RegistrySnapshot.SHARDS];
+        int size = base.size();
+        for (final String id : removals) {
+            final int shard = RegistrySnapshot.shard(id);
+            if (shards[shard].containsKey(id)) {
+                if (!copied[shard]) {
+                    shards[shard] = RegistrySnapshot.copyShard(shards[shard]);
+                    copied[shard] = true;
+                }
+                shards[shard].remove(id);
+                size--;
+            }
+        }
+        for (final Map.Entry<String, Expression> e : expressions.entrySet()) {
+            final int shard = RegistrySnapshot.shard(e.getKey());
+            if (!copied[shard]) {
+                shards[shard] = RegistrySnapshot.copyShard(shards[shard]);
+                copied[shard] = true;
+            }
+            if (shards[shard].put(e.getKey(), e.getValue()) == null) {
+                size++;
+            }
+        }
+        return publish(new RegistrySnapshot(base.getVersion() + 1, shards, size));
+    }
+
+    /**
+     * Publish the contents of a retained version again under a new version number
+     *
+     * @param version the version to roll back to
+     * @return the new snapshot
+     * @throws IllegalArgumentException if the version is not retained anymore
+     */
+    public synchronized RegistrySnapshot rollback(final long version) {
+        final RegistrySnapshot target = getSnapshot(version);
+        if (target == null) {
+            throw new IllegalArgumentException("The version " + version + " is not retained");
+        }
+        return publish(new RegistrySnapshot(this.current.getVersion() + 1, target.getShards(), target.size()));
+    }
+
+    /**
+     * Get a retained version
+     *
+     * @param version the number of the version
+     * @return the snapshot, or null if the version is not retained
+     */
+    public synchronized RegistrySnapshot getSnapshot(final long version) {
+        for (final RegistrySnapshot snapshot : this.retained) {
+            if (snapshot.getVersion() == version) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    private RegistrySnapshot publish(final RegistrySnapshot snapshot) {
+        this.retained.addLast(snapshot);
+        while (this.retained.size() > this.history) {
+            this.retained.removeFirst();
+        }
+        this.current = snapshot;
+        return snapshot;
+    }
+}
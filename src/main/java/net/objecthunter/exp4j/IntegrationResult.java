@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+/**
+ * The result of an {@link Integrator}
+ */
+public final class IntegrationResult {
+
+    private final double value;
+
+    private final double errorEstimate;
+
+    private final long evaluations;
+
+    private final int intervals;
+
+    private final boolean converged;
+
+    IntegrationResult(final double value, final double errorEstimate, final long evaluations, final int intervals,
+                      final boolean converged) {
+        this.value = value;
+        this.errorEstimate = errorEstimate;
+        this.evaluations = evaluations;
+        this.intervals = intervals;
+        this.converged = converged;
+    }
+
+    /**
+     * @return the estimated integral
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return the estimated absolute error of the integral
+     */
+    public double getErrorEstimate() {
+        return errorEstimate;
+    }
+
+    /**
+     * @return the number of evaluations of the expression
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @return the number of subintervals of the final partition
+     */
+    public int getIntervals() {
+        return intervals;
+    }
+
+    /**
+     * @return true if the error estimate met the tolerance, false if the integration stopped at the evaluation limit,
+     * at subintervals too small to bisect, or at a result which is not finite
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    @Override
+    public String toString() {
+        return "IntegrationResult{value=" + value + ", errorEstimate=" + errorEstimate + ", evaluations=" + evaluations
+                + ", intervals=" + intervals + ", converged=" + converged + '}';
+    }
+}
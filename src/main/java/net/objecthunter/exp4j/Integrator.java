@@ -0,0 +1,338 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Integrates an expression over one of its variables by globally adaptive 7-point Gauss / 15-point Kronrod
+ * quadrature. Each step bisects every subinterval whose error estimate exceeds an equal share of the tolerance,
+ * and evaluates the nodes of all new subintervals as one batch on a reused evaluation state.
+ * Batches of at least 4096 nodes are evaluated in parallel in the common fork join pool if parallel evaluation is
+ * enabled. The error estimate of a subinterval is the one of QUADPACK's {@code qk15}.
+ * <p>
+ * The other variables keep the values set on the expression at the time of {@link #integrate(double, double)}.
+ */
+public final class Integrator {
+
+    /* the Kronrod abscissae, the odd ones are the Gauss abscissae, and the weights of both rules */
+    private static final double[] XGK = {
+            0.991455371120812639206854697526329, 0.949107912342758524526189684047851,
+            0.864864423359769072789712788640926, 0.741531185599394439863864773280788,
+            0.586087235467691130294144845693013, 0.405845151377397166906606412076961,
+            0.207784955007898467600689403773245, 0d};
+
+    private static final double[] WGK = {
+            0.022935322010529224963732008058970, 0.063092092629978553290700663189204,
+            0.104790010322250183839876322541518, 0.140653259715525918745189590510238,
+            0.169004726639267902826583426598550, 0.190350578064785409913256402421014,
+            0.204432940075298892414161999234649, 0.209482141084727828012999174891714};
+
+    private static final double[] WG = {
+            0.129484966168869693270611432679082, 0.279705391489276667901467771423780,
+            0.381830050505118944950369775488975, 0.417959183673469387755102040816327};
+
+    private static final int NODES = 15;
+
+    private static final int PARALLEL_NODES = 4096;
+
+    private static final int CHUNK_NODES = 1024;
+
+    private static final double EPSILON = Math.ulp(1d);
+
+    private final Expression expression;
+
+    private final int slot;
+
+    private double relativeTolerance = 1e-10;
+
+    private double absoluteTolerance = 0d;
+
+    private long maxEvaluations = 1_000_000L;
+
+    private boolean parallel = false;
+
+    /**
+     * Create a new integrator
+     *
+     * @param expression the expression to integrate
+     * @param variable   the name of the variable of integration
+     */
+    public Integrator(final Expression expression, final String variable) {
+        this.slot = expression.getSlot(variable);
+        if (this.slot < 0) {
+            throw new IllegalArgumentException("The expression has no variable '" + variable + "'");
+        }
+        this.expression = expression;
+    }
+
+    /**
+     * Set the relative tolerance of the integral. Defaults to 1e-10.
+     *
+     * @param tolerance the relative tolerance
+     * @return the Integrator instance
+     */
+    public Integrator relativeTolerance(final double tolerance) {
+        if (!(tolerance >= 0d)) {
+            throw new IllegalArgumentException("The tolerance can not be negative");
+        }
+        this.relativeTolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Set the absolute tolerance of the integral. The integration stops when the error estimate is below the larger
+     * of both tolerances. Defaults to 0.
+     *
+     * @param tolerance the absolute tolerance
+     * @return the Integrator instance
+     */
+    public Integrator absoluteTolerance(final double tolerance) {
+        if (!(tolerance >= 0d)) {
+            throw new IllegalArgumentException("The tolerance can not be negative");
+        }
+        this.absoluteTolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Set the number of evaluations after which the integration stops without convergence. Defaults to 1000000.
+     *
+     * @param evaluations the maximum number of evaluations
+     * @return the Integrator instance
+     */
+    public Integrator maxEvaluations(final long evaluations) {
+        if (evaluations < NODES) {
+            throw new IllegalArgumentException("At least " + NODES + " evaluations are needed");
+        }
+        this.maxEvaluations = evaluations;
+        return this;
+    }
+
+    /**
+     * Enable or disable the parallel evaluation of large batches of nodes. Disabled by default.
+     *
+     * @param enabled set to true to evaluate large batches in parallel
+     * @return the Integrator instance
+     */
+    public Integrator parallel(final boolean enabled) {
+        this.parallel = enabled;
+        return this;
+    }
+
+    /**
+     * Integrate the expression over a finite interval
+     *
+     * @param lower the lower bound
+     * @param upper the upper bound, the integral is negated if it is less than the lower bound
+     * @return the integral, its error estimate and the number of evaluations
+     */
+    public IntegrationResult integrate(final double lower, final double upper) {
+        if (!Double.isFinite(lower) || !Double.isFinite(upper)) {
+            throw new IllegalArgumentException("The bounds of the integral must be finite");
+        }
+        final Expression snapshot = expression.snapshot();
+        final boolean[] bound = new boolean[snapshot.getSlotNames().length];
+        bound[slot] = true;
+        snapshot.checkBound(bound);
+        if (lower == upper) {
+            return new IntegrationResult(0d, 0d, 0L, 1, true);
+        }
+        return new Run(snapshot, lower, upper).integrate();
+    }
+
+    /**
+     * The partition and the buffers of one integration
+     */
+    private final class Run {
+
+        private final Expression expression;
+
+        private final EvaluationState state;
+
+        private final ThreadLocal<EvaluationState> states;
+
+        private double[] lo = new double[16];
+
+        private double[] hi = new double[16];
+
+        private double[] value = new double[16];
+
+        private double[] error = new double[16];
+
+        private int intervals = 1;
+
+        private int[] batch = new int[16];
+
+        private double[] x = new double[16 * NODES];
+
+        private double[] f = new double[16 * NODES];
+
+        private long evaluations;
+
+        Run(final Expression expression, final double lower, final double upper) {
+            this.expression = expression;
+            this.state = expression.newEvaluationState();
+            this.states = ThreadLocal.withInitial(expression::newEvaluationState);
+            lo[0] = lower;
+            hi[0] = upper;
+        }
+
+        IntegrationResult integrate() {
+            batch[0] = 0;
+            evaluate(1);
+            while (true) {
+                double total = 0d;
+                double totalError = 0d;
+                for (int i = 0; i < intervals; i++) {
+                    total += value[i];
+                    totalError += error[i];
+                }
+                final double tolerance = Math.max(absoluteTolerance, relativeTolerance * Math.abs(total));
+                if (!(totalError > tolerance) || !Double.isFinite(total)) {
+                    return new IntegrationResult(total, totalError, evaluations, intervals, totalError <= tolerance);
+                }
+                int selected = 0;
+                int largest = -1;
+                for (int i = 0; i < intervals; i++) {
+                    final double mid = 0.5 * (lo[i] + hi[i]);
+                    if (mid == lo[i] || mid == hi[i]) {
+                        continue;
+                    }
+                    if (largest < 0 || error[i] > error[largest]) {
+                        largest = i;
+                    }
+                    if (error[i] > tolerance / intervals) {
+                        batch = grow(batch, selected + 1);
+                        batch[selected++] = i;
+                    }
+                }
+                if (largest < 0 || evaluations + 2L * NODES > maxEvaluations) {
+                    return new IntegrationResult(total, totalError, evaluations, intervals, false);
+                }
+                if (selected == 0 || evaluations + 2L * NODES * selected > maxEvaluations) {
+                    batch[0] = largest;
+                    selected = 1;
+                }
+                bisect(selected);
+                evaluate(2 * selected);
+            }
+        }
+
+        /* bisect the selected intervals, appending the upper halves, and list both halves in the batch */
+        private void bisect(final int selected) {
+            final int capacity = intervals + selected;
+            if (capacity > lo.length) {
+                final int length = Math.max(capacity, 2 * lo.length);
+                lo = Arrays.copyOf(lo, length);
+                hi = Arrays.copyOf(hi, length);
+                value = Arrays.copyOf(value, length);
+                error = Arrays.copyOf(error, length);
+            }
+            batch = grow(batch, 2 * selected);
+            for (int k = 0; k < selected; k++) {
+                final int i = batch[k];
+                final int j = intervals++;
+                final double mid = 0.5 * (lo[i] + hi[i]);
+                lo[j] = mid;
+                hi[j] = hi[i];
+                hi[i] = mid;
+                batch[selected + k] = j;
+            }
+        }
+
+        /* evaluate the Kronrod nodes of the intervals in the batch and apply both rules */
+        private void evaluate(final int count) {
+            final int nodes = count * NODES;
+            if (x.length < nodes) {
+                x = new double[Math.max(nodes, 2 * x.length)];
+                f = new double[x.length];
+            }
+            for (int k = 0; k < count; k++) {
+                final int i = batch[k];
+                final double center = 0.5 * (lo[i] + hi[i]);
+                final double half = 0.5 * (hi[i] - lo[i]);
+                final int o = k * NODES;
+                x[o] = center;
+                for (int j = 0; j < 7; j++) {
+                    x[o + 1 + 2 * j] = center - half * XGK[j];
+                    x[o + 2 + 2 * j] = center + half * XGK[j];
+                }
+            }
+            if (parallel && nodes >= PARALLEL_NODES) {
+                IntStream.range(0, (nodes + CHUNK_NODES - 1) / CHUNK_NODES).parallel().forEach(c -> {
+                    final EvaluationState s = states.get();
+                    evaluate(s, c * CHUNK_NODES, Math.min(nodes, (c + 1) * CHUNK_NODES));
+                });
+            } else {
+                evaluate(state, 0, nodes);
+            }
+            evaluations += nodes;
+            for (int k = 0; k < count; k++) {
+                apply(batch[k], k * NODES);
+            }
+        }
+
+        private void evaluate(final EvaluationState s, final int from, final int to) {
+            final double[] values = s.values;
+            for (int n = from; n < to; n++) {
+                values[slot] = x[n];
+                s.error = false;
+                f[n] = expression.evaluate(s);
+            }
+        }
+
+        /* the 15 point Kronrod rule, the embedded 7 point Gauss rule and the error estimate of QUADPACK's qk15 */
+        private void apply(final int i, final int o) {
+            final double half = 0.5 * (hi[i] - lo[i]);
+            final double fc = f[o];
+            double resg = fc * WG[3];
+            double resk = fc * WGK[7];
+            double resabs = Math.abs(resk);
+            for (int j = 0; j < 7; j++) {
+                final double f1 = f[o + 1 + 2 * j];
+                final double f2 = f[o + 2 + 2 * j];
+                if ((j & 1) == 1) {
+                    resg += WG[j >> 1] * (f1 + f2);
+                }
+                resk += WGK[j] * (f1 + f2);
+                resabs += WGK[j] * (Math.abs(f1) + Math.abs(f2));
+            }
+            final double reskh = 0.5 * resk;
+            double resasc = WGK[7] * Math.abs(fc - reskh);
+            for (int j = 0; j < 7; j++) {
+                resasc += WGK[j] * (Math.abs(f[o + 1 + 2 * j] - reskh) + Math.abs(f[o + 2 + 2 * j] - reskh));
+            }
+            final double dhalf = Math.abs(half);
+            resabs *= dhalf;
+            resasc *= dhalf;
+            double err = Math.abs((resk - resg) * half);
+            if (resasc != 0d && err != 0d) {
+                err = resasc * Math.min(1d, Math.pow(200d * err / resasc, 1.5));
+            }
+            if (resabs > Double.MIN_NORMAL / (50d * EPSILON)) {
+                err = Math.max(50d * EPSILON * resabs, err);
+            }
+            value[i] = resk * half;
+            error[i] = err;
+        }
+    }
+
+    private static int[] grow(final int[] array, final int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, 2 * array.length));
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Runs Monte Carlo simulations of an expression whose input variables are drawn from {@link Distribution}s. The
+ * samples are split into tasks of a fixed size, each task draws its inputs in batches from its own
+ * {@link SplittableRandom} split off a generator seeded with the simulation's seed, and the tasks run in the common
+ * fork join pool. The statistics of the tasks are combined in task order, so a simulation with the same seed, task
+ * size and number of samples gives the same result for any number of threads. No sample is stored: the result holds
+ * the running statistics of an {@link Aggregate} and the quantiles of a {@link QuantileSketch}.
+ * <p>
+ * Variables without a distribution keep the values set on the expression at the time of {@link #run(long)}.
+ */
+public final class MonteCarlo {
+
+    private final Expression expression;
+
+    private final Map<String, Distribution> distributions = new LinkedHashMap<>();
+
+    private long seed = 0L;
+
+    private int batchSize = 1024;
+
+    private int taskSize = 1 << 16;
+
+    private double relativeAccuracy = 0.01;
+
+    /**
+     * Create a new simulation of an expression
+     *
+     * @param expression the expression
+     */
+    public MonteCarlo(final Expression expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * Draw a variable from a distribution
+     *
+     * @param variable     the name of the variable
+     * @param distribution the distribution
+     * @return the MonteCarlo instance
+     */
+    public MonteCarlo distribution(final String variable, final Distribution distribution) {
+        if (expression.getSlot(variable) < 0) {
+            throw new IllegalArgumentException("The expression has no variable '" + variable + "'");
+        }
+        this.distributions.put(variable, distribution);
+        return this;
+    }
+
+    /**
+     * Set the seed of the random number generators. Defaults to 0.
+     *
+     * @param seed the seed
+     * @return the MonteCarlo instance
+     */
+    public MonteCarlo seed(final long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Set the number of samples drawn per variable at once. Defaults to 1024.
+     *
+     * @param batchSize the number of samples per batch
+     * @return the MonteCarlo instance
+     */
+    public MonteCarlo batchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Set the number of samples of each parallel task. The tasks determine the random streams, so a different task
+     * size gives different samples. Defaults to 65536.
+     *
+     * @param taskSize the number of samples per task
+     * @return the MonteCarlo instance
+     */
+    public MonteCarlo taskSize(final int taskSize) {
+        if (taskSize < 1) {
+            throw new IllegalArgumentException("The task size must be positive");
+        }
+        this.taskSize = taskSize;
+        return this;
+    }
+
+    /**
+     * Set the relative accuracy of the quantiles of the result. Defaults to 0.01.
+     *
+     * @param relativeAccuracy the relative error of the quantiles
+     * @return the MonteCarlo instance
+     */
+    public MonteCarlo relativeAccuracy(final double relativeAccuracy) {
+        if (!(relativeAccuracy > 0d && relativeAccuracy < 1d)) {
+            throw new IllegalArgumentException("The relative accuracy must be in (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        return this;
+    }
+
+    /**
+     * Run the simulation
+     *
+     * @param samples the number of samples
+     * @return the statistics of the results
+     */
+    public SimulationResult run(final long samples) {
+        if (samples < 0) {
+            throw new IllegalArgumentException("The number of samples can not be negative");
+        }
+        final Expression snapshot = expression.snapshot();
+        final int[] slots = new int[distributions.size()];
+        final Distribution[] inputs = new Distribution[distributions.size()];
+        final boolean[] bound = new boolean[snapshot.getSlotNames().length];
+        int i = 0;
+        for (Map.Entry<String, Distribution> e : distributions.entrySet()) {
+            slots[i] = snapshot.getSlot(e.getKey());
+            inputs[i++] = e.getValue();
+            bound[snapshot.getSlot(e.getKey())] = true;
+        }
+        snapshot.checkBound(bound);
+
+        final long taskCount = (samples + taskSize - 1) / taskSize;
+        if (taskCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many samples for the task size");
+        }
+        final SplittableRandom root = new SplittableRandom(seed);
+        final SplittableRandom[] randoms = new SplittableRandom[(int) taskCount];
+        for (int task = 0; task < randoms.length; task++) {
+            randoms[task] = root.split();
+        }
+        final Task[] tasks = IntStream.range(0, randoms.length).parallel()
+                .mapToObj(task -> new Task(snapshot, slots, inputs, randoms[task],
+                        (int) Math.min(taskSize, samples - (long) task * taskSize)))
+                .toArray(Task[]::new);
+
+        final Aggregate aggregate = new Aggregate();
+        final QuantileSketch sketch = new QuantileSketch(relativeAccuracy);
+        long errors = 0;
+        for (Task task : tasks) {
+            aggregate.combine(task.aggregate);
+            sketch.combine(task.sketch);
+            errors += task.errors;
+        }
+        return new SimulationResult(aggregate, sketch, errors);
+    }
+
+    /**
+     * The statistics of the samples of one task, computed on construction
+     */
+    private final class Task {
+
+        final Aggregate aggregate = new Aggregate();
+
+        final QuantileSketch sketch = new QuantileSketch(relativeAccuracy);
+
+        long errors;
+
+        Task(final Expression expression, final int[] slots, final Distribution[] inputs,
+             final SplittableRandom random, final int samples) {
+            final EvaluationState state = expression.newEvaluationState();
+            final double[] values = state.values;
+            final double[][] batch = new double[inputs.length][Math.min(batchSize, samples)];
+            for (int done = 0; done < samples; ) {
+                final int n = Math.min(batch.length == 0 ? samples - done : batch[0].length, samples - done);
+                for (int j = 0; j < inputs.length; j++) {
+                    inputs[j].sample(random, batch[j], n);
+                }
+                for (int row = 0; row < n; row++) {
+                    for (int j = 0; j < slots.length; j++) {
+                        values[slots[j]] = batch[j][row];
+                    }
+                    state.error = false;
+                    final double result = expression.evaluate(state);
+                    aggregate.add(result);
+                    sketch.add(result);
+                    if (state.error) {
+                        errors++;
+                    }
+                }
+                done += n;
+            }
+        }
+    }
+}
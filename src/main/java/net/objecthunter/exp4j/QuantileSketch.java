@@ -0,0 +1,235 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+/**
+ * A mergeable sketch of the distribution of a stream of values which answers quantile queries with a bounded
+ * relative error, see {@link MonteCarlo}. Values are counted in logarithmically sized buckets (the DDSketch scheme),
+ * so that each quantile is returned within the relative accuracy of the true value and merging two sketches gives
+ * exactly the sketch of the combined values, independent of the order in which values were added or sketches merged.
+ * <p>
+ * Each sign keeps at most a fixed number of buckets. If the values span a larger range the buckets of the smallest
+ * magnitudes are collapsed, which only affects the accuracy of the quantiles closest to zero. NaN values are counted
+ * but excluded from the quantiles.
+ */
+public final class QuantileSketch {
+
+    private static final int MAX_BUCKETS = 2048;
+
+    private final double relativeAccuracy;
+
+    private final double gamma;
+
+    private final double logGamma;
+
+    private final Buckets positive = new Buckets();
+
+    private final Buckets negative = new Buckets();
+
+    private long zeroCount;
+
+    private long nanCount;
+
+    private long count;
+
+    /**
+     * Create a new sketch
+     *
+     * @param relativeAccuracy the relative error of the quantiles, e.g. 0.01 for one percent
+     */
+    public QuantileSketch(final double relativeAccuracy) {
+        if (!(relativeAccuracy > 0d && relativeAccuracy < 1d)) {
+            throw new IllegalArgumentException("The relative accuracy must be in (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1d + relativeAccuracy) / (1d - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Add a value
+     *
+     * @param value the value
+     */
+    public void add(final double value) {
+        if (value > 0d) {
+            positive.add(index(value), 1L);
+        } else if (value < 0d) {
+            negative.add(index(-value), 1L);
+        } else if (value == 0d) {
+            zeroCount++;
+        } else {
+            nanCount++;
+            return;
+        }
+        count++;
+    }
+
+    /**
+     * Merge another sketch into this one
+     *
+     * @param other the sketch to merge, it must have the same relative accuracy
+     * @return this sketch
+     */
+    public QuantileSketch combine(final QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Only sketches of the same relative accuracy can be combined");
+        }
+        positive.addAll(other.positive);
+        negative.addAll(other.negative);
+        zeroCount += other.zeroCount;
+        nanCount += other.nanCount;
+        count += other.count;
+        return this;
+    }
+
+    /**
+     * Get the value at a quantile
+     *
+     * @param quantile the quantile in [0, 1], e.g. 0.99 for the 99th percentile
+     * @return the value, NaN if no value other than NaN has been added
+     */
+    public double getQuantile(final double quantile) {
+        if (!(quantile >= 0d && quantile <= 1d)) {
+            throw new IllegalArgumentException("The quantile must be in [0, 1]");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final double rank = quantile * (count - 1);
+        long seen = 0;
+        for (int i = negative.max; i >= negative.min; i--) {
+            seen += negative.get(i);
+            if (seen > rank) {
+                return -value(i);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0d;
+        }
+        for (int i = positive.min; i < positive.max; i++) {
+            seen += positive.get(i);
+            if (seen > rank) {
+                return value(i);
+            }
+        }
+        return value(positive.max);
+    }
+
+    /**
+     * @return the number of values other than NaN
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of NaN values
+     */
+    public long getNaNCount() {
+        return nanCount;
+    }
+
+    /**
+     * @return the relative error of the quantiles
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * @return the number of buckets allocated, a measure of the memory footprint of eight bytes per bucket
+     */
+    public int getBucketCount() {
+        return positive.length() + negative.length();
+    }
+
+    private int index(final double magnitude) {
+        /* infinities are counted in the bucket of the largest finite magnitude */
+        return (int) Math.ceil(Math.log(Math.min(magnitude, Double.MAX_VALUE)) / logGamma);
+    }
+
+    private double value(final int index) {
+        return 2d * Math.pow(gamma, index) / (gamma + 1d);
+    }
+
+    @Override
+    public String toString() {
+        return "QuantileSketch{count=" + count + ", p50=" + getQuantile(0.5) + ", p99=" + getQuantile(0.99) + '}';
+    }
+
+    /**
+     * The counts of a contiguous range of bucket indices, growing on demand
+     */
+    private static final class Buckets {
+
+        private long[] counts;
+
+        private int offset;
+
+        private int min = Integer.MAX_VALUE;
+
+        private int max = Integer.MIN_VALUE;
+
+        void add(int index, final long n) {
+            if (index < min || index > max) {
+                index = extend(index);
+            }
+            counts[index - offset] += n;
+        }
+
+        void addAll(final Buckets other) {
+            for (int i = other.min; i <= other.max; i++) {
+                final long n = other.get(i);
+                if (n != 0) {
+                    add(i, n);
+                }
+            }
+        }
+
+        long get(final int index) {
+            return counts[index - offset];
+        }
+
+        int length() {
+            return counts == null ? 0 : counts.length;
+        }
+
+        /* widen the range to the index, collapsing the lowest buckets into one if it exceeds the maximum */
+        private int extend(final int index) {
+            final int newMax = Math.max(max, index);
+            int newMin = Math.min(min, index);
+            if ((long) newMax - newMin + 1 > MAX_BUCKETS) {
+                newMin = newMax - MAX_BUCKETS + 1;
+            }
+            if (counts == null || newMin < offset || newMax >= offset + counts.length || newMin > min) {
+                final int needed = newMax - newMin + 1;
+                final int length = Math.max(needed, Math.min(MAX_BUCKETS, counts == null ? 64 : counts.length * 2));
+                final int newOffset = newMin - (length - needed) / 2;
+                final long[] grown = new long[length];
+                for (int i = min; i <= max; i++) {
+                    grown[Math.max(i, newMin) - newOffset] += counts[i - offset];
+                }
+                counts = grown;
+                offset = newOffset;
+            }
+            min = newMin;
+            max = newMax;
+            return Math.max(index, newMin);
+        }
+    }
+}
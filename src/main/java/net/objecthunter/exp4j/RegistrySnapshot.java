@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable version of the contents of an {@link ExpressionRegistry}. The expressions are held in a fixed number
+ * of shards by the hash of their id, so that an update copies only the shards it changes and shares the others with
+ * the previous version. A snapshot stays valid and keeps its expressions reachable for as long as it is referenced,
+ * which makes it the unit to pin for the duration of a request.
+ */
+public final class RegistrySnapshot {
+
+    static final int SHARDS = 1024;
+
+    private final long version;
+
+    private final Map<String, Expression>[] shards;
+
+    private final int size;
+
+    RegistrySnapshot(final long version, final Map<String, Expression>[] shards, final int size) {
+        this.version = version;
+        this.shards = shards;
+        this.size = size;
+    }
+
+    static int shard(final String id) {
+        final int h = id.hashCode();
+        return (h ^ (h >>> 16)) & (SHARDS - 1);
+    }
+
+    Map<String, Expression>[] getShards() {
+        return shards;
+    }
+
+    /**
+     * @return the version of the snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get an expression of this version. Expressions are shared by all readers, so concurrent evaluations need their
+     * own copies, see {@link Expression#Expression(Expression)}.
+     *
+     * @param id the id of the expression
+     * @return the expression, or null if there is none with the id
+     */
+    public Expression get(final String id) {
+        return shards[shard(id)].get(id);
+    }
+
+    /**
+     * @param id the id of the expression
+     * @return true if this version has an expression with the id
+     */
+    public boolean contains(final String id) {
+        return shards[shard(id)].containsKey(id);
+    }
+
+    /**
+     * @return the number of expressions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the ids of the expressions, in no particular order
+     */
+    public List<String> getIds() {
+        final List<String> ids = new ArrayList<>(size);
+        for (final Map<String, Expression> shard : shards) {
+            ids.addAll(shard.keySet());
+        }
+        return Collections.unmodifiableList(ids);
+    }
+
+    @SuppressWarnings("unchecked")
+    static RegistrySnapshot empty() {
+        final Map<String, Expression>[] shards = (Map<String, Expression>[]) new Map<?, ?>[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = Collections.emptyMap();
+        }
+        return new RegistrySnapshot(0L, shards, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Expression>[] copyShards(final RegistrySnapshot snapshot) {
+        final Map<String, Expression>[] shards = (Map<String, Expression>[]) new Map<?, ?>[SHARDS];
+        System.arraycopy(snapshot.shards, 0, shards, 0, SHARDS);
+        return shards;
+    }
+
+    static Map<String, Expression> copyShard(final Map<String, Expression> shard) {
+        return new HashMap<>(shard);
+    }
+
+    @Override
+    public String toString() {
+        return "RegistrySnapshot{version=" + version + ", size=" + size + '}';
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import net.objecthunter.exp4j.metrics.Metrics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the results of an expression keyed by the exact bit patterns of its variable values, enabled by
+ * {@link ExpressionBuilder#cache(int)}. The key holds only the slots the expression reads, so that an expression bound
+ * to a scope is not keyed on the variables of the other expressions of the scope. The entries are grouped in sets of eight, selected by the hash of the key,
+ * and each set evicts by the clock algorithm: a lookup marks the entry it hits as referenced, and an insertion
+ * replaces the first entry after the set's hand which has not been referenced since the hand last passed it.
+ * <p>
+ * The keys and results are stored in primitive arrays. Lookups do not lock: each entry carries a stamp which is odd
+ * while the entry is written, and a lookup only returns a result if the stamp did not change while it read the
+ * entry. An insertion which finds its entry being written by another thread is skipped. The cache is shared by the
+ * copies of an expression and is safe to use from multiple threads.
+ */
+public final class ResultCache {
+
+    private static final int WAYS = 8;
+
+    private final String name;
+
+    /* the slots of the values forming the key */
+    private final int[] slots;
+
+    private final int setMask;
+
+    private final AtomicLongArray keys;
+
+    private final AtomicLongArray results;
+
+    private final AtomicIntegerArray stamps;
+
+    /* the reference bits and the clock hands are hints, races only affect which entry is evicted */
+    private final boolean[] referenced;
+
+    private final int[] hands;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    ResultCache(final String name, final int[] slots, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the cache must be positive");
+        }
+        int sets = 1;
+        while (sets * WAYS < capacity) {
+            sets <<= 1;
+        }
+        this.name = name;
+        this.slots = slots;
+        this.setMask = sets - 1;
+        this.keys = new AtomicLongArray(sets * WAYS * slots.length);
+        this.results = new AtomicLongArray(sets * WAYS);
+        this.stamps = new AtomicIntegerArray(sets * WAYS);
+        this.referenced = new boolean[sets * WAYS];
+        this.hands = new int[sets];
+    }
+
+    /**
+     * Look up the result for the values of a state and evaluate the expression on a miss. Results of evaluations
+     * which read a missing variable or were flagged with an error are not cached.
+     */
+    double evaluate(final Expression expression, final EvaluationState state) {
+        final double[] values = state.values;
+        final int set = hash(values) & setMask;
+        final int first = set * WAYS;
+        for (int entry = first; entry < first + WAYS; entry++) {
+            final int stamp = stamps.get(entry);
+            if (stamp != 0 && (stamp & 1) == 0 && matches(entry, values)) {
+                final double result = Double.longBitsToDouble(results.get(entry));
+                if (stamps.get(entry) == stamp) {
+                    if (!referenced[entry]) {
+                        referenced[entry] = true;
+                    }
+                    record(true);
+                    return result;
+                }
+            }
+        }
+        record(false);
+        final double result = expression.run(state);
+        if (!state.error) {
+            put(first, set, values, result);
+        }
+        return result;
+    }
+
+    private void put(final int first, final int set, final double[] values, final double result) {
+        int entry = -1;
+        for (int i = first; i < first + WAYS; i++) {
+            if (stamps.get(i) == 0) {
+                entry = i;
+                break;
+            }
+        }
+        if (entry < 0) {
+            int hand = hands[set];
+            for (int i = 0; i < WAYS && referenced[first + hand]; i++) {
+                referenced[first + hand] = false;
+                hand = (hand + 1) & (WAYS - 1);
+            }
+            entry = first + hand;
+            hands[set] = (hand + 1) & (WAYS - 1);
+        }
+        final int stamp = stamps.get(entry);
+        if ((stamp & 1) != 0 || !stamps.compareAndSet(entry, stamp, stamp + 1)) {
+            return;
+        }
+        final int offset = entry * slots.length;
+        for (int i = 0; i < slots.length; i++) {
+            keys.set(offset + i, Double.doubleToRawLongBits(values[slots[i]]));
+        }
+        results.set(entry, Double.doubleToRawLongBits(result));
+        referenced[entry] = false;
+        stamps.set(entry, stamp + 2);
+    }
+
+    private boolean matches(final int entry, final double[] values) {
+        final int offset = entry * slots.length;
+        for (int i = 0; i < slots.length; i++) {
+            if (keys.get(offset + i) != Double.doubleToRawLongBits(values[slots[i]])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(final double[] values) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (final int slot : slots) {
+            h = (h ^ Double.doubleToRawLongBits(values[slot])) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void record(final boolean hit) {
+        if (hit) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        if (Metrics.ENABLED) {
+            Metrics.getListener().onCacheAccess(name, hit);
+        }
+    }
+
+    /**
+     * Get the number of entries of the cache, the requested capacity rounded up to a power of two of at least eight
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return stamps.length();
+    }
+
+    /**
+     * Get the number of lookups which found a result
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups which evaluated the expression
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the fraction of lookups which found a result
+     *
+     * @return the hit rate, 0 if there have been no lookups
+     */
+    public double getHitRate() {
+        final long h = hits.sum();
+        final long total = h + misses.sum();
+        return total == 0 ? 0d : (double) h / total;
+    }
+
+    /**
+     * Reset the hit and miss counts, keeping the cached results
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.Arrays;
+
+/**
+ * Helpers for selection vectors, the row ids selected by a predicate expression in ascending order, see
+ * {@link Expression#select(java.util.Map, int, int[])}, and their bitmap form, in which bit {@code row % 64} of
+ * element {@code row / 64} is set for each selected row.
+ */
+public final class Selections {
+
+    private Selections() {
+    }
+
+    /**
+     * Convert a selection vector to a bitmap
+     *
+     * @param selection the selected row ids
+     * @param count     the number of selected rows
+     * @param bitmap    the bitmap receiving the selection, its bits for unselected rows are cleared
+     */
+    public static void toBitmap(final int[] selection, final int count, final long[] bitmap) {
+        Arrays.fill(bitmap, 0L);
+        for (int i = 0; i < count; i++) {
+            final int row = selection[i];
+            bitmap[row >>> 6] |= 1L << row;
+        }
+    }
+
+    /**
+     * Convert a bitmap to a selection vector
+     *
+     * @param bitmap    the bitmap
+     * @param rows      the number of rows the bitmap covers
+     * @param selection the array receiving the selected row ids in ascending order
+     * @return the number of selected rows
+     */
+    public static int fromBitmap(final long[] bitmap, final int rows, final int[] selection) {
+        int count = 0;
+        final int words = (rows + 63) >>> 6;
+        for (int w = 0; w < words; w++) {
+            long bits = bitmap[w];
+            if (w == words - 1 && (rows & 63) != 0) {
+                bits &= (1L << rows) - 1;
+            }
+            while (bits != 0) {
+                selection[count++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Count the selected rows of a bitmap
+     *
+     * @param bitmap the bitmap
+     * @param rows   the number of rows the bitmap covers
+     * @return the number of selected rows
+     */
+    public static int count(final long[] bitmap, final int rows) {
+        int count = 0;
+        final int words = (rows + 63) >>> 6;
+        for (int w = 0; w < words; w++) {
+            long bits = bitmap[w];
+            if (w == words - 1 && (rows & 63) != 0) {
+                bits &= (1L << rows) - 1;
+            }
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+/**
+ * The result of a {@link MonteCarlo} simulation: the running statistics of the results and a sketch of their
+ * distribution
+ */
+public final class SimulationResult {
+
+    private final Aggregate aggregate;
+
+    private final QuantileSketch sketch;
+
+    private final long errorCount;
+
+    SimulationResult(final Aggregate aggregate, final QuantileSketch sketch, final long errorCount) {
+        this.aggregate = aggregate;
+        this.sketch = sketch;
+        this.errorCount = errorCount;
+    }
+
+    /**
+     * @return the count, sum, mean, minimum, maximum and variance of the results
+     */
+    public Aggregate getAggregate() {
+        return aggregate;
+    }
+
+    /**
+     * @return the sketch of the distribution of the results
+     */
+    public QuantileSketch getSketch() {
+        return sketch;
+    }
+
+    /**
+     * @return the number of samples
+     */
+    public long getCount() {
+        return aggregate.getCount();
+    }
+
+    /**
+     * @return the mean of the results
+     */
+    public double getMean() {
+        return aggregate.getMean();
+    }
+
+    /**
+     * @return the sample variance of the results
+     */
+    public double getVariance() {
+        return aggregate.getVariance();
+    }
+
+    /**
+     * Get the result at a quantile, within the relative accuracy of the sketch
+     *
+     * @param quantile the quantile in [0, 1]
+     * @return the result at the quantile
+     */
+    public double getQuantile(final double quantile) {
+        return sketch.getQuantile(quantile);
+    }
+
+    /**
+     * @return the number of samples flagged with an error, if the expression has been built with
+     * {@link ErrorPolicy#FLAG}
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationResult{" + aggregate + ", " + sketch + ", errors=" + errorCount + '}';
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Finds roots and minima of an expression in one of its variables: Brent's bracketed root finder, Newton's method
+ * with the exact derivative computed on dual numbers, and Brent's minimizer combining golden section search with
+ * parabolic interpolation. The solvers write the variable into the slot of a reused evaluation state, so an iteration
+ * allocates nothing. The batch variants solve independent instances, which differ in the bounds or the start and in
+ * the values of other variables, in parallel in the common fork join pool.
+ * <p>
+ * The other variables keep the values set on the expression at the time of the call unless a batch variant sets them.
+ */
+public final class Solver {
+
+    private static final double EPSILON = Math.ulp(1d);
+
+    private static final double SQRT_EPSILON = Math.sqrt(EPSILON);
+
+    private static final double GOLDEN = 0.5 * (3d - Math.sqrt(5d));
+
+    private final Expression expression;
+
+    private final int slot;
+
+    private double tolerance = 1e-12;
+
+    private int maxIterations = 100;
+
+    /**
+     * Create a new solver
+     *
+     * @param expression the expression
+     * @param variable   the name of the variable to solve for
+     */
+    public Solver(final Expression expression, final String variable) {
+        this.slot = expression.getSlot(variable);
+        if (this.slot < 0) {
+            throw new IllegalArgumentException("The expression has no variable '" + variable + "'");
+        }
+        this.expression = expression;
+    }
+
+    /**
+     * Set the absolute tolerance of the solution. The solvers add a relative tolerance of the order of the machine
+     * precision, and the minimizer the square root of it. Defaults to 1e-12.
+     *
+     * @param tolerance the absolute tolerance
+     * @return the Solver instance
+     */
+    public Solver tolerance(final double tolerance) {
+        if (!(tolerance >= 0d)) {
+            throw new IllegalArgumentException("The tolerance can not be negative");
+        }
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Set the number of iterations after which a solver stops without convergence. Defaults to 100.
+     *
+     * @param iterations the maximum number of iterations
+     * @return the Solver instance
+     */
+    public Solver maxIterations(final int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("The number of iterations must be positive");
+        }
+        this.maxIterations = iterations;
+        return this;
+    }
+
+    /**
+     * Find a root in an interval with Brent's method
+     *
+     * @param lower the lower bound
+     * @param upper the upper bound, the expression must have a different sign at both bounds
+     * @return the root, not converged with a NaN value if the interval does not bracket a root
+     */
+    public SolverResult findRoot(final double lower, final double upper) {
+        return new Context(snapshot(null)).findRoot(lower, upper);
+    }
+
+    /**
+     * Find a root with Newton's method, using the exact derivative of the expression
+     *
+     * @param start the starting point
+     * @return the root
+     * @throws IllegalArgumentException if the expression contains a function which can not be differentiated
+     */
+    public SolverResult newton(final double start) {
+        final Expression snapshot = snapshot(null);
+        return new Context(snapshot, new DualEvaluator(snapshot, slot)).newton(start);
+    }
+
+    /**
+     * Find a minimum in an interval with Brent's method
+     *
+     * @param lower the lower bound
+     * @param upper the upper bound
+     * @return the minimum, a local one if the expression is not unimodal in the interval
+     */
+    public SolverResult minimize(final double lower, final double upper) {
+        return new Context(snapshot(null)).minimize(lower, upper);
+    }
+
+    /**
+     * Find a root for each of a number of instances in parallel with Brent's method
+     *
+     * @param parameters the values of other variables by name, value {@code i} of each column is used by instance
+     *                   {@code i}
+     * @param lower      the lower bound of each instance
+     * @param upper      the upper bound of each instance
+     * @return the result of each instance
+     */
+    public SolverResult[] findRoots(final Map<String, double[]> parameters, final double[] lower,
+                                    final double[] upper) {
+        final Instances instances = new Instances(parameters, lower.length, null);
+        checkLength(upper, lower.length);
+        return instances.solve(i -> instances.context(i).findRoot(lower[i], upper[i]));
+    }
+
+    /**
+     * Find a root for each of a number of instances in parallel with Newton's method
+     *
+     * @param parameters the values of other variables by name, value {@code i} of each column is used by instance
+     *                   {@code i}
+     * @param starts     the starting point of each instance
+     * @return the result of each instance
+     * @throws IllegalArgumentException if the expression contains a function which can not be differentiated
+     */
+    public SolverResult[] newton(final Map<String, double[]> parameters, final double[] starts) {
+        final Expression snapshot = snapshot(parameters);
+        final Instances instances = new Instances(parameters, starts.length, new DualEvaluator(snapshot, slot));
+        return instances.solve(i -> instances.context(i).newton(starts[i]));
+    }
+
+    /**
+     * Find a minimum for each of a number of instances in parallel with Brent's method
+     *
+     * @param parameters the values of other variables by name, value {@code i} of each column is used by instance
+     *                   {@code i}
+     * @param lower      the lower bound of each instance
+     * @param upper      the upper bound of each instance
+     * @return the result of each instance
+     */
+    public SolverResult[] minimize(final Map<String, double[]> parameters, final double[] lower,
+                                   final double[] upper) {
+        final Instances instances = new Instances(parameters, lower.length, null);
+        checkLength(upper, lower.length);
+        return instances.solve(i -> instances.context(i).minimize(lower[i], upper[i]));
+    }
+
+    /* copy the expression and check that each variable other than the solved one is set or a parameter */
+    private Expression snapshot(final Map<String, double[]> parameters) {
+        final Expression snapshot = expression.snapshot();
+        final boolean[] bound = new boolean[snapshot.getSlotNames().length];
+        bound[slot] = true;
+        if (parameters != null) {
+            for (String name : parameters.keySet()) {
+                final int s = snapshot.getSlot(name);
+                if (s < 0 || s == slot) {
+                    throw new IllegalArgumentException("The expression has no parameter '" + name + "'");
+                }
+                bound[s] = true;
+            }
+        }
+        snapshot.checkBound(bound);
+        return snapshot;
+    }
+
+    private static void checkLength(final double[] column, final int count) {
+        if (column.length < count) {
+            throw new IllegalArgumentException("Expected " + count + " values but got " + column.length);
+        }
+    }
+
+    /**
+     * The parameter columns and the per thread contexts of a batch of instances
+     */
+    private final class Instances {
+
+        private final int count;
+
+        private final int[] slots;
+
+        private final double[][] columns;
+
+        private final ThreadLocal<Context> contexts;
+
+        Instances(final Map<String, double[]> parameters, final int count, final DualEvaluator dual) {
+            final Expression snapshot = snapshot(parameters);
+            this.count = count;
+            this.slots = new int[parameters.size()];
+            this.columns = new double[parameters.size()][];
+            int j = 0;
+            for (Map.Entry<String, double[]> e : parameters.entrySet()) {
+                checkLength(e.getValue(), count);
+                slots[j] = snapshot.getSlot(e.getKey());
+                columns[j++] = e.getValue();
+            }
+            this.contexts = ThreadLocal.withInitial(() -> new Context(snapshot, dual));
+        }
+
+        Context context(final int instance) {
+            final Context c = contexts.get();
+            for (int j = 0; j < slots.length; j++) {
+                c.values[slots[j]] = columns[j][instance];
+            }
+            return c;
+        }
+
+        SolverResult[] solve(final IntFunction<SolverResult> solver) {
+            return IntStream.range(0, count).parallel().mapToObj(solver).toArray(SolverResult[]::new);
+        }
+    }
+
+    /**
+     * The evaluation state of one thread and the implementation of the solvers
+     */
+    private final class Context {
+
+        private final Expression expression;
+
+        private final EvaluationState state;
+
+        private final double[] values;
+
+        private final DualEvaluator dual;
+
+        private final double[] dualValues;
+
+        private final double[] dualDerivatives;
+
+        private int evaluations;
+
+        Context(final Expression expression) {
+            this(expression, null);
+        }
+
+        Context(final Expression expression, final DualEvaluator dual) {
+            this.expression = expression;
+            this.state = expression.newEvaluationState();
+            this.values = state.values;
+            this.dual = dual;
+            this.dualValues = dual == null ? null : new double[dual.getStackSize()];
+            this.dualDerivatives = dual == null ? null : new double[dual.getStackSize()];
+        }
+
+        private double f(final double x) {
+            evaluations++;
+            values[slot] = x;
+            state.error = false;
+            return expression.evaluate(state);
+        }
+
+        SolverResult findRoot(final double lower, final double upper) {
+            evaluations = 0;
+            double a = lower;
+            double b = upper;
+            double fa = f(a);
+            double fb = f(b);
+            if (fa == 0d) {
+                return new SolverResult(a, fa, 0, evaluations, true);
+            }
+            if (fb == 0d) {
+                return new SolverResult(b, fb, 0, evaluations, true);
+            }
+            if (!(fa < 0d && fb > 0d || fa > 0d && fb < 0d)) {
+                return new SolverResult(Double.NaN, Double.NaN, 0, evaluations, false);
+            }
+            double c = a;
+            double fc = fa;
+            double d = b - a;
+            double e = d;
+            for (int iteration = 1; iteration <= maxIterations; iteration++) {
+                if ((fb > 0d) == (fc > 0d)) {
+                    c = a;
+                    fc = fa;
+                    d = b - a;
+                    e = d;
+                }
+                if (Math.abs(fc) < Math.abs(fb)) {
+                    a = b;
+                    b = c;
+                    c = a;
+                    fa = fb;
+                    fb = fc;
+                    fc = fa;
+                }
+                final double tol = 2d * EPSILON * Math.abs(b) + 0.5 * tolerance;
+                final double m = 0.5 * (c - b);
+                if (Math.abs(m) <= tol || fb == 0d) {
+                    return new SolverResult(b, fb, iteration, evaluations, true);
+                }
+                if (Math.abs(e) < tol || Math.abs(fa) <= Math.abs(fb)) {
+                    d = m;
+                    e = m;
+                } else {
+                    /* secant or inverse quadratic interpolation */
+                    final double s = fb / fa;
+                    double p;
+                    double q;
+                    if (a == c) {
+                        p = 2d * m * s;
+                        q = 1d - s;
+                    } else {
+                        final double qa = fa / fc;
+                        final double r = fb / fc;
+                        p = s * (2d * m * qa * (qa - r) - (b - a) * (r - 1d));
+                        q = (qa - 1d) * (r - 1d) * (s - 1d);
+                    }
+                    if (p > 0d) {
+                        q = -q;
+                    } else {
+                        p = -p;
+                    }
+                    if (2d * p < Math.min(3d * m * q - Math.abs(tol * q), Math.abs(e * q))) {
+                        e = d;
+                        d = p / q;
+                    } else {
+                        d = m;
+                        e = m;
+                    }
+                }
+                a = b;
+                fa = fb;
+                b += Math.abs(d) > tol ? d : (m > 0d ? tol : -tol);
+                fb = f(b);
+                if (Double.isNaN(fb)) {
+                    return new SolverResult(b, fb, iteration, evaluations, false);
+                }
+            }
+            return new SolverResult(b, fb, maxIterations, evaluations, false);
+        }
+
+        SolverResult newton(final double start) {
+            evaluations = 0;
+            double x = start;
+            for (int iteration = 1; iteration <= maxIterations; iteration++) {
+                evaluations++;
+                values[slot] = x;
+                dual.evaluate(values, dualValues, dualDerivatives);
+                final double fx = dualValues[0];
+                final double dfx = dualDerivatives[0];
+                if (fx == 0d) {
+                    return new SolverResult(x, fx, iteration, evaluations, true);
+                }
+                if (dfx == 0d || !Double.isFinite(dfx) || !Double.isFinite(fx)) {
+                    return new SolverResult(x, fx, iteration, evaluations, false);
+                }
+                final double step = fx / dfx;
+                x -= step;
+                if (Math.abs(step) <= tolerance + 2d * EPSILON * Math.abs(x)) {
+                    return new SolverResult(x, f(x), iteration, evaluations, true);
+                }
+            }
+            return new SolverResult(x, f(x), maxIterations, evaluations, false);
+        }
+
+        SolverResult minimize(final double lower, final double upper) {
+            evaluations = 0;
+            double a = Math.min(lower, upper);
+            double b = Math.max(lower, upper);
+            double x = a + GOLDEN * (b - a);
+            double w = x;
+            double v = x;
+            double fx = f(x);
+            double fw = fx;
+            double fv = fx;
+            double d = 0d;
+            double e = 0d;
+            for (int iteration = 1; iteration <= maxIterations; iteration++) {
+                final double xm = 0.5 * (a + b);
+                final double tol1 = SQRT_EPSILON * Math.abs(x) + tolerance / 3d;
+                final double tol2 = 2d * tol1;
+                if (Math.abs(x - xm) <= tol2 - 0.5 * (b - a)) {
+                    return new SolverResult(x, fx, iteration, evaluations, true);
+                }
+                boolean golden = true;
+                if (Math.abs(e) > tol1) {
+                    /* try a parabola through x, v and w */
+                    double r = (x - w) * (fx - fv);
+                    double q = (x - v) * (fx - fw);
+                    double p = (x - v) * q - (x - w) * r;
+                    q = 2d * (q - r);
+                    if (q > 0d) {
+                        p = -p;
+                    }
+                    q = Math.abs(q);
+                    r = e;
+                    e = d;
+                    if (Math.abs(p) < Math.abs(0.5 * q * r) && p > q * (a - x) && p < q * (b - x)) {
+                        d = p / q;
+                        final double u = x + d;
+                        if (u - a < tol2 || b - u < tol2) {
+                            d = xm >= x ? tol1 : -tol1;
+                        }
+                        golden = false;
+                    }
+                }
+                if (golden) {
+                    e = x >= xm ? a - x : b - x;
+                    d = GOLDEN * e;
+                }
+                final double u = x + (Math.abs(d) >= tol1 ? d : (d > 0d ? tol1 : -tol1));
+                final double fu = f(u);
+                if (fu <= fx) {
+                    if (u >= x) {
+                        a = x;
+                    } else {
+                        b = x;
+                    }
+                    v = w;
+                    fv = fw;
+                    w = x;
+                    fw = fx;
+                    x = u;
+                    fx = fu;
+                } else {
+                    if (u < x) {
+                        a = u;
+                    } else {
+                        b = u;
+                    }
+                    if (fu <= fw || w == x) {
+                        v = w;
+                        fv = fw;
+                        w = u;
+                        fw = fu;
+                    } else if (fu <= fv || v == x || v == w) {
+                        v = u;
+                        fv = fu;
+                    }
+                }
+            }
+            return new SolverResult(x, fx, maxIterations, evaluations, false);
+        }
+    }
+}
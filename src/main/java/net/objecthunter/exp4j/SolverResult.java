@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+/**
+ * The result of a {@link Solver}
+ */
+public final class SolverResult {
+
+    private final double value;
+
+    private final double functionValue;
+
+    private final int iterations;
+
+    private final int evaluations;
+
+    private final boolean converged;
+
+    SolverResult(final double value, final double functionValue, final int iterations, final int evaluations,
+                 final boolean converged) {
+        this.value = value;
+        this.functionValue = functionValue;
+        this.iterations = iterations;
+        this.evaluations = evaluations;
+        this.converged = converged;
+    }
+
+    /**
+     * @return the root or the minimum found, i.e. the value of the solved variable
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return the value of the expression at the root or minimum
+     */
+    public double getFunctionValue() {
+        return functionValue;
+    }
+
+    /**
+     * @return the number of iterations
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return the number of evaluations of the expression, counting an evaluation with its derivative as one
+     */
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @return true if the tolerance has been met, false if the solver stopped at the iteration limit, at a result
+     * which is not finite, at a zero derivative or at an interval which does not bracket a root
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverResult{value=" + value + ", functionValue=" + functionValue + ", iterations=" + iterations
+                + ", evaluations=" + evaluations + ", converged=" + converged + '}';
+    }
+}
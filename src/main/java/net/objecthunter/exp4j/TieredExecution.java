@@ -0,0 +1,198 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tiered execution of many expressions. Each {@link TieredExpression} created by {@link #add(Expression)} starts on
+ * the token interpreter and counts its evaluations. Once the count crosses the promotion threshold the expression
+ * is compiled into a tree of closures on a background thread, and the compiled form is swapped in for all callers
+ * as soon as it is ready. Expressions which are never hot are never compiled.
+ */
+public class TieredExecution {
+
+    private final int threshold;
+
+    private final Executor executor;
+
+    /* the state of interpreted evaluations on each thread, shared by all expressions of this execution */
+    private final ThreadLocal<EvaluationState> states =
+            ThreadLocal.withInitial(() -> new EvaluationState(new double[0], new ArrayStack()));
+
+    final AtomicInteger interpreted = new AtomicInteger();
+
+    final AtomicInteger promoting = new AtomicInteger();
+
+    final AtomicInteger compiled = new AtomicInteger();
+
+    final AtomicInteger failed = new AtomicInteger();
+
+    final AtomicLong compileNanos = new AtomicLong();
+
+    /**
+     * Create a new tiered execution compiling on a single daemon thread
+     *
+     * @param threshold the number of evaluations after which an expression is promoted to the compiled tier
+     */
+    public TieredExecution(int threshold) {
+        this(threshold, newCompilerThread());
+    }
+
+    /**
+     * Create a new tiered execution
+     *
+     * @param threshold the number of evaluations after which an expression is promoted to the compiled tier
+     * @param executor  the executor running the compilations
+     */
+    public TieredExecution(int threshold, Executor executor) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("The promotion threshold can not be negative");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor can not be null");
+        }
+        this.threshold = threshold;
+        this.executor = executor;
+    }
+
+    private static ExecutorService newCompilerThread() {
+        return Executors.newSingleThreadExecutor(r -> {
+            final Thread t = new Thread(r, "exp4j-tiered-compiler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Add an expression to the interpreted tier
+     *
+     * @param expression the expression
+     * @return the tiered expression to evaluate
+     */
+    public TieredExpression add(Expression expression) {
+        interpreted.incrementAndGet();
+        return new TieredExpression(this, expression);
+    }
+
+    /**
+     * Get the promotion threshold
+     *
+     * @return the number of evaluations after which an expression is promoted to the compiled tier
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Get a snapshot of the number of expressions in each tier
+     *
+     * @return the statistics
+     */
+    public TierStats getStats() {
+        return new TierStats(interpreted.get(), promoting.get(), compiled.get(), failed.get(), compileNanos.get());
+    }
+
+    /*
+     * Get the state of the current thread with room for the given number of variable values, its values array grows
+     * to the largest number of slots evaluated on the thread
+     */
+    EvaluationState state(final int slots) {
+        EvaluationState state = states.get();
+        if (state.values.length < slots) {
+            state = new EvaluationState(new double[slots], state.stack);
+            states.set(state);
+        }
+        return state;
+    }
+
+    void promote(final TieredExpression expression) {
+        interpreted.decrementAndGet();
+        promoting.incrementAndGet();
+        try {
+            executor.execute(expression::compile);
+        } catch (RejectedExecutionException e) {
+            promoting.decrementAndGet();
+            interpreted.incrementAndGet();
+            expression.rejected();
+        }
+    }
+
+    /**
+     * An immutable snapshot of the number of expressions in each tier of a {@link TieredExecution}
+     */
+    public static final class TierStats {
+        private final int interpreted;
+        private final int promoting;
+        private final int compiled;
+        private final int failed;
+        private final long compileNanos;
+
+        TierStats(int interpreted, int promoting, int compiled, int failed, long compileNanos) {
+            this.interpreted = interpreted;
+            this.promoting = promoting;
+            this.compiled = compiled;
+            this.failed = failed;
+            this.compileNanos = compileNanos;
+        }
+
+        /**
+         * @return the number of expressions running on the token interpreter, including failed compilations
+         */
+        public int getInterpreted() {
+            return interpreted;
+        }
+
+        /**
+         * @return the number of expressions waiting for or undergoing compilation
+         */
+        public int getPromoting() {
+            return promoting;
+        }
+
+        /**
+         * @return the number of expressions running in compiled form
+         */
+        public int getCompiled() {
+            return compiled;
+        }
+
+        /**
+         * @return the number of expressions which could not be compiled and stay interpreted
+         */
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return the total time spent compiling in nanoseconds
+         */
+        public long getCompileNanos() {
+            return compileNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "TierStats{interpreted=" + interpreted + ", promoting=" + promoting + ", compiled=" + compiled
+                    + ", failed=" + failed + ", compileNanos=" + compileNanos + '}';
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * An expression managed by a {@link TieredExecution}. Evaluations take the variable values by slot, see
+ * {@link #getVariables()}, and are safe to run concurrently from multiple threads in both tiers.
+ */
+public final class TieredExpression {
+
+    private static final int INTERPRETED = 0;
+    private static final int PROMOTING = 1;
+    private static final int COMPILED = 2;
+    private static final int FAILED = 3;
+
+    private static final AtomicIntegerFieldUpdater<TieredExpression> TIER =
+            AtomicIntegerFieldUpdater.newUpdater(TieredExpression.class, "tier");
+
+    private final TieredExecution execution;
+
+    private final Expression expression;
+
+    private final List<String> variables;
+
+    private volatile int tier = INTERPRETED;
+
+    private volatile ClosureCompiler.Compiled compiled;
+
+    /* racy on purpose, lost updates only delay the promotion */
+    private int invocations;
+
+    TieredExpression(final TieredExecution execution, final Expression expression) {
+        this.execution = execution;
+        this.expression = expression.snapshot();
+        this.variables = Collections.unmodifiableList(Arrays.asList(expression.getSlotNames()));
+    }
+
+    /**
+     * Get the variable names in the order of the values passed to {@link #evaluate(double...)}
+     *
+     * @return the variable names
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Check if the expression has been promoted to the compiled tier
+     *
+     * @return true if evaluations run the compiled form
+     */
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
+    /**
+     * Evaluate the expression
+     *
+     * @param values the variable values in the order of {@link #getVariables()}
+     * @return the result of the evaluation
+     */
+    public double evaluate(final double... values) {
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException("Expected " + variables.size() + " variable values but got " + values.length);
+        }
+        final ClosureCompiler.Compiled c = this.compiled;
+        if (c != null) {
+            return c.evaluate(values);
+        }
+        if (tier == INTERPRETED && ++invocations >= execution.getThreshold()
+                && TIER.compareAndSet(this, INTERPRETED, PROMOTING)) {
+            execution.promote(this);
+        }
+        final EvaluationState state = execution.state(values.length);
+        System.arraycopy(values, 0, state.values, 0, values.length);
+        state.error = false;
+        return expression.evaluate(state);
+    }
+
+    void compile() {
+        final long start = System.nanoTime();
+        ClosureCompiler.Compiled result = null;
+        try {
+            result = ClosureCompiler.compile(expression);
+        } catch (RuntimeException | StackOverflowError e) {
+            // the compiler recurses over the expression tree, too deep trees stay in the interpreted tier
+        } finally {
+            execution.compileNanos.addAndGet(System.nanoTime() - start);
+            execution.promoting.decrementAndGet();
+            if (result == null) {
+                tier = FAILED;
+                execution.failed.incrementAndGet();
+                execution.interpreted.incrementAndGet();
+            } else {
+                compiled = result;
+                tier = COMPILED;
+                execution.compiled.incrementAndGet();
+            }
+        }
+    }
+
+    void rejected() {
+        invocations = 0;
+        tier = INTERPRETED;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Writes the variable values of an element into the value array of an evaluation, see
+ * {@link Expression#evaluateStream(java.util.stream.Stream, VariableBinder)}. The array holds the values by slot; use
+ * {@link #of(Expression, Map)} to bind by variable name with the slots resolved once.
+ *
+ * @param <T> the type of the elements
+ */
+@FunctionalInterface
+public interface VariableBinder<T> {
+
+    /**
+     * Write the variable values of an element
+     *
+     * @param element the element
+     * @param values  the values by slot, slots not written keep the values set on the expression
+     */
+    void bind(T element, double[] values);
+
+    /**
+     * Create a binder reading each variable with a getter
+     *
+     * @param expression the expression the binder is used with
+     * @param getters    the getters by variable name
+     * @param <T>        the type of the elements
+     * @return the binder
+     * @throws IllegalArgumentException if a getter is given for a name which is not a variable of the expression,
+     *                                  or if the expression throws on missing variables and a variable has neither a
+     *                                  getter nor a value set
+     */
+    static <T> VariableBinder<T> of(final Expression expression,
+                                    final Map<String, ? extends ToDoubleFunction<? super T>> getters) {
+        final int[] slots = new int[getters.size()];
+        @SuppressWarnings("unchecked")
+        final ToDoubleFunction<? super T>[] functions = (ToDoubleFunction<? super T>[]) new ToDoubleFunction<?>[getters.size()];
+        final boolean[] bound = new boolean[expression.getSlotNames().length];
+        int i = 0;
+        for (Map.Entry<String, ? extends ToDoubleFunction<? super T>> e : getters.entrySet()) {
+            final int slot = expression.getSlot(e.getKey());
+            if (slot < 0) {
+                throw new IllegalArgumentException("The expression has no variable '" + e.getKey() + "'");
+            }
+            slots[i] = slot;
+            functions[i++] = e.getValue();
+            bound[slot] = true;
+        }
+        expression.checkBound(bound);
+        return (element, values) -> {
+            for (int j = 0; j < slots.length; j++) {
+                values[slots[j]] = functions[j].applyAsDouble(element);
+            }
+        };
+    }
+}
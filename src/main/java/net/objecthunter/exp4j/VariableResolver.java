@@ -0,0 +1,33 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+/**
+ * Supplies the values of variables on demand, see {@link Expression#evaluate(VariableResolver)}. The resolver is
+ * called at most once per variable and evaluation, and only for the variables the evaluation reads without a value
+ * set, so that expensive inputs a formula never reads are never produced.
+ */
+@FunctionalInterface
+public interface VariableResolver {
+
+    /**
+     * Get the value of a variable
+     *
+     * @param name the name of the variable
+     * @return the value
+     */
+    double resolve(String name);
+}
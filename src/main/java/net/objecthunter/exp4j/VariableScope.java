@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import net.objecthunter.exp4j.function.Functions;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The values of a fixed set of variables shared by many expressions, see {@link Expression#bind(VariableScope)}.
+ * The values are held once in a primitive array which the bound expressions read by slot, so setting a value in the
+ * scope is seen by all of them without copying. The names are checked once when the scope is created, and a value
+ * can be set by its index to skip the lookup of the name. Like an {@link Expression}, a scope must not be written
+ * while an expression bound to it is evaluated.
+ */
+public final class VariableScope {
+
+    final String[] names;
+
+    final Map<String, Integer> slots;
+
+    final double[] values;
+
+    final boolean[] assigned;
+
+    /**
+     * Create a new scope for the given variables, which have no value yet
+     *
+     * @param names the names of the variables
+     */
+    public VariableScope(final Set<String> names) {
+        this.names = new LinkedHashSet<>(names).toArray(new String[0]);
+        this.slots = new HashMap<>();
+        for (int i = 0; i < this.names.length; i++) {
+            if (Functions.getBuiltinFunction(this.names[i]) != null) {
+                throw new IllegalArgumentException("The variable name '" + this.names[i] + "' is invalid. Since there exists a function with the same name");
+            }
+            this.slots.put(this.names[i], i);
+        }
+        this.values = new double[this.names.length];
+        Arrays.fill(this.values, Double.NaN);
+        this.assigned = new boolean[this.names.length];
+    }
+
+    /**
+     * Get the index of a variable
+     *
+     * @param name the name of the variable
+     * @return the index
+     */
+    public int getIndex(final String name) {
+        final Integer slot = this.slots.get(name);
+        if (slot == null) {
+            throw new IllegalArgumentException("The scope has no variable '" + name + "'");
+        }
+        return slot;
+    }
+
+    /**
+     * Set the value of a variable
+     *
+     * @param name  the name of the variable
+     * @param value the value
+     * @return this scope
+     */
+    public VariableScope setVariable(final String name, final double value) {
+        return setVariable(getIndex(name), value);
+    }
+
+    /**
+     * Set the value of a variable by its index, see {@link #getIndex(String)}
+     *
+     * @param index the index of the variable
+     * @param value the value
+     * @return this scope
+     */
+    public VariableScope setVariable(final int index, final double value) {
+        this.values[index] = value;
+        this.assigned[index] = true;
+        return this;
+    }
+
+    /**
+     * Set the values of several variables
+     *
+     * @param variables the values by name
+     * @return this scope
+     */
+    public VariableScope setVariables(final Map<String, Double> variables) {
+        for (final Map.Entry<String, Double> v : variables.entrySet()) {
+            setVariable(v.getKey(), v.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Get the value of a variable by its index
+     *
+     * @param index the index of the variable
+     * @return the value, NaN if none has been set
+     */
+    public double getVariable(final int index) {
+        return this.values[index];
+    }
+
+    /**
+     * Remove the values of all variables
+     *
+     * @return this scope
+     */
+    public VariableScope clearVariables() {
+        Arrays.fill(this.values, Double.NaN);
+        Arrays.fill(this.assigned, false);
+        return this;
+    }
+
+    /**
+     * Get the names of the variables in the order of their indices
+     *
+     * @return the names
+     */
+    public Set<String> getVariableNames() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(this.names)));
+    }
+
+    /**
+     * @return the number of variables
+     */
+    public int size() {
+        return this.names.length;
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.cli;
+
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+import net.objecthunter.exp4j.ErrorPolicy;
+import net.objecthunter.exp4j.function.Functions;
+import net.objecthunter.exp4j.function.MathMode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Command line evaluator running one or more expressions over each row of a CSV file. The header names are bound to
+ * the expression variables, the input is memory mapped and split into chunks at line boundaries, the chunks are
+ * parsed and evaluated in parallel in columnar batches and the results are written to the output file in input
+ * order, one column per expression. Fields which are empty or not a number evaluate as NaN.
+ *
+ * <pre>
+ * java -cp exp4j.jar net.objecthunter.exp4j.cli.CsvEvaluator [-d delimiter] [-t threads] [-fast] input output expression...
+ * </pre>
+ */
+public final class CsvEvaluator {
+
+    private static final int CHUNK_SIZE = 64 << 20;
+
+    private static final int BATCH_ROWS = 4096;
+
+    private final byte delimiter;
+
+    private final String[] header;
+
+    private final Expression[] expressions;
+
+    /* the column index of each variable of each expression */
+    private final int[][] columns;
+
+    private final String[][] names;
+
+    /* the slot of each column in the parsed batch, or -1 if no expression reads it */
+    private final int[] parsedSlot;
+
+    private final int parsedCount;
+
+    private CsvEvaluator(final byte delimiter, final String[] header, final List<String> formulas,
+                         final MathMode mode) {
+        this.delimiter = delimiter;
+        this.header = header;
+        final Set<String> variables = new HashSet<>();
+        for (String name : header) {
+            if (isVariableName(name)) {
+                variables.add(name);
+            }
+        }
+        this.expressions = new Expression[formulas.size()];
+        this.columns = new int[formulas.size()][];
+        this.names = new String[formulas.size()][];
+        this.parsedSlot = new int[header.length];
+        Arrays.fill(parsedSlot, -1);
+        int parsed = 0;
+        for (int i = 0; i < expressions.length; i++) {
+            expressions[i] = new ExpressionBuilder(formulas.get(i))
+                    .variables(variables)
+                    .mathMode(mode)
+                    .errorPolicy(ErrorPolicy.IEEE_NAN)
+                    .build();
+            final Set<String> used = expressions[i].getVariableNames();
+            names[i] = used.toArray(new String[0]);
+            columns[i] = new int[names[i].length];
+            for (int j = 0; j < names[i].length; j++) {
+                final int column = indexOf(header, names[i][j]);
+                columns[i][j] = column;
+                if (parsedSlot[column] < 0) {
+                    parsedSlot[column] = parsed++;
+                }
+            }
+        }
+        this.parsedCount = parsed;
+    }
+
+    private static boolean isVariableName(final String name) {
+        if (name.isEmpty() || !(Character.isLetter(name.charAt(0)) || name.charAt(0) == '_')) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_') {
+                return false;
+            }
+        }
+        return Functions.getBuiltinFunction(name) == null;
+    }
+
+    private static int indexOf(final String[] header, final String name) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("The header has no column '" + name + "'");
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        byte delimiter = ',';
+        int threads = Runtime.getRuntime().availableProcessors();
+        MathMode mode = MathMode.STRICT;
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-"); i++) {
+            if (args[i].equals("-d") && i + 1 < args.length) {
+                final String d = args[++i];
+                delimiter = (byte) (d.equals("\\t") ? '\t' : d.charAt(0));
+            } else if (args[i].equals("-t") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-fast")) {
+                mode = MathMode.FAST;
+            } else {
+                usage();
+                return;
+            }
+        }
+        if (args.length - i < 3 || threads < 1) {
+            usage();
+            return;
+        }
+        final Path input = Paths.get(args[i]);
+        final Path output = Paths.get(args[i + 1]);
+        final List<String> formulas = new ArrayList<>();
+        for (int j = i + 2; j < args.length; j++) {
+            formulas.add(args[j]);
+        }
+        run(input, output, formulas, delimiter, threads, mode);
+    }
+
+    private static void usage() {
+        System.err.println("usage: CsvEvaluator [-d delimiter] [-t threads] [-fast] input output expression...");
+    }
+
+    /**
+     * Evaluate the formulas over each row of a CSV file and report the throughput on standard error
+     *
+     * @param input     the CSV file with a header line
+     * @param output    the file receiving one column per formula
+     * @param formulas  the formulas
+     * @param delimiter the field delimiter
+     * @param threads   the number of threads evaluating chunks in parallel, at least one
+     * @param mode      the math mode the formulas are built with
+     * @return the number of rows evaluated
+     * @throws IllegalArgumentException if the number of threads is less than one
+     * @throws IOException              if reading or writing fails
+     * @throws InterruptedException     if interrupted while waiting for a chunk
+     */
+    public static long run(final Path input, final Path output, final List<String> formulas, final byte delimiter,
+                           final int threads, final MathMode mode) throws IOException, InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        final long start = System.nanoTime();
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long rows = 0;
+        final long size;
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            size = in.size();
+            final long headerEnd = nextLine(in, 0, size);
+            final String[] header = parseHeader(in, headerEnd, delimiter);
+            final CsvEvaluator evaluator = new CsvEvaluator(delimiter, header, formulas, mode);
+            write(out, evaluator.outputHeader(formulas));
+
+            /* keep a bounded number of chunks in flight and write their output in input order */
+            final ArrayDeque<Future<Result>> pending = new ArrayDeque<>();
+            long position = headerEnd;
+            while (position < size || !pending.isEmpty()) {
+                while (position < size && pending.size() < 2 * threads) {
+                    final long chunkStart = position;
+                    final long chunkEnd = nextLine(in, Math.min(size, position + CHUNK_SIZE), size);
+                    final MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart);
+                    pending.add(pool.submit(() -> evaluator.evaluate(buffer)));
+                    position = chunkEnd;
+                }
+                final Result result = pending.poll().get();
+                rows += result.rows;
+                write(out, result.output);
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to evaluate a chunk of " + input, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d rows in %.3f s: %.0f rows/s, %.3f GB/s%n", rows, seconds, rows / seconds,
+                size / seconds / 1e9);
+        return rows;
+    }
+
+    private static void write(final FileChannel out, final byte[] bytes) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /* the position after the next line feed at or after the given position */
+    private static long nextLine(final FileChannel in, long position, final long size) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            final int n = in.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    private static String[] parseHeader(final FileChannel in, final long end, final byte delimiter) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) end);
+        in.read(buffer, 0);
+        String line = new String(buffer.array(), 0, (int) end, StandardCharsets.UTF_8);
+        if (line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        final String[] fields = line.trim().split(Pattern.quote(String.valueOf((char) delimiter)), -1);
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].trim();
+            if (fields[i].length() >= 2 && fields[i].startsWith("\"") && fields[i].endsWith("\"")) {
+                fields[i] = fields[i].substring(1, fields[i].length() - 1);
+            }
+        }
+        return fields;
+    }
+
+    private byte[] outputHeader(final List<String> formulas) {
+        final StringBuilder line = new StringBuilder();
+        for (int i = 0; i < formulas.size(); i++) {
+            if (i > 0) {
+                line.append((char) delimiter);
+            }
+            line.append('"').append(formulas.get(i).replace("\"", "\"\"")).append('"');
+        }
+        return line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class Result {
+        long rows;
+        byte[] output;
+    }
+
+    private Result evaluate(final ByteBuffer buffer) {
+        final double[][] parsed = new double[parsedCount][BATCH_ROWS];
+        final double[][] results = new double[expressions.length][BATCH_ROWS];
+        final List<Map<String, double[]>> bindings = new ArrayList<>(expressions.length);
+        for (int e = 0; e < expressions.length; e++) {
+            final Map<String, double[]> binding = new HashMap<>();
+            for (int j = 0; j < names[e].length; j++) {
+                binding.put(names[e][j], parsed[parsedSlot[columns[e][j]]]);
+            }
+            bindings.add(binding);
+        }
+        final Result result = new Result();
+        /* room for one batch of doubles, the builder grows with the number of rows of the chunk */
+        final StringBuilder text = new StringBuilder(BATCH_ROWS * expressions.length * 25);
+        final int limit = buffer.limit();
+        int row = 0;
+        int position = 0;
+        while (position < limit) {
+            int end = position;
+            int field = 0;
+            int fieldStart = position;
+            boolean quoted = false;
+            for (; end < limit; end++) {
+                final byte b = buffer.get(end);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && b == '\n') {
+                    break;
+                } else if (!quoted && b == delimiter) {
+                    store(buffer, fieldStart, end, field++, parsed, row);
+                    fieldStart = end + 1;
+                }
+            }
+            final int next = end + 1;
+            if (field == 0 && isBlank(buffer, position, end)) {
+                position = next;
+                continue;
+            }
+            store(buffer, fieldStart, end, field++, parsed, row);
+            for (; field < header.length; field++) {
+                if (parsedSlot[field] >= 0) {
+                    parsed[parsedSlot[field]][row] = Double.NaN;
+                }
+            }
+            position = next;
+            if (++row == BATCH_ROWS) {
+                flush(bindings, results, row, text);
+                result.rows += row;
+                row = 0;
+            }
+        }
+        if (row > 0) {
+            flush(bindings, results, row, text);
+            result.rows += row;
+        }
+        result.output = text.toString().getBytes(StandardCharsets.US_ASCII);
+        return result;
+    }
+
+    /* a line holding nothing but blanks and an optional carriage return is skipped */
+    private static boolean isBlank(final ByteBuffer buffer, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) != '\r' && buffer.get(i) != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void store(final ByteBuffer buffer, final int start, int end, final int field, final double[][] parsed,
+                       final int row) {
+        if (field >= parsedSlot.length || parsedSlot[field] < 0) {
+            return;
+        }
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        parsed[parsedSlot[field]][row] = NumberParser.parse(buffer, start, end);
+    }
+
+    private void flush(final List<Map<String, double[]>> bindings, final double[][] results, final int rows,
+                       final StringBuilder text) {
+        for (int e = 0; e < expressions.length; e++) {
+            final double[] r = rows == BATCH_ROWS ? results[e] : new double[rows];
+            expressions[e].evaluate(bindings.get(e), r);
+            if (r != results[e]) {
+                System.arraycopy(r, 0, results[e], 0, rows);
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int e = 0; e < expressions.length; e++) {
+                if (e > 0) {
+                    text.append((char) delimiter);
+                }
+                text.append(results[e][row]);
+            }
+            text.append('\n');
+        }
+    }
+}
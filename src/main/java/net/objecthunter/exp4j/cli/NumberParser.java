@@ -0,0 +1,144 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.cli;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers directly from the bytes of a buffer without creating a String per field. Numbers with at
+ * most 18 significant digits and a decimal exponent within the range of exactly representable powers of ten are
+ * converted with a single correctly rounded multiplication or division, everything else falls back to
+ * {@link Double#parseDouble(String)}.
+ */
+final class NumberParser {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final long MAX_EXACT = 1L << 53;
+
+    private NumberParser() {
+    }
+
+    /**
+     * Parse the number in a range of a buffer, ignoring surrounding blanks and double quotes
+     *
+     * @param buffer the buffer
+     * @param start  the index of the first byte
+     * @param end    the index after the last byte
+     * @return the number, or NaN if the range is empty or not a number
+     */
+    static double parse(final ByteBuffer buffer, int start, int end) {
+        while (start < end && isBlankOrQuote(buffer.get(start))) {
+            start++;
+        }
+        while (end > start && isBlankOrQuote(buffer.get(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return Double.NaN;
+        }
+        int i = start;
+        boolean negative = false;
+        byte b = buffer.get(i);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean digits = false;
+        while (i < end && (b = buffer.get(i)) >= '0' && b <= '9') {
+            digits = true;
+            if (mantissa != 0 || b != '0') {
+                if (++significant > 18) {
+                    return slowParse(buffer, start, end);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+            }
+            i++;
+        }
+        if (i < end && buffer.get(i) == '.') {
+            i++;
+            while (i < end && (b = buffer.get(i)) >= '0' && b <= '9') {
+                digits = true;
+                if (mantissa != 0 || b != '0') {
+                    if (++significant > 18) {
+                        return slowParse(buffer, start, end);
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                }
+                exponent--;
+                i++;
+            }
+        }
+        if (!digits) {
+            return slowParse(buffer, start, end);
+        }
+        if (i < end && ((b = buffer.get(i)) == 'e' || b == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && ((b = buffer.get(i)) == '-' || b == '+')) {
+                negativeExponent = b == '-';
+                i++;
+            }
+            if (i == end) {
+                return Double.NaN;
+            }
+            int e = 0;
+            while (i < end && (b = buffer.get(i)) >= '0' && b <= '9') {
+                if (e > 10000) {
+                    return slowParse(buffer, start, end);
+                }
+                e = e * 10 + (b - '0');
+                i++;
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (i != end) {
+            return slowParse(buffer, start, end);
+        }
+        final double value;
+        if (mantissa == 0) {
+            value = 0d;
+        } else if (mantissa <= MAX_EXACT && exponent >= -22 && exponent <= 22) {
+            value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return slowParse(buffer, start, end);
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isBlankOrQuote(final byte b) {
+        return b == ' ' || b == '\t' || b == '"';
+    }
+
+    private static double slowParse(final ByteBuffer buffer, final int start, final int end) {
+        final byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,479 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.function;
+
+/**
+ * Table and polynomial based approximations of the {@link Math} functions. Those which benchmark faster than the
+ * {@link Math} intrinsics, {@code exp} and {@code pow}, are bound to the builtin functions and the {@code ^}
+ * operator when an expression is built using {@link MathMode#FAST}.
+ * <p>
+ * The maximum errors given for each method are measured in ulps of the correctly rounded result over the whole
+ * finite domain of the function. NaN, infinite and zero arguments produce exactly the results of {@link Math}.
+ */
+public final class FastMath {
+
+    private static final double LN2_HI = 6.93147180369123816490e-01;
+    private static final double LN2_LO = 1.90821492927058770002e-10;
+
+    private static final double INV_LN2_64 = 0x1.71547652b82fep6;
+    private static final double LN2_64_HI = LN2_HI / 64d;
+    private static final double LN2_64_LO = LN2_LO / 64d;
+
+    private static final double EXP_OVERFLOW = 0x1.62e42fefa39efp9;
+    private static final double EXP_UNDERFLOW = -0x1.74910d52d3051p9;
+    private static final double ROUND_SHIFT = 0x1.8p52;
+
+    private static final long MANTISSA_MASK = 0x000fffffffffffffL;
+    private static final long EXPONENT_ONE = 0x3ff0000000000000L;
+
+    private static final double INV_PIO2 = 6.36619772367581382433e-01;
+    private static final double PIO2_1 = 1.57079632673412561417e+00;
+    private static final double PIO2_2 = 6.07710050630396597660e-11;
+    private static final double PIO2_2T = 2.02226624879595063154e-21;
+    private static final double MAX_REDUCIBLE = 0x1p19 * (Math.PI / 2d);
+
+    private static final double S1 = -1.66666666666666324348e-01;
+    private static final double S2 = 8.33333333332248946124e-03;
+    private static final double S3 = -1.98412698298579493134e-04;
+    private static final double S4 = 2.75573137070700676789e-06;
+    private static final double S5 = -2.50507602534068634195e-08;
+    private static final double S6 = 1.58969099521155010221e-10;
+
+    private static final double C1 = 4.16666666666666019037e-02;
+    private static final double C2 = -1.38888888888741095749e-03;
+    private static final double C3 = 2.48015872894767294178e-05;
+    private static final double C4 = -2.75573143513906633035e-07;
+    private static final double C5 = 2.08757232129817482790e-09;
+    private static final double C6 = -1.13596475577881948265e-11;
+
+    /*
+     * ln(c) for the table points c = 1 + j/128, j = 0..63, and c = (1 + j/128)/2, j = 64..128, split into a high and
+     * a low part
+     */
+    private static final double[] LOG_HI = {
+            0x0.0p0, 0x1.fe02a6b106789p-8, 0x1.fc0a8b0fc03e4p-7,
+            0x1.7b91b07d5b11bp-6, 0x1.f829b0e783300p-6, 0x1.39e87b9febd60p-5,
+            0x1.77458f632dcfcp-5, 0x1.b42dd711971bfp-5, 0x1.f0a30c01162a6p-5,
+            0x1.16536eea37ae1p-4, 0x1.341d7961bd1d1p-4, 0x1.51b073f06183fp-4,
+            0x1.6f0d28ae56b4cp-4, 0x1.8c345d6319b21p-4, 0x1.a926d3a4ad563p-4,
+            0x1.c5e548f5bc743p-4, 0x1.e27076e2af2e6p-4, 0x1.fec9131dbeabbp-4,
+            0x1.0d77e7cd08e59p-3, 0x1.1b72ad52f67a0p-3, 0x1.29552f81ff523p-3,
+            0x1.371fc201e8f74p-3, 0x1.44d2b6ccb7d1ep-3, 0x1.526e5e3a1b438p-3,
+            0x1.5ff3070a793d4p-3, 0x1.6d60fe719d21dp-3, 0x1.7ab890210d909p-3,
+            0x1.87fa06520c911p-3, 0x1.9525a9cf456b4p-3, 0x1.a23bc1fe2b563p-3,
+            0x1.af3c94e80bff3p-3, 0x1.bc286742d8cd6p-3, 0x1.c8ff7c79a9a22p-3,
+            0x1.d5c216b4fbb91p-3, 0x1.e27076e2af2e6p-3, 0x1.ef0adcbdc5936p-3,
+            0x1.fb9186d5e3e2bp-3, 0x1.0402594b4d041p-2, 0x1.0a324e27390e3p-2,
+            0x1.1058bf9ae4ad5p-2, 0x1.1675cababa60ep-2, 0x1.1c898c16999fbp-2,
+            0x1.22941fbcf7966p-2, 0x1.2895a13de86a3p-2, 0x1.2e8e2bae11d31p-2,
+            0x1.347dd9a987d55p-2, 0x1.3a64c556945eap-2, 0x1.404308686a7e4p-2,
+            0x1.4618bc21c5ec2p-2, 0x1.4be5f957778a1p-2, 0x1.51aad872df82dp-2,
+            0x1.5767717455a6cp-2, 0x1.5d1bdbf5809cap-2, 0x1.62c82f2b9c795p-2,
+            0x1.686c81e9b14afp-2, 0x1.6e08eaa2ba1e4p-2, 0x1.739d7f6bbd007p-2,
+            0x1.792a55fdd47a2p-2, 0x1.7eaf83b82afc3p-2, 0x1.842d1da1e8b17p-2,
+            0x1.89a3386c1425bp-2, 0x1.8f11e873662c7p-2, 0x1.947941c2116fbp-2,
+            0x1.99d958117e08bp-2, -0x1.269621134db92p-2, -0x1.214456d0eb8d4p-2,
+            -0x1.1bf99635a6b95p-2, -0x1.16b5ccbacfb73p-2, -0x1.1178e8227e47cp-2,
+            -0x1.0c42d676162e3p-2, -0x1.07138604d5862p-2, -0x1.01eae5626c691p-2,
+            -0x1.f991c6cb3b379p-3, -0x1.ef5ade4dcffe6p-3, -0x1.e530effe71012p-3,
+            -0x1.db13db0d48940p-3, -0x1.d1037f2655e7bp-3, -0x1.c6ffbc6f00f71p-3,
+            -0x1.bd087383bd8adp-3, -0x1.b31d8575bce3dp-3, -0x1.a93ed3c8ad9e3p-3,
+            -0x1.9f6c407089664p-3, -0x1.95a5adcf7017fp-3, -0x1.8beafeb38fe8cp-3,
+            -0x1.823c16551a3c2p-3, -0x1.7898d85444c73p-3, -0x1.6f0128b756abcp-3,
+            -0x1.6574ebe8c133ap-3, -0x1.5bf406b543db2p-3, -0x1.527e5e4a1b58dp-3,
+            -0x1.4913d8333b561p-3, -0x1.3fb45a59928ccp-3, -0x1.365fcb0159016p-3,
+            -0x1.2d1610c86813ap-3, -0x1.23d712a49c202p-3, -0x1.1aa2b7e23f72ap-3,
+            -0x1.1178e8227e47cp-3, -0x1.08598b59e3a07p-3, -0x1.fe89139dbd566p-4,
+            -0x1.ec739830a1120p-4, -0x1.da727638446a2p-4, -0x1.c885801bc4b23p-4,
+            -0x1.b6ac88dad5b1cp-4, -0x1.a4e7640b1bc38p-4, -0x1.9335e5d594989p-4,
+            -0x1.8197e2f40e3f0p-4, -0x1.700d30aeac0e1p-4, -0x1.5e95a4d9791cbp-4,
+            -0x1.4d3115d207eacp-4, -0x1.3bdf5a7d1ee64p-4, -0x1.2aa04a44717a5p-4,
+            -0x1.1973bd1465567p-4, -0x1.08598b59e3a07p-4, -0x1.eea31c006b87cp-5,
+            -0x1.ccb73cdddb2ccp-5, -0x1.aaef2d0fb10fcp-5, -0x1.894aa149fb343p-5,
+            -0x1.67c94f2d4bb58p-5, -0x1.466aed42de3eap-5, -0x1.252f32f8d183fp-5,
+            -0x1.0415d89e74444p-5, -0x1.c63d2ec14aaf2p-6, -0x1.8492528c8cabfp-6,
+            -0x1.432a925980cc1p-6, -0x1.0205658935847p-6, -0x1.82448a388a2aap-7,
+            -0x1.010157588de71p-7, -0x1.0080559588b35p-8, 0x0.0p0
+    };
+
+    private static final double[] LOG_LO = {
+            0x0.0p0, -0x1.e44b7e3711ebfp-67, -0x1.83092c59642a1p-62,
+            -0x1.5b602ace3a510p-60, 0x1.33e3f04f1ef23p-60, -0x1.5bfa937f551bbp-59,
+            0x1.18d3ca87b9296p-59, -0x1.eb9759c130499p-60, 0x1.85f325c5bbacdp-59,
+            -0x1.79da3e8c22cdap-60, -0x1.b599f227becbbp-58, 0x1.a49e39a1a8be4p-58,
+            -0x1.906d99184b992p-58, -0x1.4a697ab3424a9p-61, 0x1.942f48aa70ea9p-58,
+            0x1.5d617ef8161b1p-60, -0x1.61578001e0162p-60, -0x1.5746b9981b36cp-58,
+            0x1.9a5dc5e9030acp-57, 0x1.483023472cd74p-58, 0x1.301771c407dbfp-57,
+            0x1.de6cb62af18a0p-58, 0x1.9f4f6543e1f88p-57, -0x1.746ff8a470d3ap-57,
+            -0x1.bc60efafc6f6ep-58, -0x1.caae268ecd179p-57, 0x1.be36b2d6a0608p-59,
+            -0x1.bf7fdbfa08d9ap-57, 0x1.d904c1d4e2e26p-57, 0x1.93711b07a998cp-59,
+            -0x1.398cff3641985p-58, 0x1.4fce744870f55p-58, -0x1.4f689f8434012p-57,
+            0x1.6e443597e4d40p-57, -0x1.61578001e0162p-59, 0x1.48637950dc20dp-57,
+            -0x1.caaae64f21acbp-57, -0x1.28ec217a5022dp-57, 0x1.7dcfde8061c03p-56,
+            0x1.89fa0ab4cb31dp-58, 0x1.ce63eab883717p-61, -0x1.0e5c62aff1c44p-60,
+            -0x1.76f5eb09628afp-56, 0x1.7ad24c13f040ep-56, -0x1.8f4cdb95ebdf9p-56,
+            -0x1.4dd4c580919f8p-57, -0x1.c68651945f97cp-57, -0x1.0bcfb6082ce6dp-56,
+            0x1.f42decdeccf1dp-56, -0x1.259b35b04813dp-57, 0x1.3927ac19f55e3p-59,
+            0x1.526adb283660cp-56, 0x1.4236383dc7fe1p-56, 0x1.7b7af915300e5p-57,
+            -0x1.ddea0f7f58e3dp-57, -0x1.cfb1b39ca3a0fp-56, -0x1.8c76ceb014b04p-56,
+            0x1.f057691fe9ed7p-56, 0x1.92ce979ed2950p-56, 0x1.24ec519784676p-56,
+            -0x1.29639dfbbf0fbp-56, 0x1.f85da755a61a3p-56, -0x1.16cc8bae0bbe4p-56,
+            -0x1.a2b6889dc3e72p-57, -0x1.e0efadd9db02bp-56, -0x1.f7ae91aeba60ap-57,
+            0x1.12aeb84249223p-57, -0x1.66fbd28b40935p-56, 0x1.0e63a5f01c691p-57,
+            -0x1.162c79d5d11eep-58, -0x1.cdb16ed4e9138p-56, 0x1.18290bd2932e2p-59,
+            -0x1.f665066f980a2p-57, 0x1.08ab2ddc708a0p-58, -0x1.2276041f43042p-59,
+            -0x1.aa11d49f96cb9p-58, -0x1.60629242471a2p-57, 0x1.8e58b2c57a4a5p-57,
+            -0x1.dd355f6a516d7p-60, 0x1.6353ab386a94dp-57, -0x1.bcafa9de97203p-57,
+            -0x1.35a19605e67efp-59, -0x1.142c507fb7a3dp-58, -0x1.55aa8b6997a40p-58,
+            0x1.1232ce70be781p-57, -0x1.ef8f6ebcfb201p-58, 0x1.8de59c21e166cp-57,
+            0x1.d34f0f4621bedp-60, 0x1.1f5b44c0df7e7p-61, 0x1.71a9682395bfdp-61,
+            0x1.0d5604930f135p-58, 0x1.d87e6a354d056p-57, -0x1.7d411a5b944adp-58,
+            0x1.499a3f25af95fp-58, 0x1.6e38161051d69p-57, 0x1.c6ef1d9b2ef7ep-59,
+            0x1.0e63a5f01c691p-58, 0x1.dd7009902bf32p-57, 0x1.ac9f4215f9393p-58,
+            0x1.a2bf991780d3fp-59, -0x1.401fa71733019p-58, -0x1.a38cb559a6706p-58,
+            0x1.0057eed1ca59fp-59, 0x1.5b5ca203e4259p-58, 0x1.478a85704ccb7p-58,
+            -0x1.b9f2dffbeed43p-60, 0x1.72566212cdd05p-61, -0x1.f38745c5c450ap-58,
+            -0x1.769f42c7842ccp-58, -0x1.7a976d3b5b45fp-59, 0x1.d15d38d2fa3f7p-58,
+            0x1.7558367a6acf6p-59, 0x1.dd7009902bf32p-58, 0x1.3e4fc93b7b66cp-59,
+            0x1.e48fb0500efd4p-59, -0x1.a353bb42e0addp-61, -0x1.a8be97660a23dp-60,
+            -0x1.0413e6505e603p-59, 0x1.cdd6f7f4a137ep-59, 0x1.947f792615916p-59,
+            -0x1.c05cf1d753622p-59, 0x1.ce030a686bd86p-60, 0x1.d192d0619fa67p-60,
+            0x1.8cdaf39004192p-60, -0x1.27c8e8416e71fp-60, -0x1.04b16137f09a0p-62,
+            -0x1.46662d417ced0p-62, -0x1.f96638cf63677p-62, 0x0.0p0
+    };
+
+    /* the table points c and their reciprocals */
+    private static final double[] LOG_C = {
+            0x1.0000000000000p0, 0x1.0200000000000p0, 0x1.0400000000000p0,
+            0x1.0600000000000p0, 0x1.0800000000000p0, 0x1.0a00000000000p0,
+            0x1.0c00000000000p0, 0x1.0e00000000000p0, 0x1.1000000000000p0,
+            0x1.1200000000000p0, 0x1.1400000000000p0, 0x1.1600000000000p0,
+            0x1.1800000000000p0, 0x1.1a00000000000p0, 0x1.1c00000000000p0,
+            0x1.1e00000000000p0, 0x1.2000000000000p0, 0x1.2200000000000p0,
+            0x1.2400000000000p0, 0x1.2600000000000p0, 0x1.2800000000000p0,
+            0x1.2a00000000000p0, 0x1.2c00000000000p0, 0x1.2e00000000000p0,
+            0x1.3000000000000p0, 0x1.3200000000000p0, 0x1.3400000000000p0,
+            0x1.3600000000000p0, 0x1.3800000000000p0, 0x1.3a00000000000p0,
+            0x1.3c00000000000p0, 0x1.3e00000000000p0, 0x1.4000000000000p0,
+            0x1.4200000000000p0, 0x1.4400000000000p0, 0x1.4600000000000p0,
+            0x1.4800000000000p0, 0x1.4a00000000000p0, 0x1.4c00000000000p0,
+            0x1.4e00000000000p0, 0x1.5000000000000p0, 0x1.5200000000000p0,
+            0x1.5400000000000p0, 0x1.5600000000000p0, 0x1.5800000000000p0,
+            0x1.5a00000000000p0, 0x1.5c00000000000p0, 0x1.5e00000000000p0,
+            0x1.6000000000000p0, 0x1.6200000000000p0, 0x1.6400000000000p0,
+            0x1.6600000000000p0, 0x1.6800000000000p0, 0x1.6a00000000000p0,
+            0x1.6c00000000000p0, 0x1.6e00000000000p0, 0x1.7000000000000p0,
+            0x1.7200000000000p0, 0x1.7400000000000p0, 0x1.7600000000000p0,
+            0x1.7800000000000p0, 0x1.7a00000000000p0, 0x1.7c00000000000p0,
+            0x1.7e00000000000p0, 0x1.8000000000000p-1, 0x1.8200000000000p-1,
+            0x1.8400000000000p-1, 0x1.8600000000000p-1, 0x1.8800000000000p-1,
+            0x1.8a00000000000p-1, 0x1.8c00000000000p-1, 0x1.8e00000000000p-1,
+            0x1.9000000000000p-1, 0x1.9200000000000p-1, 0x1.9400000000000p-1,
+            0x1.9600000000000p-1, 0x1.9800000000000p-1, 0x1.9a00000000000p-1,
+            0x1.9c00000000000p-1, 0x1.9e00000000000p-1, 0x1.a000000000000p-1,
+            0x1.a200000000000p-1, 0x1.a400000000000p-1, 0x1.a600000000000p-1,
+            0x1.a800000000000p-1, 0x1.aa00000000000p-1, 0x1.ac00000000000p-1,
+            0x1.ae00000000000p-1, 0x1.b000000000000p-1, 0x1.b200000000000p-1,
+            0x1.b400000000000p-1, 0x1.b600000000000p-1, 0x1.b800000000000p-1,
+            0x1.ba00000000000p-1, 0x1.bc00000000000p-1, 0x1.be00000000000p-1,
+            0x1.c000000000000p-1, 0x1.c200000000000p-1, 0x1.c400000000000p-1,
+            0x1.c600000000000p-1, 0x1.c800000000000p-1, 0x1.ca00000000000p-1,
+            0x1.cc00000000000p-1, 0x1.ce00000000000p-1, 0x1.d000000000000p-1,
+            0x1.d200000000000p-1, 0x1.d400000000000p-1, 0x1.d600000000000p-1,
+            0x1.d800000000000p-1, 0x1.da00000000000p-1, 0x1.dc00000000000p-1,
+            0x1.de00000000000p-1, 0x1.e000000000000p-1, 0x1.e200000000000p-1,
+            0x1.e400000000000p-1, 0x1.e600000000000p-1, 0x1.e800000000000p-1,
+            0x1.ea00000000000p-1, 0x1.ec00000000000p-1, 0x1.ee00000000000p-1,
+            0x1.f000000000000p-1, 0x1.f200000000000p-1, 0x1.f400000000000p-1,
+            0x1.f600000000000p-1, 0x1.f800000000000p-1, 0x1.fa00000000000p-1,
+            0x1.fc00000000000p-1, 0x1.fe00000000000p-1, 0x1.0000000000000p0
+    };
+
+    private static final double[] LOG_INV = {
+            0x1.0000000000000p0, 0x1.fc07f01fc07f0p-1, 0x1.f81f81f81f820p-1,
+            0x1.f44659e4a4271p-1, 0x1.f07c1f07c1f08p-1, 0x1.ecc07b301ecc0p-1,
+            0x1.e9131abf0b767p-1, 0x1.e573ac901e574p-1, 0x1.e1e1e1e1e1e1ep-1,
+            0x1.de5d6e3f8868ap-1, 0x1.dae6076b981dbp-1, 0x1.d77b654b82c34p-1,
+            0x1.d41d41d41d41dp-1, 0x1.d0cb58f6ec074p-1, 0x1.cd85689039b0bp-1,
+            0x1.ca4b3055ee191p-1, 0x1.c71c71c71c71cp-1, 0x1.c3f8f01c3f8f0p-1,
+            0x1.c0e070381c0e0p-1, 0x1.bdd2b899406f7p-1, 0x1.bacf914c1bad0p-1,
+            0x1.b7d6c3dda338bp-1, 0x1.b4e81b4e81b4fp-1, 0x1.b2036406c80d9p-1,
+            0x1.af286bca1af28p-1, 0x1.ac5701ac5701bp-1, 0x1.a98ef606a63bep-1,
+            0x1.a6d01a6d01a6dp-1, 0x1.a41a41a41a41ap-1, 0x1.a16d3f97a4b02p-1,
+            0x1.9ec8e951033d9p-1, 0x1.9c2d14ee4a102p-1, 0x1.999999999999ap-1,
+            0x1.970e4f80cb872p-1, 0x1.948b0fcd6e9e0p-1, 0x1.920fb49d0e229p-1,
+            0x1.8f9c18f9c18fap-1, 0x1.8d3018d3018d3p-1, 0x1.8acb90f6bf3aap-1,
+            0x1.886e5f0abb04ap-1, 0x1.8618618618618p-1, 0x1.83c977ab2beddp-1,
+            0x1.8181818181818p-1, 0x1.7f405fd017f40p-1, 0x1.7d05f417d05f4p-1,
+            0x1.7ad2208e0ecc3p-1, 0x1.78a4c8178a4c8p-1, 0x1.767dce434a9b1p-1,
+            0x1.745d1745d1746p-1, 0x1.724287f46debcp-1, 0x1.702e05c0b8170p-1,
+            0x1.6e1f76b4337c7p-1, 0x1.6c16c16c16c17p-1, 0x1.6a13cd1537290p-1,
+            0x1.6816816816817p-1, 0x1.661ec6a5122f9p-1, 0x1.642c8590b2164p-1,
+            0x1.623fa77016240p-1, 0x1.6058160581606p-1, 0x1.5e75bb8d015e7p-1,
+            0x1.5c9882b931057p-1, 0x1.5ac056b015ac0p-1, 0x1.58ed2308158edp-1,
+            0x1.571ed3c506b3ap-1, 0x1.5555555555555p0, 0x1.5390948f40febp0,
+            0x1.51d07eae2f815p0, 0x1.5015015015015p0, 0x1.4e5e0a72f0539p0,
+            0x1.4cab88725af6ep0, 0x1.4afd6a052bf5bp0, 0x1.49539e3b2d067p0,
+            0x1.47ae147ae147bp0, 0x1.460cbc7f5cf9ap0, 0x1.446f86562d9fbp0,
+            0x1.42d6625d51f87p0, 0x1.4141414141414p0, 0x1.3fb013fb013fbp0,
+            0x1.3e22cbce4a902p0, 0x1.3c995a47babe7p0, 0x1.3b13b13b13b14p0,
+            0x1.3991c2c187f63p0, 0x1.3813813813814p0, 0x1.3698df3de0748p0,
+            0x1.3521cfb2b78c1p0, 0x1.33ae45b57bcb2p0, 0x1.323e34a2b10bfp0,
+            0x1.30d190130d190p0, 0x1.2f684bda12f68p0, 0x1.2e025c04b8097p0,
+            0x1.2c9fb4d812ca0p0, 0x1.2b404ad012b40p0, 0x1.29e4129e4129ep0,
+            0x1.288b01288b013p0, 0x1.27350b8812735p0, 0x1.25e22708092f1p0,
+            0x1.2492492492492p0, 0x1.23456789abcdfp0, 0x1.21fb78121fb78p0,
+            0x1.20b470c67c0d9p0, 0x1.1f7047dc11f70p0, 0x1.1e2ef3b3fb874p0,
+            0x1.1cf06ada2811dp0, 0x1.1bb4a4046ed29p0, 0x1.1a7b9611a7b96p0,
+            0x1.19453808ca29cp0, 0x1.1811811811812p0, 0x1.16e0689427379p0,
+            0x1.15b1e5f75270dp0, 0x1.1485f0e0acd3bp0, 0x1.135c81135c811p0,
+            0x1.12358e75d3033p0, 0x1.1111111111111p0, 0x1.0fef010fef011p0,
+            0x1.0ecf56be69c90p0, 0x1.0db20a88f4696p0, 0x1.0c9714fbcda3bp0,
+            0x1.0b7e6ec259dc8p0, 0x1.0a6810a6810a7p0, 0x1.0953f39010954p0,
+            0x1.0842108421084p0, 0x1.073260a47f7c6p0, 0x1.0624dd2f1a9fcp0,
+            0x1.05197f7d73404p0, 0x1.0410410410410p0, 0x1.03091b51f5e1ap0,
+            0x1.0204081020408p0, 0x1.0101010101010p0, 0x1.0000000000000p0
+    };
+
+    /* 2^(j/64) for j = 0..63 split into a high and a low part */
+    private static final double[] EXP_HI = {
+            0x1.0000000000000p0, 0x1.02c9a3e778061p0, 0x1.059b0d3158574p0,
+            0x1.0874518759bc8p0, 0x1.0b5586cf9890fp0, 0x1.0e3ec32d3d1a2p0,
+            0x1.11301d0125b51p0, 0x1.1429aaea92de0p0, 0x1.172b83c7d517bp0,
+            0x1.1a35beb6fcb75p0, 0x1.1d4873168b9aap0, 0x1.2063b88628cd6p0,
+            0x1.2387a6e756238p0, 0x1.26b4565e27cddp0, 0x1.29e9df51fdee1p0,
+            0x1.2d285a6e4030bp0, 0x1.306fe0a31b715p0, 0x1.33c08b26416ffp0,
+            0x1.371a7373aa9cbp0, 0x1.3a7db34e59ff7p0, 0x1.3dea64c123422p0,
+            0x1.4160a21f72e2ap0, 0x1.44e086061892dp0, 0x1.486a2b5c13cd0p0,
+            0x1.4bfdad5362a27p0, 0x1.4f9b2769d2ca7p0, 0x1.5342b569d4f82p0,
+            0x1.56f4736b527dap0, 0x1.5ab07dd485429p0, 0x1.5e76f15ad2148p0,
+            0x1.6247eb03a5585p0, 0x1.6623882552225p0, 0x1.6a09e667f3bcdp0,
+            0x1.6dfb23c651a2fp0, 0x1.71f75e8ec5f74p0, 0x1.75feb564267c9p0,
+            0x1.7a11473eb0187p0, 0x1.7e2f336cf4e62p0, 0x1.82589994cce13p0,
+            0x1.868d99b4492edp0, 0x1.8ace5422aa0dbp0, 0x1.8f1ae99157736p0,
+            0x1.93737b0cdc5e5p0, 0x1.97d829fde4e50p0, 0x1.9c49182a3f090p0,
+            0x1.a0c667b5de565p0, 0x1.a5503b23e255dp0, 0x1.a9e6b5579fdbfp0,
+            0x1.ae89f995ad3adp0, 0x1.b33a2b84f15fbp0, 0x1.b7f76f2fb5e47p0,
+            0x1.bcc1e904bc1d2p0, 0x1.c199bdd85529cp0, 0x1.c67f12e57d14bp0,
+            0x1.cb720dcef9069p0, 0x1.d072d4a07897cp0, 0x1.d5818dcfba487p0,
+            0x1.da9e603db3285p0, 0x1.dfc97337b9b5fp0, 0x1.e502ee78b3ff6p0,
+            0x1.ea4afa2a490dap0, 0x1.efa1bee615a27p0, 0x1.f50765b6e4540p0,
+            0x1.fa7c1819e90d8p0
+    };
+
+    private static final double[] EXP_LO = {
+            0x0.0p0, -0x1.19083535b085dp-56, 0x1.d73e2a475b465p-55,
+            0x1.186be4bb284ffp-57, 0x1.8a62e4adc610bp-54, 0x1.03a1727c57b53p-59,
+            -0x1.6c51039449b3ap-54, -0x1.32fbf9af1369ep-54, -0x1.19041b9d78a76p-55,
+            0x1.e5b4c7b4968e4p-55, 0x1.e016e00a2643cp-54, 0x1.dc775814a8495p-55,
+            0x1.9b07eb6c70573p-54, 0x1.2bd339940e9d9p-55, 0x1.612e8afad1255p-55,
+            0x1.0024754db41d5p-54, 0x1.6f46ad23182e4p-55, 0x1.32721843659a6p-54,
+            -0x1.63aeabf42eae2p-54, -0x1.5e436d661f5e3p-56, 0x1.ada0911f09ebcp-55,
+            -0x1.ef3691c309278p-58, 0x1.89b7a04ef80d0p-59, 0x1.3c1a3b69062f0p-56,
+            0x1.d4397afec42e2p-56, -0x1.4b309d25957e3p-54, -0x1.07abe1db13cadp-55,
+            0x1.9bb2c011d93adp-54, 0x1.6324c054647adp-54, 0x1.ba6f93080e65ep-54,
+            -0x1.383c17e40b497p-54, -0x1.bb60987591c34p-54, -0x1.bdd3413b26456p-54,
+            -0x1.bbe3a683c88abp-57, -0x1.16e4786887a99p-55, -0x1.0245957316dd3p-54,
+            -0x1.41577ee04992fp-55, 0x1.05d02ba15797ep-56, -0x1.d4c1dd41532d8p-54,
+            -0x1.fc6f89bd4f6bap-54, 0x1.6e9f156864b27p-54, 0x1.5cc13a2e3976cp-55,
+            -0x1.75fc781b57ebcp-57, -0x1.d185b7c1b85d1p-54, 0x1.c7c46b071f2bep-56,
+            -0x1.359495d1cd533p-54, -0x1.d2f6edb8d41e1p-54, 0x1.0fac90ef7fd31p-54,
+            0x1.7a1cd345dcc81p-54, -0x1.2805e3084d708p-57, -0x1.5584f7e54ac3bp-56,
+            0x1.23dd07a2d9e84p-55, 0x1.11065895048ddp-55, 0x1.2884dff483cadp-54,
+            0x1.503cbd1e949dbp-56, -0x1.cbc3743797a9cp-54, 0x1.2ed02d75b3707p-55,
+            0x1.c2300696db532p-54, -0x1.1a5cd4f184b5cp-54, 0x1.39e8980a9cc8fp-55,
+            -0x1.e9c23179c2893p-54, 0x1.dc7f486a4b6b0p-54, 0x1.9d3e12dd8a18bp-54,
+            0x1.74853f3a5931ep-55
+    };
+
+    private FastMath() {
+    }
+
+    /**
+     * Approximation of {@link Math#exp(double)} using a 64 entry table of powers of two and a degree 6 polynomial.
+     * The maximum error is 1 ulp.
+     *
+     * @param x the exponent
+     * @return e raised to the power of x
+     */
+    public static double exp(final double x) {
+        if (x > EXP_OVERFLOW) {
+            return Double.POSITIVE_INFINITY;
+        } else if (x < EXP_UNDERFLOW) {
+            return 0d;
+        } else if (x != x) {
+            return x;
+        }
+        /* x = (64m + j) * ln2/64 + r with |r| <= ln2/128, so that exp(x) = 2^m * 2^(j/64) * exp(r) */
+        double kd = x * INV_LN2_64 + ROUND_SHIFT;
+        final int k = (int) Double.doubleToRawLongBits(kd);
+        kd -= ROUND_SHIFT;
+        final double r = (x - kd * LN2_64_HI) - kd * LN2_64_LO;
+        final double p = r * (1d + r * (1d / 2d + r * (1d / 6d + r * (1d / 24d + r * (1d / 120d + r * (1d / 720d))))));
+        final double t = EXP_HI[k & 63];
+        final double y = t + (t * p + EXP_LO[k & 63]);
+        final int m = k >> 6;
+        if (m >= -1022 && m <= 1023) {
+            return y * Double.longBitsToDouble((long) (m + 1023) << 52);
+        }
+        return Math.scalb(y, m);
+    }
+
+    /**
+     * Approximation of {@link Math#log(double)} using a 129 entry table of logarithms and a degree 7 polynomial for
+     * the remainder. The maximum error is 2 ulp. Slower than the JIT compiler's intrinsic, so not bound by
+     * {@link MathMode#FAST}.
+     *
+     * @param x the value
+     * @return the natural logarithm of x
+     */
+    public static double log(final double x) {
+        if (!(x > 0d) || x == Double.POSITIVE_INFINITY) {
+            return x == 0d ? Double.NEGATIVE_INFINITY : (x < 0d ? Double.NaN : x);
+        }
+        long bits = Double.doubleToRawLongBits(x);
+        int e = (int) (bits >>> 52) - 1023;
+        if (e == -1023) {
+            bits = Double.doubleToRawLongBits(x * 0x1p54);
+            e = (int) (bits >>> 52) - 1023 - 54;
+        }
+        /* x = 2^e * m with m in [0.75, 1.5) and m = c * (1 + r) for the table point c nearest to m */
+        final int j = (int) (((bits & MANTISSA_MASK) + (1L << 44)) >>> 45);
+        double m = Double.longBitsToDouble((bits & MANTISSA_MASK) | EXPONENT_ONE);
+        if (j >= 64) {
+            m *= 0.5;
+            e++;
+        }
+        final double r = (m - LOG_C[j]) * LOG_INV[j];
+        final double p = r * r * (-1d / 2d + r * (1d / 3d + r * (-1d / 4d + r * (1d / 5d + r * (-1d / 6d
+                + r * (1d / 7d))))));
+        return (e * LN2_HI + LOG_HI[j]) + (r + (p + e * LN2_LO + LOG_LO[j]));
+    }
+
+    /**
+     * Approximation of {@link Math#pow(double, double)}. Integral exponents between -4 and 4 are evaluated using at
+     * most two multiplications and one division and have a maximum error of 2 ulp, 3 ulp for the exponent -4.
+     * Negative exponents whose power is subnormal or overflows are delegated to {@link Math#pow(double, double)}.
+     * An exponent of 0.5 is evaluated as a square root. No polynomial approximation of the general case is both
+     * accurate to a few ulps and faster than the JIT compiler's intrinsic, so all other exponents are delegated to
+     * {@link Math#pow(double, double)}.
+     *
+     * @param x the base
+     * @param y the exponent
+     * @return x raised to the power of y
+     */
+    public static double pow(final double x, final double y) {
+        if (y == 2d) {
+            return x * x;
+        } else if (y == 1d) {
+            return x;
+        } else if (y == 3d) {
+            return x * x * x;
+        } else if (y == 4d) {
+            final double sq = x * x;
+            return sq * sq;
+        } else if (y == -1d) {
+            return 1d / x;
+        } else if (y == -2d) {
+            return reciprocal(x * x, x, y);
+        } else if (y == -3d) {
+            return reciprocal(x * x * x, x, y);
+        } else if (y == -4d) {
+            final double sq = x * x;
+            return reciprocal(sq * sq, x, y);
+        } else if (y == 0.5 && x != Double.NEGATIVE_INFINITY) {
+            return Math.sqrt(x) + 0d;
+        }
+        return Math.pow(x, y);
+    }
+
+    /*
+     * The reciprocal of a power computed by multiplications, or Math.pow if the power is subnormal or overflows and
+     * so has lost the precision the reciprocal would magnify
+     */
+    private static double reciprocal(final double power, final double x, final double y) {
+        final double abs = Math.abs(power);
+        return abs >= Double.MIN_NORMAL && abs <= Double.MAX_VALUE ? 1d / power : Math.pow(x, y);
+    }
+
+    /**
+     * Approximation of {@link Math#sqrt(double)}. The square root is a single, correctly rounded hardware
+     * instruction on all platforms the JVM is commonly run on, which no approximation can beat in speed or
+     * accuracy, so this method delegates to {@link Math#sqrt(double)} and has no error.
+     *
+     * @param x the value
+     * @return the square root of x
+     */
+    public static double sqrt(final double x) {
+        return Math.sqrt(x);
+    }
+
+    /**
+     * Approximation of {@link Math#sin(double)} using a Cody-Waite reduction by pi/2 and minimax polynomials on
+     * [-pi/4, pi/4]. The maximum error is 2 ulp plus an absolute error below 2^-98 from the reduction, which only
+     * exceeds an ulp of the result for arguments within 2^-40 of a non-zero multiple of pi. Arguments larger than
+     * 2^19*pi/2 in magnitude require a full precision reduction and are delegated to {@link Math#sin(double)}. Slower
+     * than the JIT compiler's intrinsic, so not bound by {@link MathMode#FAST}.
+     *
+     * @param x the angle in radians
+     * @return the sine of x
+     */
+    public static double sin(final double x) {
+        if (!(Math.abs(x) <= MAX_REDUCIBLE)) {
+            return Math.sin(x);
+        } else if (Math.abs(x) < 0x1p-27) {
+            return x;
+        }
+        final double n = Math.rint(x * INV_PIO2);
+        final double r = ((x - n * PIO2_1) - n * PIO2_2) - n * PIO2_2T;
+        return quadrant(r, (int) n);
+    }
+
+    /**
+     * Approximation of {@link Math#cos(double)} using a Cody-Waite reduction by pi/2 and minimax polynomials on
+     * [-pi/4, pi/4]. The maximum error is 2 ulp plus an absolute error below 2^-98 from the reduction, which only
+     * exceeds an ulp of the result for arguments within 2^-40 of an odd multiple of pi/2. Arguments larger than
+     * 2^19*pi/2 in magnitude require a full precision reduction and are delegated to {@link Math#cos(double)}.
+     * Slower than the JIT compiler's intrinsic, so not bound by {@link MathMode#FAST}.
+     *
+     * @param x the angle in radians
+     * @return the cosine of x
+     */
+    public static double cos(final double x) {
+        if (!(Math.abs(x) <= MAX_REDUCIBLE)) {
+            return Math.cos(x);
+        } else if (Math.abs(x) < 0x1p-27) {
+            return 1d;
+        }
+        final double n = Math.rint(x * INV_PIO2);
+        final double r = ((x - n * PIO2_1) - n * PIO2_2) - n * PIO2_2T;
+        return quadrant(r, (int) n + 1);
+    }
+
+    /* sin(r + n * pi/2) for |r| <= pi/4 */
+    private static double quadrant(final double r, final int n) {
+        final double z = r * r;
+        final double value;
+        if ((n & 1) == 0) {
+            value = r + r * z * (S1 + z * (S2 + z * (S3 + z * (S4 + z * (S5 + z * S6)))));
+        } else {
+            final double hz = 0.5 * z;
+            final double w = 1d - hz;
+            value = w + (((1d - w) - hz) + z * z * (C1 + z * (C2 + z * (C3 + z * (C4 + z * (C5 + z * C6))))));
+        }
+        return (n & 2) == 0 ? value : -value;
+    }
+}
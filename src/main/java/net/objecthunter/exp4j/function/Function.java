@@ -71,6 +71,16 @@ public abstract class Function {
         return numArguments;
     }
 
+    /**
+     * Check if the function always returns the same result for the same arguments. Expressions calling a function
+     * which is not deterministic, such as {@code random}, bypass the result cache.
+     *
+     * @return true unless the function is overridden to return false
+     */
+    public boolean isDeterministic() {
+        return true;
+    }
+
     /**
      * Get the set of characters which are allowed for use in Function names.
      *
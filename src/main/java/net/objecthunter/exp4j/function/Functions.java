@@ -15,6 +15,8 @@
  */
 package net.objecthunter.exp4j.function;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -57,8 +59,50 @@ public class Functions {
     private static final int INDEX_MAX = 32;
     private static final int INDEX_RAND_RANGE = 33;
 
+    private static final double LN_2 = Math.log(2d);
+
     private static final Function[] BUILT_IN_FUNCTIONS = new Function[34];
 
+    private static final Function[] FAST_FUNCTIONS = new Function[34];
+
+    private static final Function NON_THROWING_COT = new Function1("cot") {
+        @Override
+        public double apply(final double arg) {
+            return 1d / Math.tan(arg);
+        }
+    };
+
+    private static final Function NON_THROWING_CSC = new Function1("csc") {
+        @Override
+        public double apply(final double arg) {
+            return 1d / Math.sin(arg);
+        }
+    };
+
+    private static final Function NON_THROWING_SEC = new Function1("sec") {
+        @Override
+        public double apply(final double arg) {
+            return 1d / Math.cos(arg);
+        }
+    };
+
+    private static final Function NON_THROWING_RAND_RANGE = new Function2("random") {
+        @Override
+        public double apply(final double arg1, final double arg2) {
+            if (Double.isNaN(arg1) || Double.isNaN(arg2) || Double.isInfinite(arg1) || Double.isInfinite(arg2)) {
+                return Double.NaN;
+            } else if (arg1 == arg2) {
+                return arg1;
+            }
+            return ThreadLocalRandom.current().nextDouble(Math.min(arg1, arg2), Math.max(arg1, arg2));
+        }
+
+        @Override
+        public boolean isDeterministic() {
+            return false;
+        }
+    };
+
     static {
         BUILT_IN_FUNCTIONS[INDEX_SIN] = new Function1("sin") {
             @Override
@@ -97,7 +141,7 @@ public class Functions {
         BUILT_IN_FUNCTIONS[INDEX_LOG2] = new Function1("log2") {
             @Override
             public double apply(final double arg) {
-                return Math.log(arg) / Math.log(2d);
+                return Math.log(arg) / LN_2;
             }
         };
         BUILT_IN_FUNCTIONS[INDEX_LOG10] = new Function1("log10") {
@@ -289,7 +333,36 @@ public class Functions {
                 }
                 return ThreadLocalRandom.current().nextDouble(arg1, arg2);
             }
+
+            @Override
+            public boolean isDeterministic() {
+                return false;
+            }
+        };
+
+        FAST_FUNCTIONS[INDEX_SQRT] = new Function1("sqrt") {
+            @Override
+            public double apply(final double arg) {
+                return FastMath.sqrt(arg);
+            }
+        };
+        FAST_FUNCTIONS[INDEX_POW] = new Function2("pow") {
+            @Override
+            public double apply(final double arg1, final double arg2) {
+                return FastMath.pow(arg1, arg2);
+            }
         };
+        FAST_FUNCTIONS[INDEX_EXP] = new Function1("exp") {
+            @Override
+            public double apply(final double arg) {
+                return FastMath.exp(arg);
+            }
+        };
+        for (int i = 0; i < FAST_FUNCTIONS.length; i++) {
+            if (FAST_FUNCTIONS[i] == null) {
+                FAST_FUNCTIONS[i] = BUILT_IN_FUNCTIONS[i];
+            }
+        }
     }
 
     /**
@@ -299,74 +372,124 @@ public class Functions {
      * @return a Function instance
      */
     public static Function getBuiltinFunction(final String name) {
+        return getBuiltinFunction(name, MathMode.STRICT);
+    }
+
+    /**
+     * Get the names of all builtin functions
+     *
+     * @return a new array holding the names
+     */
+    public static String[] getBuiltinFunctionNames() {
+        final List<String> names = new ArrayList<>(BUILT_IN_FUNCTIONS.length);
+        for (Function f : BUILT_IN_FUNCTIONS) {
+            if (getBuiltinFunction(f.getName()) == f) {
+                names.add(f.getName());
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    /**
+     * Get the variant of a builtin function which returns the IEEE 754 result, i.e. an infinity, for a zero divisor
+     * instead of throwing an {@link ArithmeticException}, and for {@code random} returns the bound for equal bounds
+     * and NaN for NaN or infinite bounds instead of throwing an {@link IllegalArgumentException}
+     *
+     * @param function the function
+     * @return the non-throwing variant of the function, or the function itself if it never throws
+     */
+    public static Function getNonThrowingFunction(final Function function) {
+        if (function == BUILT_IN_FUNCTIONS[INDEX_COT]) {
+            return NON_THROWING_COT;
+        } else if (function == BUILT_IN_FUNCTIONS[INDEX_CSC]) {
+            return NON_THROWING_CSC;
+        } else if (function == BUILT_IN_FUNCTIONS[INDEX_SEC]) {
+            return NON_THROWING_SEC;
+        } else if (function == BUILT_IN_FUNCTIONS[INDEX_RAND_RANGE]) {
+            return NON_THROWING_RAND_RANGE;
+        }
+        return function;
+    }
+
+    /**
+     * Get the builtin function for a given name bound to the implementation selected by the given {@link MathMode}
+     *
+     * @param name the name of the function
+     * @param mode the math mode to bind the function for
+     * @return a Function instance
+     */
+    public static Function getBuiltinFunction(final String name, final MathMode mode) {
+        final Function[] functions = mode == MathMode.FAST ? FAST_FUNCTIONS : BUILT_IN_FUNCTIONS;
 
         switch (name) {
             case "sin":
-                return BUILT_IN_FUNCTIONS[INDEX_SIN];
+                return functions[INDEX_SIN];
             case "cos":
-                return BUILT_IN_FUNCTIONS[INDEX_COS];
+                return functions[INDEX_COS];
             case "tan":
-                return BUILT_IN_FUNCTIONS[INDEX_TAN];
+                return functions[INDEX_TAN];
             case "cot":
-                return BUILT_IN_FUNCTIONS[INDEX_COT];
+                return functions[INDEX_COT];
             case "asin":
-                return BUILT_IN_FUNCTIONS[INDEX_ASIN];
+                return functions[INDEX_ASIN];
             case "acos":
-                return BUILT_IN_FUNCTIONS[INDEX_ACOS];
+                return functions[INDEX_ACOS];
             case "atan":
-                return BUILT_IN_FUNCTIONS[INDEX_ATAN];
+                return functions[INDEX_ATAN];
             case "sinh":
-                return BUILT_IN_FUNCTIONS[INDEX_SINH];
+                return functions[INDEX_SINH];
             case "cosh":
-                return BUILT_IN_FUNCTIONS[INDEX_COSH];
+                return functions[INDEX_COSH];
             case "tanh":
-                return BUILT_IN_FUNCTIONS[INDEX_TANH];
+                return functions[INDEX_TANH];
             case "abs":
-                return BUILT_IN_FUNCTIONS[INDEX_ABS];
+                return functions[INDEX_ABS];
             case "log":
-                return BUILT_IN_FUNCTIONS[INDEX_LOG];
+                return functions[INDEX_LOG];
             case "log10":
-                return BUILT_IN_FUNCTIONS[INDEX_LOG10];
+                return functions[INDEX_LOG10];
             case "log2":
-                return BUILT_IN_FUNCTIONS[INDEX_LOG2];
+                return functions[INDEX_LOG2];
             case "log1p":
-                return BUILT_IN_FUNCTIONS[INDEX_LOG1P];
+                return functions[INDEX_LOG1P];
+            case "logb":
+                return functions[INDEX_LOGB];
             case "ceil":
-                return BUILT_IN_FUNCTIONS[INDEX_CEIL];
+                return functions[INDEX_CEIL];
             case "floor":
-                return BUILT_IN_FUNCTIONS[INDEX_FLOOR];
+                return functions[INDEX_FLOOR];
             case "sqrt":
-                return BUILT_IN_FUNCTIONS[INDEX_SQRT];
+                return functions[INDEX_SQRT];
             case "cbrt":
-                return BUILT_IN_FUNCTIONS[INDEX_CBRT];
+                return functions[INDEX_CBRT];
             case "pow":
-                return BUILT_IN_FUNCTIONS[INDEX_POW];
+                return functions[INDEX_POW];
             case "exp":
-                return BUILT_IN_FUNCTIONS[INDEX_EXP];
+                return functions[INDEX_EXP];
             case "expm1":
-                return BUILT_IN_FUNCTIONS[INDEX_EXPM1];
+                return functions[INDEX_EXPM1];
             case "signum":
-                return BUILT_IN_FUNCTIONS[INDEX_SGN];
+                return functions[INDEX_SGN];
             case "csc":
-                return BUILT_IN_FUNCTIONS[INDEX_CSC];
+                return functions[INDEX_CSC];
             case "sec":
-                return BUILT_IN_FUNCTIONS[INDEX_SEC];
+                return functions[INDEX_SEC];
             case "csch":
-                return BUILT_IN_FUNCTIONS[INDEX_CSCH];
+                return functions[INDEX_CSCH];
             case "sech":
-                return BUILT_IN_FUNCTIONS[INDEX_SECH];
+                return functions[INDEX_SECH];
             case "coth":
-                return BUILT_IN_FUNCTIONS[INDEX_COTH];
+                return functions[INDEX_COTH];
             case "toradian":
-                return BUILT_IN_FUNCTIONS[INDEX_TO_RADIAN];
+                return functions[INDEX_TO_RADIAN];
             case "todegree":
-                return BUILT_IN_FUNCTIONS[INDEX_TO_DEGREE];
+                return functions[INDEX_TO_DEGREE];
             case "min":
-                return BUILT_IN_FUNCTIONS[INDEX_MIN];
+                return functions[INDEX_MIN];
             case "max":
-                return BUILT_IN_FUNCTIONS[INDEX_MAX];
+                return functions[INDEX_MAX];
             case "random":
-                return BUILT_IN_FUNCTIONS[INDEX_RAND_RANGE];
+                return functions[INDEX_RAND_RANGE];
             default:
                 return null;
         }
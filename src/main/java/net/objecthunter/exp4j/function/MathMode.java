@@ -0,0 +1,32 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.function;
+
+/**
+ * Selects the implementations the builtin functions and operators are bound to when an expression is built
+ */
+public enum MathMode {
+    /**
+     * Bind the builtin functions and operators to {@link Math}
+     */
+    STRICT,
+    /**
+     * Bind {@code exp}, {@code pow} and the {@code ^} operator to the approximations in {@link FastMath}, trading a
+     * maximum error of a few ulps for speed. The other functions stay bound to {@link Math}, whose intrinsics are
+     * faster than any approximation of them
+     */
+    FAST
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link MetricsListener} aggregating the measurements in striped counters and a logarithmic latency histogram,
+ * both in total and per expression string. An instance can be used for all expressions via
+ * {@link Metrics#setListener(MetricsListener)} and exposed as a JMX MBean via {@link #register(String)}.
+ * The number of expression strings counted individually is bounded, the evaluations of any further expressions are
+ * counted together under {@link #OTHER_EXPRESSIONS}.
+ */
+public class ExpressionMetrics implements MetricsListener, ExpressionMetricsMXBean {
+
+    /**
+     * The key the evaluations of the expressions beyond the bound are counted under
+     */
+    public static final String OTHER_EXPRESSIONS = "<other>";
+
+    /**
+     * The default number of expression strings counted individually
+     */
+    public static final int DEFAULT_MAX_EXPRESSIONS = 1000;
+
+    private static final int BUCKETS = 64;
+
+    private final int maxExpressions;
+
+    private final LongAdder builds = new LongAdder();
+
+    private final LongAdder tokens = new LongAdder();
+
+    private final LongAdder parseNanos = new LongAdder();
+
+    private final LongAdder buildNanos = new LongAdder();
+
+    private final LongAdder evaluations = new LongAdder();
+
+    private final LongAdder evaluationNanos = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Entry other = new Entry();
+
+    private static final class Entry {
+        final LongAdder evaluations = new LongAdder();
+
+        final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * Create a new instance counting up to {@link #DEFAULT_MAX_EXPRESSIONS} expression strings individually
+     */
+    public ExpressionMetrics() {
+        this(DEFAULT_MAX_EXPRESSIONS);
+    }
+
+    /**
+     * Create a new instance counting up to a given number of expression strings individually. The bound is checked
+     * without locking, so concurrent evaluations of new expressions may exceed it by the number of threads.
+     *
+     * @param maxExpressions the number of expression strings counted individually
+     */
+    public ExpressionMetrics(int maxExpressions) {
+        if (maxExpressions < 0) {
+            throw new IllegalArgumentException("The maximum number of expressions can not be negative");
+        }
+        this.maxExpressions = maxExpressions;
+    }
+
+    @Override
+    public void onBuild(String expression, int tokenCount, long parseNanos, long buildNanos) {
+        this.builds.increment();
+        this.tokens.add(tokenCount);
+        this.parseNanos.add(parseNanos);
+        this.buildNanos.add(buildNanos);
+    }
+
+    @Override
+    public void onEvaluation(String expression, int count, long nanos, int errors) {
+        if (count <= 0) {
+            return;
+        }
+        this.evaluations.add(count);
+        this.evaluationNanos.add(nanos);
+        this.histogram.addAndGet(bucket(nanos / count), count);
+        if (errors > 0) {
+            this.errors.add(errors);
+        }
+        if (expression != null) {
+            final Entry entry = entry(expression);
+            entry.evaluations.add(count);
+            if (errors > 0) {
+                entry.errors.add(errors);
+            }
+        }
+    }
+
+    private Entry entry(final String expression) {
+        final Entry entry = entries.get(expression);
+        if (entry != null) {
+            return entry;
+        } else if (entries.size() >= maxExpressions) {
+            return other;
+        }
+        return entries.computeIfAbsent(expression, e -> new Entry());
+    }
+
+    @Override
+    public void onCacheAccess(String cache, boolean hit) {
+        if (hit) {
+            this.cacheHits.increment();
+        } else {
+            this.cacheMisses.increment();
+        }
+    }
+
+    private static int bucket(final long nanos) {
+        return nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * Register this instance with the platform MBean server
+     *
+     * @param name the value of the {@code name} key of the object name
+     * @return the object name the instance has been registered with
+     */
+    public ObjectName register(String name) {
+        try {
+            final ObjectName objectName = objectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register the metrics MBean '" + name + "'", e);
+        }
+    }
+
+    /**
+     * Unregister an instance previously registered via {@link #register(String)} from the platform MBean server
+     *
+     * @param name the value of the {@code name} key of the object name
+     */
+    public static void unregister(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to unregister the metrics MBean '" + name + "'", e);
+        }
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("net.objecthunter.exp4j:type=ExpressionMetrics,name=" + ObjectName.quote(name));
+    }
+
+    @Override
+    public long getBuildCount() {
+        return builds.sum();
+    }
+
+    @Override
+    public long getTokenCount() {
+        return tokens.sum();
+    }
+
+    @Override
+    public double getMeanParseNanos() {
+        return mean(parseNanos.sum(), builds.sum());
+    }
+
+    @Override
+    public double getMeanBuildNanos() {
+        return mean(buildNanos.sum(), builds.sum());
+    }
+
+    @Override
+    public long getEvaluationCount() {
+        return evaluations.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanEvaluationNanos() {
+        return mean(evaluationNanos.sum(), evaluations.sum());
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        final long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return counts;
+    }
+
+    @Override
+    public long getLatencyPercentileNanos(double percentile) {
+        if (percentile < 0d || percentile > 100d) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100");
+        }
+        final long[] counts = getLatencyHistogram();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100d * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public Map<String, Long> getEvaluationCountByExpression() {
+        final Map<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            counts.put(e.getKey(), e.getValue().evaluations.sum());
+        }
+        if (other.evaluations.sum() > 0) {
+            counts.put(OTHER_EXPRESSIONS, other.evaluations.sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getErrorCountByExpression() {
+        final Map<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            counts.put(e.getKey(), e.getValue().errors.sum());
+        }
+        if (other.evaluations.sum() > 0) {
+            counts.put(OTHER_EXPRESSIONS, other.errors.sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        return mean(cacheHits.sum(), cacheHits.sum() + cacheMisses.sum());
+    }
+
+    @Override
+    public void reset() {
+        builds.reset();
+        tokens.reset();
+        parseNanos.reset();
+        buildNanos.reset();
+        evaluations.reset();
+        evaluationNanos.reset();
+        errors.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0);
+        }
+        entries.clear();
+        other.evaluations.reset();
+        other.errors.reset();
+    }
+
+    private static double mean(final long sum, final long count) {
+        return count == 0 ? 0d : (double) sum / count;
+    }
+}
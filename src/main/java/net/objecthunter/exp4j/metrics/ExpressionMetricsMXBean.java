@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX management interface of {@link ExpressionMetrics}
+ */
+public interface ExpressionMetricsMXBean {
+
+    long getBuildCount();
+
+    long getTokenCount();
+
+    double getMeanParseNanos();
+
+    double getMeanBuildNanos();
+
+    long getEvaluationCount();
+
+    long getErrorCount();
+
+    double getMeanEvaluationNanos();
+
+    /**
+     * Get the evaluation latency histogram, element {@code i} counts the evaluations which took between
+     * {@code 2^i} and {@code 2^(i+1)-1} nanoseconds
+     *
+     * @return the bucket counts
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Get an upper bound of the evaluation latency at a given percentile
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the upper bound of the histogram bucket containing the percentile in nanoseconds
+     */
+    long getLatencyPercentileNanos(double percentile);
+
+    Map<String, Long> getEvaluationCountByExpression();
+
+    Map<String, Long> getErrorCountByExpression();
+
+    long getCacheHitCount();
+
+    long getCacheMissCount();
+
+    double getCacheHitRate();
+
+    void reset();
+}
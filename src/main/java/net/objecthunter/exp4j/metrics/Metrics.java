@@ -0,0 +1,76 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.metrics;
+
+/**
+ * The switch and the listener of the metrics surface. Metrics are enabled by starting the JVM with the system
+ * property {@code exp4j.metrics=true}. The switch is a compile time constant for the JIT compiler, so with metrics
+ * disabled the instrumentation is removed from the compiled code of the evaluation loop entirely.
+ */
+public final class Metrics {
+
+    /**
+     * Whether metrics are recorded, read once from the system property {@code exp4j.metrics}
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("exp4j.metrics");
+
+    private static final MetricsListener NO_OP = new MetricsListener() {
+        @Override
+        public void onBuild(String expression, int tokenCount, long parseNanos, long buildNanos) {
+        }
+
+        @Override
+        public void onEvaluation(String expression, int count, long nanos, int errors) {
+        }
+
+        @Override
+        public void onCacheAccess(String cache, boolean hit) {
+        }
+    };
+
+    private static volatile MetricsListener listener = NO_OP;
+
+    private Metrics() {
+    }
+
+    /**
+     * Set the listener receiving the measurements while metrics are enabled
+     *
+     * @param listener the listener, e.g. an {@link ExpressionMetrics} instance
+     */
+    public static void setListener(MetricsListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("The metrics listener can not be null");
+        }
+        Metrics.listener = listener;
+    }
+
+    /**
+     * Remove the listener, discarding any further measurements
+     */
+    public static void clearListener() {
+        Metrics.listener = NO_OP;
+    }
+
+    /**
+     * Get the listener receiving the measurements
+     *
+     * @return the current listener, never null
+     */
+    public static MetricsListener getListener() {
+        return listener;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.metrics;
+
+/**
+ * Receives the measurements of parsing, building and evaluating expressions while metrics are enabled. All callbacks
+ * may be invoked concurrently from the threads doing the work and should return quickly.
+ */
+public interface MetricsListener {
+
+    /**
+     * Called after an expression has been built
+     *
+     * @param expression the expression string
+     * @param tokenCount the number of tokens of the built expression
+     * @param parseNanos the time spent tokenizing and converting the expression to reverse polish notation
+     * @param buildNanos the total time spent in {@link net.objecthunter.exp4j.ExpressionBuilder#build()}
+     */
+    void onBuild(String expression, int tokenCount, long parseNanos, long buildNanos);
+
+    /**
+     * Called after one or more evaluations of an expression
+     *
+     * @param expression the expression string
+     * @param count      the number of evaluations, i.e. 1 for a single evaluation or the number of rows of a batch
+     * @param nanos      the total time spent in the evaluations
+     * @param errors     the number of evaluations which threw an exception or were flagged with an error
+     */
+    void onEvaluation(String expression, int count, long nanos, int errors);
+
+    /**
+     * Called after a lookup in a cache of results
+     *
+     * @param cache the name of the cache
+     * @param hit   whether the lookup found a result
+     */
+    void onCacheAccess(String cache, boolean hit);
+
+    /**
+     * Called after a pass of the optimizer pipeline has run while an expression was built. Does nothing by default.
+     *
+     * @param expression  the expression string
+     * @param pass        the name of the pass
+     * @param nanos       the time spent in the pass
+     * @param nodesBefore the number of nodes of the expression tree before the pass
+     * @param nodesAfter  the number of nodes of the expression tree after the pass
+     */
+    default void onOptimization(String expression, String pass, long nanos, int nodesBefore, int nodesAfter) {
+    }
+}
@@ -52,6 +52,19 @@ public abstract class Operator {
      */
     public static final int PRECEDENCE_UNARY_PLUS = PRECEDENCE_UNARY_MINUS;
 
+    /**
+     * The precedence value for the comparison operations
+     */
+    public static final int PRECEDENCE_COMPARISON = 250;
+    /**
+     * The precedence value for the logical and operation
+     */
+    public static final int PRECEDENCE_AND = 150;
+    /**
+     * The precedence value for the logical or operation
+     */
+    public static final int PRECEDENCE_OR = 100;
+
     /**
      * The set of allowed operator chars
      */
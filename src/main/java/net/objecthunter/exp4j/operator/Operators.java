@@ -15,6 +15,9 @@
  */
 package net.objecthunter.exp4j.operator;
 
+import net.objecthunter.exp4j.function.FastMath;
+import net.objecthunter.exp4j.function.MathMode;
+
 public abstract class Operators {
     private static final int INDEX_ADDITION = 0;
     private static final int INDEX_SUBTRACTION = 1;
@@ -24,8 +27,32 @@ public abstract class Operators {
     private static final int INDEX_MODULO = 5;
     private static final int INDEX_UNARY_MINUS = 6;
     private static final int INDEX_UNARY_PLUS = 7;
+    private static final int INDEX_LESS_THAN = 8;
+    private static final int INDEX_GREATER_THAN = 9;
+    private static final int INDEX_EQUAL = 10;
+    private static final int INDEX_LESS_THAN_OR_EQUAL = 11;
+    private static final int INDEX_GREATER_THAN_OR_EQUAL = 12;
+    private static final int INDEX_NOT_EQUAL = 13;
+    private static final int INDEX_AND = 14;
+    private static final int INDEX_OR = 15;
+
+    private static final Operator[] BUILT_IN_OPERATORS = new Operator[16];
+
+    private static final Operator[] FAST_OPERATORS = new Operator[16];
+
+    private static final Operator NON_THROWING_DIVISION = new BinaryOperator("/", true, Operator.PRECEDENCE_DIVISION) {
+        @Override
+        public double apply(final double leftArg, final double rightArg) {
+            return leftArg / rightArg;
+        }
+    };
 
-    private static final Operator[] BUILT_IN_OPERATORS = new Operator[8];
+    private static final Operator NON_THROWING_MODULO = new BinaryOperator("%", true, Operator.PRECEDENCE_MODULO) {
+        @Override
+        public double apply(final double leftArg, final double rightArg) {
+            return leftArg % rightArg;
+        }
+    };
 
     static {
         BUILT_IN_OPERATORS[INDEX_ADDITION] = new BinaryOperator("+", true, Operator.PRECEDENCE_ADDITION) {
@@ -82,31 +109,175 @@ public abstract class Operators {
                 return leftArg % rightArg;
             }
         };
+        BUILT_IN_OPERATORS[INDEX_LESS_THAN] = new BinaryOperator("<", true, Operator.PRECEDENCE_COMPARISON) {
+            @Override
+            public double apply(final double leftArg, final double rightArg) {
+                return leftArg < rightArg ? 1d : 0d;
+            }
+        };
+        BUILT_IN_OPERATORS[INDEX_GREATER_THAN] = new BinaryOperator(">", true, Operator.PRECEDENCE_COMPARISON) {
+            @Override
+            public double apply(final double leftArg, final double rightArg) {
+                return leftArg > rightArg ? 1d : 0d;
+            }
+        };
+        BUILT_IN_OPERATORS[INDEX_EQUAL] = new BinaryOperator("=", true, Operator.PRECEDENCE_COMPARISON) {
+            @Override
+            public double apply(final double leftArg, final double rightArg) {
+                return leftArg == rightArg ? 1d : 0d;
+            }
+        };
+        BUILT_IN_OPERATORS[INDEX_LESS_THAN_OR_EQUAL] = new BinaryOperator("<=", true, Operator.PRECEDENCE_COMPARISON) {
+            @Override
+            public double apply(final double leftArg, final double rightArg) {
+                return leftArg <= rightArg ? 1d : 0d;
+            }
+        };
+        BUILT_IN_OPERATORS[INDEX_GREATER_THAN_OR_EQUAL] = new BinaryOperator(">=", true, Operator.PRECEDENCE_COMPARISON) {
+            @Override
+            public double apply(final double leftArg, final double rightArg) {
+                return leftArg >= rightArg ? 1d : 0d;
+            }
+        };
+        BUILT_IN_OPERATORS[INDEX_NOT_EQUAL] = new BinaryOperator("!=", true, Operator.PRECEDENCE_COMPARISON) {
+            @Override
+            public double apply(final double leftArg, final double rightArg) {
+                return leftArg != rightArg ? 1d : 0d;
+            }
+        };
+        BUILT_IN_OPERATORS[INDEX_AND] = new BinaryOperator("&", true, Operator.PRECEDENCE_AND) {
+            @Override
+            public double apply(final double leftArg, final double rightArg) {
+                return isTrue(leftArg) && isTrue(rightArg) ? 1d : 0d;
+            }
+        };
+        BUILT_IN_OPERATORS[INDEX_OR] = new BinaryOperator("|", true, Operator.PRECEDENCE_OR) {
+            @Override
+            public double apply(final double leftArg, final double rightArg) {
+                return isTrue(leftArg) || isTrue(rightArg) ? 1d : 0d;
+            }
+        };
+        FAST_OPERATORS[INDEX_POWER] = new BinaryOperator("^", false, Operator.PRECEDENCE_POWER) {
+            @Override
+            public double apply(final double leftArg, final double rightArg) {
+                return FastMath.pow(leftArg, rightArg);
+            }
+        };
+        for (int i = 0; i < FAST_OPERATORS.length; i++) {
+            if (FAST_OPERATORS[i] == null) {
+                FAST_OPERATORS[i] = BUILT_IN_OPERATORS[i];
+            }
+        }
+    }
+
+    /**
+     * Check if a value is true in the sense of the comparison and logical operators, which return 1 for true and 0
+     * for false and treat every value other than 0 and NaN as true
+     *
+     * @param value the value to check
+     * @return true if the value is neither 0 nor NaN
+     */
+    public static boolean isTrue(final double value) {
+        return value != 0d && value == value;
     }
 
     public static Operator getBuiltinOperator(final char symbol, final int numArguments) {
+        return getBuiltinOperator(symbol, numArguments, MathMode.STRICT);
+    }
+
+    /**
+     * Get the variant of a builtin operator which returns the IEEE 754 result, i.e. an infinity or NaN, for a zero
+     * divisor instead of throwing an {@link ArithmeticException}
+     *
+     * @param operator the operator
+     * @return the non-throwing variant of the operator, or the operator itself if it never throws
+     */
+    public static Operator getNonThrowingOperator(final Operator operator) {
+        if (operator == BUILT_IN_OPERATORS[INDEX_DIVISION]) {
+            return NON_THROWING_DIVISION;
+        } else if (operator == BUILT_IN_OPERATORS[INDEX_MODULO]) {
+            return NON_THROWING_MODULO;
+        }
+        return operator;
+    }
+
+    /**
+     * Get the builtin operator for a given symbol bound to the implementation selected by the given {@link MathMode}
+     *
+     * @param symbol       the symbol of the operator
+     * @param numArguments the number of operands of the operator
+     * @param mode         the math mode to bind the operator for
+     * @return an Operator instance or null if there is no builtin operator for the symbol
+     */
+    public static Operator getBuiltinOperator(final char symbol, final int numArguments, final MathMode mode) {
+        final Operator[] operators = mode == MathMode.FAST ? FAST_OPERATORS : BUILT_IN_OPERATORS;
         switch (symbol) {
             case '+':
                 if (numArguments != 1) {
-                    return BUILT_IN_OPERATORS[INDEX_ADDITION];
+                    return operators[INDEX_ADDITION];
                 }
 
-                return BUILT_IN_OPERATORS[INDEX_UNARY_PLUS];
+                return operators[INDEX_UNARY_PLUS];
             case '-':
                 if (numArguments != 1) {
-                    return BUILT_IN_OPERATORS[INDEX_SUBTRACTION];
+                    return operators[INDEX_SUBTRACTION];
                 }
 
-                return BUILT_IN_OPERATORS[INDEX_UNARY_MINUS];
+                return operators[INDEX_UNARY_MINUS];
             case '*':
-                return BUILT_IN_OPERATORS[INDEX_MULTIPLICATION];
+                return operators[INDEX_MULTIPLICATION];
             case '÷':
             case '/':
-                return BUILT_IN_OPERATORS[INDEX_DIVISION];
+                return operators[INDEX_DIVISION];
             case '^':
-                return BUILT_IN_OPERATORS[INDEX_POWER];
+                return operators[INDEX_POWER];
             case '%':
-                return BUILT_IN_OPERATORS[INDEX_MODULO];
+                return operators[INDEX_MODULO];
+            case '<':
+                return operators[INDEX_LESS_THAN];
+            case '>':
+                return operators[INDEX_GREATER_THAN];
+            case '=':
+                return operators[INDEX_EQUAL];
+            case '&':
+                return operators[INDEX_AND];
+            case '|':
+                return operators[INDEX_OR];
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Get the builtin operator for a symbol of two characters, i.e. the comparisons {@code <=}, {@code >=} and
+     * {@code !=}
+     *
+     * @param symbol the symbol of the operator
+     * @return an Operator instance or null if there is no builtin operator for the symbol
+     */
+    public static Operator getBuiltinOperator(final String symbol) {
+        return symbol.length() == 2 ? getBuiltinOperator(symbol.charAt(0), symbol.charAt(1)) : null;
+    }
+
+    /**
+     * Get the builtin operator for a symbol of two characters, i.e. the comparisons {@code <=}, {@code >=} and
+     * {@code !=}
+     *
+     * @param first  the first character of the symbol
+     * @param second the second character of the symbol
+     * @return an Operator instance or null if there is no builtin operator for the symbol
+     */
+    public static Operator getBuiltinOperator(final char first, final char second) {
+        if (second != '=') {
+            return null;
+        }
+        switch (first) {
+            case '<':
+                return BUILT_IN_OPERATORS[INDEX_LESS_THAN_OR_EQUAL];
+            case '>':
+                return BUILT_IN_OPERATORS[INDEX_GREATER_THAN_OR_EQUAL];
+            case '!':
+                return BUILT_IN_OPERATORS[INDEX_NOT_EQUAL];
             default:
                 return null;
         }
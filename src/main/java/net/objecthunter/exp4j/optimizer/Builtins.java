@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+import net.objecthunter.exp4j.function.Function;
+import net.objecthunter.exp4j.function.Functions;
+import net.objecthunter.exp4j.function.MathMode;
+import net.objecthunter.exp4j.operator.Operator;
+import net.objecthunter.exp4j.operator.Operators;
+
+/**
+ * Helpers to recognize the builtin operators and functions in an expression tree regardless of the
+ * {@link MathMode} and error policy they have been bound for
+ */
+final class Builtins {
+
+    static final Operator ADDITION = Operators.getBuiltinOperator('+', 2);
+    static final Operator SUBTRACTION = Operators.getBuiltinOperator('-', 2);
+    static final Operator MULTIPLICATION = Operators.getBuiltinOperator('*', 2);
+    static final Operator UNARY_MINUS = Operators.getBuiltinOperator('-', 1);
+
+    private Builtins() {
+    }
+
+    /**
+     * Check if a node is the given builtin operator
+     *
+     * @param node     the node to check
+     * @param symbol   the symbol of the builtin operator
+     * @param operands the number of operands of the builtin operator
+     * @return true if the node's operator is the builtin operator in any math mode
+     */
+    static boolean isOperator(final Node node, final char symbol, final int operands) {
+        final Operator op = node.getOperator();
+        if (op == null) {
+            return false;
+        }
+        final Operator strict = Operators.getBuiltinOperator(symbol, operands, MathMode.STRICT);
+        return op == strict || op == Operators.getBuiltinOperator(symbol, operands, MathMode.FAST)
+                || op == Operators.getNonThrowingOperator(strict);
+    }
+
+    /**
+     * Check if a node is the given builtin function
+     *
+     * @param node the node to check
+     * @param name the name of the builtin function
+     * @return true if the node's function is the builtin function in any math mode
+     */
+    static boolean isFunction(final Node node, final String name) {
+        final Function f = node.getFunction();
+        if (f == null) {
+            return false;
+        }
+        final Function strict = Functions.getBuiltinFunction(name, MathMode.STRICT);
+        return f == strict || f == Functions.getBuiltinFunction(name, MathMode.FAST)
+                || f == Functions.getNonThrowingFunction(strict);
+    }
+}
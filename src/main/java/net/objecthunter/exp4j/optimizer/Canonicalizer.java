@@ -0,0 +1,182 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+import net.objecthunter.exp4j.tokenizer.FunctionToken;
+import net.objecthunter.exp4j.tokenizer.NumberToken;
+import net.objecthunter.exp4j.tokenizer.OperatorToken;
+import net.objecthunter.exp4j.tokenizer.Token;
+import net.objecthunter.exp4j.tokenizer.VariableToken;
+
+/**
+ * Build time pass which brings structurally equivalent expressions into the same canonical form, and the structural
+ * hash and equality of token arrays in that form. Whitespace, bracket style and implicit multiplication already
+ * vanish in reverse polish notation, so the pass only orders the operands of the builtin commutative operators
+ * {@code +} and {@code *} by a total order on subtrees. Swapping the operands of a single addition or multiplication
+ * is bit-exact, associativity is deliberately not exploited since regrouping changes the rounding.
+ */
+public final class Canonicalizer {
+
+    private Canonicalizer() {
+    }
+
+    /**
+     * Bring a token array into canonical form
+     *
+     * @param tokens the tokens in reverse polish notation
+     * @return the canonical tokens, or the given tokens if they do not form a well formed expression
+     */
+    public static Token[] apply(final Token[] tokens) {
+        final Node root = Node.fromRPN(tokens);
+        return root == null ? tokens : canonicalize(root).toRPN();
+    }
+
+    /**
+     * Bring the tree rooted at a node into canonical form
+     *
+     * @param node the root node
+     * @return the root of the canonical tree
+     */
+    public static Node canonicalize(final Node node) {
+        if (node.isLeaf()) {
+            return node;
+        }
+        final Node[] children = new Node[node.getChildCount()];
+        boolean changed = false;
+        for (int i = 0; i < children.length; i++) {
+            children[i] = canonicalize(node.getChild(i));
+            changed |= children[i] != node.getChild(i);
+        }
+        if ((Builtins.isOperator(node, '+', 2) || Builtins.isOperator(node, '*', 2))
+                && compare(children[0], children[1]) > 0) {
+            final Node first = children[0];
+            children[0] = children[1];
+            children[1] = first;
+            changed = true;
+        }
+        return changed ? new Node(node.getToken(), children) : node;
+    }
+
+    /**
+     * Compute the structural hash of a token array, consistent with {@link #structurallyEqual(Token[], Token[])}
+     *
+     * @param tokens the tokens
+     * @return the hash
+     */
+    public static int structuralHash(final Token[] tokens) {
+        int hash = 1;
+        for (final Token token : tokens) {
+            hash = 31 * hash + hash(token);
+        }
+        return hash;
+    }
+
+    /**
+     * Check if two token arrays are structurally equal, i.e. hold the same token types, bitwise equal numbers,
+     * equally named variables and the same operator and function instances in the same order
+     *
+     * @param a the first tokens
+     * @param b the second tokens
+     * @return true if both arrays are structurally equal
+     */
+    public static boolean structurallyEqual(final Token[] a, final Token[] b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.length != b.length) {
+            return false;
+        }
+        for (int i = 0; i < a.length; i++) {
+            if (compare(a[i], b[i]) != 0 || !sameInstance(a[i], b[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(final Token token) {
+        switch (token.getType()) {
+            case Token.TOKEN_NUMBER:
+                return Double.hashCode(((NumberToken) token).getValue());
+            case Token.TOKEN_VARIABLE:
+                return ((VariableToken) token).getName().hashCode();
+            case Token.TOKEN_OPERATOR:
+                return System.identityHashCode(((OperatorToken) token).getOperator());
+            case Token.TOKEN_FUNCTION:
+                return System.identityHashCode(((FunctionToken) token).getFunction());
+            default:
+                return token.getType();
+        }
+    }
+
+    private static boolean sameInstance(final Token a, final Token b) {
+        if (a.getType() == Token.TOKEN_OPERATOR) {
+            return ((OperatorToken) a).getOperator() == ((OperatorToken) b).getOperator();
+        } else if (a.getType() == Token.TOKEN_FUNCTION) {
+            return ((FunctionToken) a).getFunction() == ((FunctionToken) b).getFunction();
+        }
+        return true;
+    }
+
+    private static int compare(final Node a, final Node b) {
+        int result = compare(a.getToken(), b.getToken());
+        if (result != 0) {
+            return result;
+        }
+        result = Integer.compare(a.getChildCount(), b.getChildCount());
+        for (int i = 0; result == 0 && i < a.getChildCount(); i++) {
+            result = compare(a.getChild(i), b.getChild(i));
+        }
+        return result;
+    }
+
+    /* orders by type, then value, name or symbol, then by instance for distinct operators sharing a symbol */
+    private static int compare(final Token a, final Token b) {
+        if (a.getType() != b.getType()) {
+            return Integer.compare(a.getType(), b.getType());
+        }
+        switch (a.getType()) {
+            case Token.TOKEN_NUMBER:
+                return Long.compare(Double.doubleToRawLongBits(((NumberToken) a).getValue()),
+                        Double.doubleToRawLongBits(((NumberToken) b).getValue()));
+            case Token.TOKEN_VARIABLE:
+                return ((VariableToken) a).getName().compareTo(((VariableToken) b).getName());
+            case Token.TOKEN_OPERATOR:
+                final OperatorToken opA = (OperatorToken) a;
+                final OperatorToken opB = (OperatorToken) b;
+                int result = opA.getOperator().getSymbol().compareTo(opB.getOperator().getSymbol());
+                if (result == 0) {
+                    result = Integer.compare(opA.getOperator().getNumOperands(), opB.getOperator().getNumOperands());
+                }
+                if (result == 0) {
+                    result = Integer.compare(System.identityHashCode(opA.getOperator()),
+                            System.identityHashCode(opB.getOperator()));
+                }
+                return result;
+            case Token.TOKEN_FUNCTION:
+                final FunctionToken fA = (FunctionToken) a;
+                final FunctionToken fB = (FunctionToken) b;
+                int order = fA.getFunction().getName().compareTo(fB.getFunction().getName());
+                if (order == 0) {
+                    order = Integer.compare(System.identityHashCode(fA.getFunction()),
+                            System.identityHashCode(fB.getFunction()));
+                }
+                return order;
+            default:
+                return 0;
+        }
+    }
+}
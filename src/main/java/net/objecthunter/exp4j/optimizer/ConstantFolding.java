@@ -0,0 +1,141 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+import net.objecthunter.exp4j.function.Function;
+import net.objecthunter.exp4j.function.Function0;
+import net.objecthunter.exp4j.function.Function1;
+import net.objecthunter.exp4j.function.Function2;
+import net.objecthunter.exp4j.operator.BinaryOperator;
+import net.objecthunter.exp4j.operator.Operator;
+import net.objecthunter.exp4j.operator.UnaryOperator;
+import net.objecthunter.exp4j.tokenizer.Token;
+
+/**
+ * Pass which evaluates the operators and functions whose operands are all numbers and replaces them by their result,
+ * and removes the operations which leave their operand unchanged: {@code x*1}, {@code 1*x}, {@code x/1},
+ * {@code x-0}, {@code x^1}, {@code pow(x, 1)} and the unary plus. The folded expression evaluates to the same bits as
+ * the original, except that {@code x^1} in {@link net.objecthunter.exp4j.function.MathMode#FAST} becomes exact.
+ * <p>
+ * Functions which are not deterministic are never folded. An operation whose evaluation throws, e.g. a division by
+ * zero under {@link net.objecthunter.exp4j.ErrorPolicy#THROW}, is kept so that it throws when evaluated, and so is
+ * an operation which produces a NaN or an infinity from finite operands, so that
+ * {@link net.objecthunter.exp4j.ErrorPolicy#FLAG} still flags it.
+ */
+public final class ConstantFolding {
+
+    private ConstantFolding() {
+    }
+
+    /**
+     * Fold the constants of an expression in reverse polish notation
+     *
+     * @param tokens the tokens in reverse polish notation
+     * @return the folded tokens, or the given tokens if they do not form a well formed expression
+     */
+    public static Token[] apply(final Token[] tokens) {
+        final Node root = Node.fromRPN(tokens);
+        return root == null ? tokens : fold(root).toRPN();
+    }
+
+    /**
+     * Fold the constants of an expression tree
+     *
+     * @param node the root of the tree
+     * @return the root of the folded tree
+     */
+    public static Node fold(final Node node) {
+        if (node.isLeaf()) {
+            return node;
+        }
+        final Node[] children = new Node[node.getChildCount()];
+        boolean changed = false;
+        boolean constant = true;
+        for (int i = 0; i < children.length; i++) {
+            children[i] = fold(node.getChild(i));
+            changed |= children[i] != node.getChild(i);
+            constant &= children[i].isNumber();
+        }
+        final Node folded = changed ? new Node(node.getToken(), children) : node;
+        if (constant) {
+            final Node number = evaluate(folded);
+            if (number != null) {
+                return number;
+            }
+        }
+        return identity(folded);
+    }
+
+    /*
+     * Evaluate an operation on numbers, or return null if it must be kept
+     */
+    private static Node evaluate(final Node node) {
+        final double[] args = new double[node.getChildCount()];
+        boolean finite = true;
+        for (int i = 0; i < args.length; i++) {
+            args[i] = node.getChild(i).getNumber();
+            finite &= Double.isFinite(args[i]);
+        }
+        final double result;
+        try {
+            final Operator operator = node.getOperator();
+            final Function function = node.getFunction();
+            if (operator instanceof BinaryOperator) {
+                result = ((BinaryOperator) operator).apply(args[0], args[1]);
+            } else if (operator instanceof UnaryOperator) {
+                result = ((UnaryOperator) operator).apply(args[0]);
+            } else if (function == null || !function.isDeterministic()) {
+                return null;
+            } else if (function instanceof Function0) {
+                result = ((Function0) function).apply();
+            } else if (function instanceof Function1) {
+                result = ((Function1) function).apply(args[0]);
+            } else if (function instanceof Function2) {
+                result = ((Function2) function).apply(args[0], args[1]);
+            } else {
+                return null;
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return Double.isFinite(result) || !finite ? Node.number(result) : null;
+    }
+
+    private static Node identity(final Node node) {
+        if (Builtins.isOperator(node, '*', 2)) {
+            if (node.getChild(1).isNumber(1d)) {
+                return node.getChild(0);
+            } else if (node.getChild(0).isNumber(1d)) {
+                return node.getChild(1);
+            }
+        } else if (Builtins.isOperator(node, '/', 2)) {
+            if (node.getChild(1).isNumber(1d)) {
+                return node.getChild(0);
+            }
+        } else if (Builtins.isOperator(node, '-', 2)) {
+            if (node.getChild(1).isNumber(0d)) {
+                return node.getChild(0);
+            }
+        } else if (Builtins.isOperator(node, '^', 2) || Builtins.isFunction(node, "pow")) {
+            if (node.getChild(1).isNumber(1d)) {
+                return node.getChild(0);
+            }
+        } else if (Builtins.isOperator(node, '+', 1)) {
+            return node.getChild(0);
+        }
+        return node;
+    }
+}
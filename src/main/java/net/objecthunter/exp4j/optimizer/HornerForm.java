@@ -0,0 +1,286 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+import net.objecthunter.exp4j.tokenizer.Token;
+import net.objecthunter.exp4j.tokenizer.VariableToken;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Build time pass which rewrites polynomials in a variable into Horner form. A sum of terms, each a product of a
+ * power of the variable {@code x} ({@code x}, {@code x^n} or {@code pow(x, n)} with a non-negative integer
+ * {@code n} up to 32) and of factors free of {@code x}, becomes {@code ((c_n*x + c_n-1)*x + ...)*x + c_0}. The
+ * coefficients may be expressions of other variables and are themselves rewritten. Terms of the sum which contain
+ * {@code x} but are not such monomials are added after the polynomial. Of the variables of a sum the one giving the
+ * highest degree is chosen, and sums of degree less than 2 are left as they are.
+ * <p>
+ * The rewrite is not bit-exact. For finite inputs the result differs from the original sum by less than
+ * {@code 2n} units of roundoff relative to {@code sum |c_k*x^k|}, the bound of both Horner's scheme and of summing
+ * the terms. Infinite or NaN inputs can produce NaN where the original produced an infinity and vice versa, e.g. for
+ * {@code x^2 - x} at {@code x = Infinity}.
+ */
+public final class HornerForm {
+
+    private static final int MAX_DEGREE = 32;
+
+    private HornerForm() {
+    }
+
+    /**
+     * Rewrite the polynomials of an expression in reverse polish notation
+     *
+     * @param tokens the tokens in reverse polish notation
+     * @return the rewritten tokens, or the given tokens if they do not form a well formed expression
+     */
+    public static Token[] apply(final Token[] tokens) {
+        final Node root = Node.fromRPN(tokens);
+        return root == null ? tokens : rewrite(root).toRPN();
+    }
+
+    /**
+     * Rewrite the polynomials of an expression tree
+     *
+     * @param node the root of the tree
+     * @return the root of the rewritten tree
+     */
+    public static Node rewrite(final Node node) {
+        if (node.isLeaf()) {
+            return node;
+        }
+        if (isSumOrProduct(node)) {
+            final Node horner = horner(node);
+            if (horner != null) {
+                return horner;
+            }
+        }
+        final Node[] children = new Node[node.getChildCount()];
+        boolean changed = false;
+        for (int i = 0; i < children.length; i++) {
+            children[i] = rewrite(node.getChild(i));
+            changed |= children[i] != node.getChild(i);
+        }
+        return changed ? new Node(node.getToken(), children) : node;
+    }
+
+    private static boolean isSumOrProduct(final Node node) {
+        return Builtins.isOperator(node, '+', 2) || Builtins.isOperator(node, '-', 2)
+                || Builtins.isOperator(node, '-', 1) || Builtins.isOperator(node, '*', 2)
+                || Builtins.isOperator(node, '^', 2) || Builtins.isFunction(node, "pow");
+    }
+
+    /**
+     * A term of a sum: the sign, the degree in the variable and the other factors
+     */
+    private static final class Term {
+        final Node node;
+        boolean negative;
+        int degree;
+        final List<Node> factors = new ArrayList<>();
+
+        Term(final Node node, final boolean negative) {
+            this.node = node;
+            this.negative = negative;
+        }
+    }
+
+    /* rewrite a sum in the variable of the highest degree, or return null if no variable has a degree of 2 */
+    private static Node horner(final Node sum) {
+        final List<Node> addends = new ArrayList<>();
+        final List<Boolean> signs = new ArrayList<>();
+        flatten(sum, false, addends, signs);
+        final Set<Node> candidates = new LinkedHashSet<>();
+        for (Node addend : addends) {
+            collectBases(addend, candidates);
+        }
+        List<Term> best = null;
+        Node variable = null;
+        int bestDegree = 1;
+        final Set<String> tried = new LinkedHashSet<>();
+        for (Node candidate : candidates) {
+            final String name = ((VariableToken) candidate.getToken()).getName();
+            if (!tried.add(name)) {
+                continue;
+            }
+            final List<Term> terms = new ArrayList<>(addends.size());
+            int degree = 0;
+            for (int i = 0; i < addends.size(); i++) {
+                final Term term = new Term(addends.get(i), signs.get(i));
+                if (!collect(addends.get(i), name, term)) {
+                    /* the addend is kept as it is, undo the negations collect has already applied */
+                    term.negative = signs.get(i);
+                    term.degree = -1;
+                    term.factors.clear();
+                }
+                degree = Math.max(degree, term.degree);
+                terms.add(term);
+            }
+            if (degree > bestDegree) {
+                bestDegree = degree;
+                best = terms;
+                variable = candidate;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        return emit(best, variable, bestDegree);
+    }
+
+    /* flatten nested additions, subtractions and negations into signed addends */
+    private static void flatten(final Node node, final boolean negative, final List<Node> addends,
+                                final List<Boolean> signs) {
+        if (Builtins.isOperator(node, '+', 2)) {
+            flatten(node.getChild(0), negative, addends, signs);
+            flatten(node.getChild(1), negative, addends, signs);
+        } else if (Builtins.isOperator(node, '-', 2)) {
+            flatten(node.getChild(0), negative, addends, signs);
+            flatten(node.getChild(1), !negative, addends, signs);
+        } else if (Builtins.isOperator(node, '-', 1)) {
+            flatten(node.getChild(0), !negative, addends, signs);
+        } else {
+            addends.add(node);
+            signs.add(negative);
+        }
+    }
+
+    /* collect the variables which are the base of a monomial factor of an addend */
+    private static void collectBases(final Node node, final Set<Node> bases) {
+        if (Builtins.isOperator(node, '*', 2)) {
+            collectBases(node.getChild(0), bases);
+            collectBases(node.getChild(1), bases);
+        } else if (Builtins.isOperator(node, '-', 1)) {
+            collectBases(node.getChild(0), bases);
+        } else if (node.getType() == Token.TOKEN_VARIABLE) {
+            bases.add(node);
+        } else if ((Builtins.isOperator(node, '^', 2) || Builtins.isFunction(node, "pow"))
+                && node.getChild(0).getType() == Token.TOKEN_VARIABLE && exponent(node.getChild(1)) >= 0) {
+            bases.add(node.getChild(0));
+        }
+    }
+
+    /* split a product into the power of the variable and the other factors, false if it is not a monomial */
+    private static boolean collect(final Node node, final String variable, final Term term) {
+        if (Builtins.isOperator(node, '*', 2)) {
+            return collect(node.getChild(0), variable, term) && collect(node.getChild(1), variable, term);
+        } else if (Builtins.isOperator(node, '-', 1)) {
+            term.negative = !term.negative;
+            return collect(node.getChild(0), variable, term);
+        } else if (isVariable(node, variable)) {
+            term.degree++;
+        } else if ((Builtins.isOperator(node, '^', 2) || Builtins.isFunction(node, "pow"))
+                && isVariable(node.getChild(0), variable) && exponent(node.getChild(1)) >= 0) {
+            term.degree += exponent(node.getChild(1));
+        } else if (!contains(node, variable)) {
+            term.factors.add(node);
+            return true;
+        } else {
+            return false;
+        }
+        return term.degree <= MAX_DEGREE;
+    }
+
+    private static int exponent(final Node node) {
+        if (!node.isNumber()) {
+            return -1;
+        }
+        final double n = node.getNumber();
+        return n >= 0d && n <= MAX_DEGREE && n == Math.rint(n) ? (int) n : -1;
+    }
+
+    private static boolean isVariable(final Node node, final String variable) {
+        return node.getType() == Token.TOKEN_VARIABLE && ((VariableToken) node.getToken()).getName().equals(variable);
+    }
+
+    private static boolean contains(final Node node, final String variable) {
+        if (isVariable(node, variable)) {
+            return true;
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            if (contains(node.getChild(i), variable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Node emit(final List<Term> terms, final Node variable, final int degree) {
+        /* the signed coefficient of each degree, the sum of the coefficients of its terms */
+        final Node[] coefficients = new Node[degree + 1];
+        final boolean[] negative = new boolean[degree + 1];
+        Node rest = null;
+        for (Term term : terms) {
+            if (term.degree < 0) {
+                final Node other = rewriteChildren(term.node);
+                rest = rest == null ? signed(other, term.negative)
+                        : Node.operator(term.negative ? Builtins.SUBTRACTION : Builtins.ADDITION, rest, other);
+                continue;
+            }
+            Node product = null;
+            for (Node factor : term.factors) {
+                final Node f = rewrite(factor);
+                product = product == null ? f : Node.operator(Builtins.MULTIPLICATION, product, f);
+            }
+            if (product == null) {
+                product = Node.number(1d);
+            }
+            final int k = term.degree;
+            if (coefficients[k] == null) {
+                coefficients[k] = product;
+                negative[k] = term.negative;
+            } else {
+                coefficients[k] = Node.operator(term.negative == negative[k] ? Builtins.ADDITION
+                        : Builtins.SUBTRACTION, coefficients[k], product);
+            }
+        }
+
+        Node p;
+        if (coefficients[degree].isNumber(1d)) {
+            p = signed(variable, negative[degree]);
+        } else {
+            p = Node.operator(Builtins.MULTIPLICATION, signed(coefficients[degree], negative[degree]), variable);
+        }
+        for (int k = degree - 1; k >= 0; k--) {
+            if (coefficients[k] != null) {
+                p = Node.operator(negative[k] ? Builtins.SUBTRACTION : Builtins.ADDITION, p, coefficients[k]);
+            }
+            if (k > 0) {
+                p = Node.operator(Builtins.MULTIPLICATION, p, variable);
+            }
+        }
+        return rest == null ? p : Node.operator(Builtins.ADDITION, p, rest);
+    }
+
+    private static Node rewriteChildren(final Node node) {
+        final Node[] children = new Node[node.getChildCount()];
+        boolean changed = false;
+        for (int i = 0; i < children.length; i++) {
+            children[i] = rewrite(node.getChild(i));
+            changed |= children[i] != node.getChild(i);
+        }
+        return changed ? new Node(node.getToken(), children) : node;
+    }
+
+    private static Node signed(final Node node, final boolean negative) {
+        if (!negative) {
+            return node;
+        }
+        return node.isNumber() ? Node.number(-node.getNumber()) : Node.operator(Builtins.UNARY_MINUS, node);
+    }
+}
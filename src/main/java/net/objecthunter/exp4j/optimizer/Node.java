@@ -0,0 +1,214 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+import net.objecthunter.exp4j.function.Function;
+import net.objecthunter.exp4j.operator.Operator;
+import net.objecthunter.exp4j.tokenizer.FunctionToken;
+import net.objecthunter.exp4j.tokenizer.NumberToken;
+import net.objecthunter.exp4j.tokenizer.OperatorToken;
+import net.objecthunter.exp4j.tokenizer.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable node of the expression tree built from a {@link Token} array in reverse polish notation. Each node
+ * holds a number, variable, operator or function token and the nodes of its operands or arguments.
+ */
+public final class Node {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Token token;
+
+    private final Node[] children;
+
+    /**
+     * Create a new node
+     *
+     * @param token    the token of the node
+     * @param children the operands or arguments of the token
+     */
+    public Node(final Token token, final Node... children) {
+        this.token = token;
+        this.children = children.length == 0 ? NO_CHILDREN : children;
+    }
+
+    /**
+     * Create a new number node
+     *
+     * @param value the value of the number
+     * @return a new node
+     */
+    public static Node number(final double value) {
+        return new Node(new NumberToken(value));
+    }
+
+    /**
+     * Create a new operator node
+     *
+     * @param operator the operator
+     * @param operands the operands
+     * @return a new node
+     */
+    public static Node operator(final Operator operator, final Node... operands) {
+        return new Node(new OperatorToken(operator), operands);
+    }
+
+    /**
+     * Create a new function node
+     *
+     * @param function  the function
+     * @param arguments the arguments
+     * @return a new node
+     */
+    public static Node function(final Function function, final Node... arguments) {
+        return new Node(new FunctionToken(function), arguments);
+    }
+
+    /**
+     * Build the expression tree for a token array in reverse polish notation
+     *
+     * @param tokens the tokens in reverse polish notation
+     * @return the root node, or null if the tokens do not form exactly one well formed expression
+     */
+    public static Node fromRPN(final Token[] tokens) {
+        final Node[] stack = new Node[tokens.length];
+        int size = 0;
+        for (final Token token : tokens) {
+            final int arity;
+            switch (token.getType()) {
+                case Token.TOKEN_NUMBER:
+                case Token.TOKEN_VARIABLE:
+                    arity = 0;
+                    break;
+                case Token.TOKEN_OPERATOR:
+                    arity = ((OperatorToken) token).getOperator().getNumOperands();
+                    break;
+                case Token.TOKEN_FUNCTION:
+                    arity = ((FunctionToken) token).getFunction().getNumArguments();
+                    break;
+                default:
+                    return null;
+            }
+            if (arity > size) {
+                return null;
+            }
+            final Node[] children = arity == 0 ? NO_CHILDREN : new Node[arity];
+            size -= arity;
+            System.arraycopy(stack, size, children, 0, arity);
+            stack[size++] = new Node(token, children);
+        }
+        return size == 1 ? stack[0] : null;
+    }
+
+    /**
+     * Convert the tree rooted at this node back to reverse polish notation
+     *
+     * @return the tokens in reverse polish notation
+     */
+    public Token[] toRPN() {
+        final List<Token> output = new ArrayList<>(size());
+        appendTo(output);
+        return output.toArray(new Token[0]);
+    }
+
+    private void appendTo(final List<Token> output) {
+        for (final Node child : children) {
+            child.appendTo(output);
+        }
+        output.add(token);
+    }
+
+    /**
+     * Get the number of nodes in the tree rooted at this node
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        int size = 1;
+        for (final Node child : children) {
+            size += child.size();
+        }
+        return size;
+    }
+
+    public Token getToken() {
+        return token;
+    }
+
+    public int getType() {
+        return token.getType();
+    }
+
+    public int getChildCount() {
+        return children.length;
+    }
+
+    public Node getChild(final int index) {
+        return children[index];
+    }
+
+    /**
+     * Check if this node is a number or a variable
+     *
+     * @return true if the node has no operands
+     */
+    public boolean isLeaf() {
+        return children.length == 0;
+    }
+
+    public boolean isNumber() {
+        return token.getType() == Token.TOKEN_NUMBER;
+    }
+
+    /**
+     * Check if this node is the given number
+     *
+     * @param value the value to compare with
+     * @return true if the node is a number with exactly the same bits as the value
+     */
+    public boolean isNumber(final double value) {
+        return isNumber() && Double.doubleToLongBits(getNumber()) == Double.doubleToLongBits(value);
+    }
+
+    /**
+     * Get the value of a number node
+     *
+     * @return the value of the number
+     */
+    public double getNumber() {
+        return ((NumberToken) token).getValue();
+    }
+
+    /**
+     * Get the operator of an operator node
+     *
+     * @return the operator or null if this node is not an operator
+     */
+    public Operator getOperator() {
+        return token.getType() == Token.TOKEN_OPERATOR ? ((OperatorToken) token).getOperator() : null;
+    }
+
+    /**
+     * Get the function of a function node
+     *
+     * @return the function or null if this node is not a function
+     */
+    public Function getFunction() {
+        return token.getType() == Token.TOKEN_FUNCTION ? ((FunctionToken) token).getFunction() : null;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+/**
+ * A pass of the {@link OptimizerPipeline} which rewrites the expression tree between parsing and the construction of
+ * the {@link net.objecthunter.exp4j.Expression}. Passes are identified by their name, which is used to order them
+ * and to turn them on and off in {@link net.objecthunter.exp4j.ExpressionBuilder}. A pass must return a tree which
+ * evaluates to the same value within the tolerance it documents, and may return the given node if it has nothing to
+ * rewrite.
+ */
+public abstract class Optimizer {
+
+    private final String name;
+
+    /**
+     * Create a new pass with a given name
+     *
+     * @param name the name of the pass
+     */
+    protected Optimizer(final String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("The name of an optimizer can not be empty");
+        }
+        this.name = name;
+    }
+
+    /**
+     * Get the name of the pass
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Rewrite an expression tree
+     *
+     * @param root the root of the tree
+     * @return the root of the rewritten tree
+     */
+    public abstract Node optimize(Node root);
+}
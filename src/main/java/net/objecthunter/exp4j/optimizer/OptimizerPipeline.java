@@ -0,0 +1,169 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+import net.objecthunter.exp4j.tokenizer.Token;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An ordered list of {@link Optimizer} passes, each of which can be turned on and off by its name. The pipeline
+ * builds the expression tree from the tokens in reverse polish notation once, runs the enabled passes on it in order
+ * and converts the result back to tokens, measuring the time and the node count of every pass.
+ */
+public final class OptimizerPipeline {
+
+    private final List<Optimizer> passes = new ArrayList<>();
+
+    private final Set<String> disabled = new HashSet<>();
+
+    /**
+     * Create a pipeline with the builtin passes of {@link Optimizers} in their default order, all disabled
+     *
+     * @return a new pipeline
+     */
+    public static OptimizerPipeline withBuiltins() {
+        final OptimizerPipeline pipeline = new OptimizerPipeline();
+        for (final Optimizer pass : Optimizers.getBuiltinOptimizers()) {
+            pipeline.add(pass).setEnabled(pass.getName(), false);
+        }
+        return pipeline;
+    }
+
+    /**
+     * Append an enabled pass
+     *
+     * @param pass the pass
+     * @return this pipeline
+     */
+    public OptimizerPipeline add(final Optimizer pass) {
+        checkNew(pass);
+        passes.add(pass);
+        return this;
+    }
+
+    /**
+     * Insert an enabled pass before another one
+     *
+     * @param pass   the pass
+     * @param before the name of the pass to insert it before
+     * @return this pipeline
+     */
+    public OptimizerPipeline add(final Optimizer pass, final String before) {
+        checkNew(pass);
+        passes.add(indexOf(before), pass);
+        return this;
+    }
+
+    /**
+     * Turn a pass on or off
+     *
+     * @param name    the name of the pass
+     * @param enabled set to true to run the pass
+     * @return this pipeline
+     */
+    public OptimizerPipeline setEnabled(final String name, final boolean enabled) {
+        indexOf(name);
+        if (enabled) {
+            disabled.remove(name);
+        } else {
+            disabled.add(name);
+        }
+        return this;
+    }
+
+    /**
+     * Check if a pass is registered and turned on
+     *
+     * @param name the name of the pass
+     * @return true if the pass runs
+     */
+    public boolean isEnabled(final String name) {
+        for (final Optimizer pass : passes) {
+            if (pass.getName().equals(name)) {
+                return !disabled.contains(name);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the names of the registered passes in the order they run
+     *
+     * @return the names, enabled or not
+     */
+    public List<String> getNames() {
+        final List<String> names = new ArrayList<>(passes.size());
+        for (final Optimizer pass : passes) {
+            names.add(pass.getName());
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Run the enabled passes on an expression in reverse polish notation
+     *
+     * @param tokens the tokens in reverse polish notation
+     * @param report the list to add the measurement of each pass that ran to, may be null
+     * @return the optimized tokens, or the given tokens if no pass is enabled or they do not form a well formed
+     * expression
+     */
+    public Token[] optimize(final Token[] tokens, final List<PassReport> report) {
+        if (disabled.size() == passes.size()) {
+            return tokens;
+        }
+        Node root = Node.fromRPN(tokens);
+        if (root == null) {
+            return tokens;
+        }
+        int nodes = root.size();
+        for (final Optimizer pass : passes) {
+            if (disabled.contains(pass.getName())) {
+                continue;
+            }
+            final long start = System.nanoTime();
+            root = pass.optimize(root);
+            final long nanos = System.nanoTime() - start;
+            final int after = root.size();
+            if (report != null) {
+                report.add(new PassReport(pass.getName(), nanos, nodes, after));
+            }
+            nodes = after;
+        }
+        return root.toRPN();
+    }
+
+    private void checkNew(final Optimizer pass) {
+        for (final Optimizer p : passes) {
+            if (p.getName().equals(pass.getName())) {
+                throw new IllegalArgumentException("An optimizer named '" + pass.getName() + "' is already registered");
+            }
+        }
+    }
+
+    private int indexOf(final String name) {
+        for (int i = 0; i < passes.size(); i++) {
+            if (passes.get(i).getName().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No optimizer named '" + name + "' is registered");
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+/**
+ * The builtin passes of the {@link OptimizerPipeline}, in their default order
+ */
+public abstract class Optimizers {
+    private static final int INDEX_CONSTANT_FOLDING = 0;
+    private static final int INDEX_HORNER_FORM = 1;
+    private static final int INDEX_STRENGTH_REDUCTION = 2;
+    private static final int INDEX_CANONICALIZE = 3;
+
+    private static final Optimizer[] BUILT_IN_OPTIMIZERS = new Optimizer[4];
+
+    static {
+        BUILT_IN_OPTIMIZERS[INDEX_CONSTANT_FOLDING] = new Optimizer("constantFolding") {
+            @Override
+            public Node optimize(final Node root) {
+                return ConstantFolding.fold(root);
+            }
+        };
+        BUILT_IN_OPTIMIZERS[INDEX_HORNER_FORM] = new Optimizer("hornerForm") {
+            @Override
+            public Node optimize(final Node root) {
+                return HornerForm.rewrite(root);
+            }
+        };
+        BUILT_IN_OPTIMIZERS[INDEX_STRENGTH_REDUCTION] = new Optimizer("strengthReduction") {
+            @Override
+            public Node optimize(final Node root) {
+                return StrengthReduction.reduce(root);
+            }
+        };
+        BUILT_IN_OPTIMIZERS[INDEX_CANONICALIZE] = new Optimizer("canonicalize") {
+            @Override
+            public Node optimize(final Node root) {
+                return Canonicalizer.canonicalize(root);
+            }
+        };
+    }
+
+    /**
+     * Get the builtin pass with the given name, i.e. {@code constantFolding} ({@link ConstantFolding}),
+     * {@code hornerForm} ({@link HornerForm}), {@code strengthReduction} ({@link StrengthReduction}) or
+     * {@code canonicalize} ({@link Canonicalizer})
+     *
+     * @param name the name of the pass
+     * @return the pass or null if there is no builtin pass with the name
+     */
+    public static Optimizer getBuiltinOptimizer(final String name) {
+        switch (name) {
+            case "constantFolding":
+                return BUILT_IN_OPTIMIZERS[INDEX_CONSTANT_FOLDING];
+            case "hornerForm":
+                return BUILT_IN_OPTIMIZERS[INDEX_HORNER_FORM];
+            case "strengthReduction":
+                return BUILT_IN_OPTIMIZERS[INDEX_STRENGTH_REDUCTION];
+            case "canonicalize":
+                return BUILT_IN_OPTIMIZERS[INDEX_CANONICALIZE];
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Get the builtin passes in their default order
+     *
+     * @return a new array of the builtin passes
+     */
+    public static Optimizer[] getBuiltinOptimizers() {
+        return BUILT_IN_OPTIMIZERS.clone();
+    }
+}
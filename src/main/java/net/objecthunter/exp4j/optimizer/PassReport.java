@@ -0,0 +1,71 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+/**
+ * The measurement of one pass of an {@link OptimizerPipeline} run
+ */
+public final class PassReport {
+
+    private final String name;
+
+    private final long nanos;
+
+    private final int nodesBefore;
+
+    private final int nodesAfter;
+
+    PassReport(final String name, final long nanos, final int nodesBefore, final int nodesAfter) {
+        this.name = name;
+        this.nanos = nanos;
+        this.nodesBefore = nodesBefore;
+        this.nodesAfter = nodesAfter;
+    }
+
+    /**
+     * @return the name of the pass
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the time spent in the pass
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return the number of nodes of the tree before the pass
+     */
+    public int getNodesBefore() {
+        return nodesBefore;
+    }
+
+    /**
+     * @return the number of nodes of the tree after the pass
+     */
+    public int getNodesAfter() {
+        return nodesAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "PassReport{name=" + name + ", nanos=" + nanos + ", nodesBefore=" + nodesBefore + ", nodesAfter="
+                + nodesAfter + '}';
+    }
+}
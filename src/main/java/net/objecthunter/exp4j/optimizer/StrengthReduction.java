@@ -0,0 +1,213 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+import net.objecthunter.exp4j.function.Function1;
+import net.objecthunter.exp4j.tokenizer.Token;
+
+/**
+ * Build time pass which replaces operations in an expression by cheaper equivalents. Every rule either produces
+ * results identical to the original operation for all inputs (bit-exact), or states the tolerance it is accurate to
+ * relative to the original operation:
+ * <ul>
+ * <li>{@code x^1} and {@code pow(x, 1)} become {@code x} (bit-exact)</li>
+ * <li>{@code x^2} and {@code pow(x, 2)} become {@code x*x} (correctly rounded, within Math.pow's own 1 ulp)</li>
+ * <li>{@code x^3} and {@code x^4} become two multiplications (within 2 ulp)</li>
+ * <li>{@code x^-1} becomes {@code 1/x} without the zero divisor check, which returns infinity for zero as pow
+ * does (correctly rounded, within 1 ulp)</li>
+ * <li>{@code x^-2} becomes {@code 1/(x*x)}, or pow if {@code x*x} is subnormal or overflows (within 2 ulp)</li>
+ * <li>{@code x^0.5} becomes a square root returning {@code +0} for {@code -0} and {@code +Infinity} for
+ * {@code -Infinity} as pow does (correctly rounded, within 1 ulp)</li>
+ * <li>{@code x/c} becomes {@code x*(1/c)} if c is a power of two with a normal reciprocal (bit-exact)</li>
+ * <li>{@code x*1}, {@code 1*x}, {@code x/1} and {@code x-0} become {@code x} (bit-exact)</li>
+ * <li>{@code x*-1}, {@code -1*x} and {@code x/-1} become {@code -x} (bit-exact)</li>
+ * <li>{@code --x} becomes {@code x} (bit-exact)</li>
+ * <li>{@code logb(c, x)} with a number c becomes a function dividing by the precomputed {@code log(c)}
+ * (bit-exact)</li>
+ * </ul>
+ * A negative constant may be a number or the unary minus of a number, so that the rules apply without constant
+ * folding. Note that {@code x+0} is not rewritten since it is {@code +0} and not {@code x} for {@code x = -0}, and that no
+ * operand which may contain a variable is ever dropped, so that missing variables are still reported.
+ */
+public final class StrengthReduction {
+
+    private static final Function1 SQUARE = new Function1("square") {
+        @Override
+        public double apply(final double arg) {
+            return arg * arg;
+        }
+    };
+
+    private static final Function1 CUBE = new Function1("cube") {
+        @Override
+        public double apply(final double arg) {
+            return arg * arg * arg;
+        }
+    };
+
+    private static final Function1 RECIPROCAL = new Function1("reciprocal") {
+        @Override
+        public double apply(final double arg) {
+            return 1d / arg;
+        }
+    };
+
+    private static final Function1 RECIPROCAL_SQUARE = new Function1("reciprocalSquare") {
+        @Override
+        public double apply(final double arg) {
+            final double square = arg * arg;
+            return square >= Double.MIN_NORMAL && square <= Double.MAX_VALUE ? 1d / square : Math.pow(arg, -2d);
+        }
+    };
+
+    private static final Function1 SQRT = new Function1("sqrt") {
+        @Override
+        public double apply(final double arg) {
+            if (arg == Double.NEGATIVE_INFINITY) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return Math.sqrt(arg) + 0d;
+        }
+    };
+
+    private StrengthReduction() {
+    }
+
+    /**
+     * Apply the strength reductions to an expression in reverse polish notation
+     *
+     * @param tokens the tokens in reverse polish notation
+     * @return the rewritten tokens, or the given tokens if they do not form a well formed expression
+     */
+    public static Token[] apply(final Token[] tokens) {
+        final Node root = Node.fromRPN(tokens);
+        if (root == null) {
+            return tokens;
+        }
+        return reduce(root).toRPN();
+    }
+
+    /**
+     * Apply the strength reductions to an expression tree
+     *
+     * @param node the root of the tree
+     * @return the root of the rewritten tree
+     */
+    public static Node reduce(final Node node) {
+        if (node.isLeaf()) {
+            return node;
+        }
+        final Node[] children = new Node[node.getChildCount()];
+        boolean changed = false;
+        for (int i = 0; i < children.length; i++) {
+            children[i] = reduce(node.getChild(i));
+            changed |= children[i] != node.getChild(i);
+        }
+        final Node reduced = changed ? new Node(node.getToken(), children) : node;
+        final Node rewritten = rewrite(reduced);
+        return rewritten == reduced ? reduced : reduce(rewritten);
+    }
+
+    private static Node rewrite(final Node node) {
+        if (Builtins.isOperator(node, '^', 2) || Builtins.isFunction(node, "pow")) {
+            return power(node, node.getChild(0), node.getChild(1));
+        } else if (Builtins.isOperator(node, '*', 2)) {
+            final Node left = node.getChild(0);
+            final Node right = node.getChild(1);
+            if (isConstant(right, 1d)) {
+                return left;
+            } else if (isConstant(left, 1d)) {
+                return right;
+            } else if (isConstant(right, -1d)) {
+                return Node.operator(Builtins.UNARY_MINUS, left);
+            } else if (isConstant(left, -1d)) {
+                return Node.operator(Builtins.UNARY_MINUS, right);
+            }
+        } else if (Builtins.isOperator(node, '/', 2)) {
+            final Node right = node.getChild(1);
+            if (isConstant(right, 1d)) {
+                return node.getChild(0);
+            } else if (isConstant(right, -1d)) {
+                return Node.operator(Builtins.UNARY_MINUS, node.getChild(0));
+            } else if (isConstant(right) && isInvertiblePowerOfTwo(constant(right))) {
+                return Node.operator(Builtins.MULTIPLICATION, node.getChild(0), Node.number(1d / constant(right)));
+            }
+        } else if (Builtins.isOperator(node, '-', 2)) {
+            if (node.getChild(1).isNumber(0d)) {
+                return node.getChild(0);
+            }
+        } else if (Builtins.isOperator(node, '-', 1)) {
+            if (Builtins.isOperator(node.getChild(0), '-', 1)) {
+                return node.getChild(0).getChild(0);
+            }
+        } else if (Builtins.isFunction(node, "logb")) {
+            if (node.getChild(0).isNumber()) {
+                return Node.function(logarithm(node.getChild(0).getNumber()), node.getChild(1));
+            }
+        }
+        return node;
+    }
+
+    private static Node power(final Node node, final Node base, final Node exponent) {
+        if (!isConstant(exponent)) {
+            return node;
+        }
+        final double n = constant(exponent);
+        if (n == 1d) {
+            return base;
+        } else if (n == 2d) {
+            return base.isLeaf() ? Node.operator(Builtins.MULTIPLICATION, base, base) : Node.function(SQUARE, base);
+        } else if (n == 3d) {
+            return Node.function(CUBE, base);
+        } else if (n == 4d) {
+            return Node.function(SQUARE, Node.function(SQUARE, base));
+        } else if (n == -1d) {
+            return Node.function(RECIPROCAL, base);
+        } else if (n == -2d) {
+            return Node.function(RECIPROCAL_SQUARE, base);
+        } else if (n == 0.5) {
+            return Node.function(SQRT, base);
+        }
+        return node;
+    }
+
+    private static boolean isConstant(final Node node) {
+        return node.isNumber() || Builtins.isOperator(node, '-', 1) && node.getChild(0).isNumber();
+    }
+
+    private static boolean isConstant(final Node node, final double value) {
+        return isConstant(node) && Double.doubleToLongBits(constant(node)) == Double.doubleToLongBits(value);
+    }
+
+    private static double constant(final Node node) {
+        return node.isNumber() ? node.getNumber() : -node.getChild(0).getNumber();
+    }
+
+    private static boolean isInvertiblePowerOfTwo(final double value) {
+        final double abs = Math.abs(value);
+        return abs >= Double.MIN_NORMAL && abs <= 0x1p1022 && abs == Math.scalb(1d, Math.getExponent(abs));
+    }
+
+    private static Function1 logarithm(final double base) {
+        final double lnBase = Math.log(base);
+        return new Function1("logb") {
+            @Override
+            public double apply(final double arg) {
+                return Math.log(arg) / lnBase;
+            }
+        };
+    }
+}
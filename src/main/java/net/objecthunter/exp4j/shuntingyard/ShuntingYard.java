@@ -15,6 +15,7 @@
  */
 package net.objecthunter.exp4j.shuntingyard;
 
+import net.objecthunter.exp4j.function.MathMode;
 import net.objecthunter.exp4j.tokenizer.OperatorToken;
 import net.objecthunter.exp4j.tokenizer.Token;
 import net.objecthunter.exp4j.tokenizer.Tokenizer;
@@ -37,11 +38,27 @@ public class ShuntingYard {
     public static Token[] convertToRPN(final String expression,
                                        final Set<String> variableNames,
                                        final boolean implicitMultiplication) {
+        return convertToRPN(expression, variableNames, implicitMultiplication, MathMode.STRICT);
+    }
+
+    /**
+     * Convert a Set of tokens from infix to reverse polish notation
+     *
+     * @param expression             the expression to convert
+     * @param variableNames          the variable names used in the expression
+     * @param implicitMultiplication set to false to turn off implicit multiplication
+     * @param mathMode               the math mode the builtin functions and operators are bound for
+     * @return a {@link net.objecthunter.exp4j.tokenizer.Token} array containing the result
+     */
+    public static Token[] convertToRPN(final String expression,
+                                       final Set<String> variableNames,
+                                       final boolean implicitMultiplication,
+                                       final MathMode mathMode) {
 
         final Stack<Token> stack = new Stack<>();
         final List<Token> output = new ArrayList<>();
 
-        final Tokenizer tokenizer = new Tokenizer(expression, null, null, variableNames, implicitMultiplication);
+        final Tokenizer tokenizer = new Tokenizer(expression, null, null, variableNames, implicitMultiplication, mathMode);
         while (tokenizer.hasNext()) {
             Token token = tokenizer.nextToken();
             switch (token.getType()) {
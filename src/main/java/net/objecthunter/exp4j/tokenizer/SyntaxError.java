@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.tokenizer;
+
+/**
+ * The structured result of a {@link SyntaxValidator}
+ */
+public enum SyntaxError {
+    /**
+     * The expression is valid
+     */
+    NONE,
+    /**
+     * The expression is empty or blank
+     */
+    EMPTY_EXPRESSION,
+    /**
+     * A character which can not start a token, or a number directly following a number
+     */
+    UNEXPECTED_CHARACTER,
+    /**
+     * A malformed number such as {@code 1.2.3} or {@code 1e+}
+     */
+    INVALID_NUMBER,
+    /**
+     * A name which is neither a declared variable nor a function
+     */
+    UNKNOWN_NAME,
+    /**
+     * A run of operator characters which does not start with an operator
+     */
+    UNKNOWN_OPERATOR,
+    /**
+     * An argument separator outside of parentheses
+     */
+    MISPLACED_SEPARATOR,
+    /**
+     * A closing parenthesis without an opening one, or an opening parenthesis which is never closed
+     */
+    MISMATCHED_PARENTHESES,
+    /**
+     * A function with fewer arguments than it takes
+     */
+    NOT_ENOUGH_ARGUMENTS,
+    /**
+     * An operator without enough operands
+     */
+    TOO_MANY_OPERATORS,
+    /**
+     * Operands which are not combined into a single result
+     */
+    TOO_MANY_OPERANDS,
+    /**
+     * An expression without any operand, e.g. {@code ()}
+     */
+    MISSING_OPERAND
+}
@@ -0,0 +1,423 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.tokenizer;
+
+import net.objecthunter.exp4j.function.Function;
+import net.objecthunter.exp4j.function.Functions;
+import net.objecthunter.exp4j.operator.Operator;
+import net.objecthunter.exp4j.operator.Operators;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Validates the syntax of expressions without building them. The validator runs the rules of the {@link Tokenizer},
+ * the shunting yard conversion and {@code Expression.validate(false)} in a single pass over the characters, on
+ * primitive arrays owned by the validator instead of Token objects, so that validating a valid expression allocates
+ * nothing. It reports the first error the build or the validation of the expression would report, with the
+ * position of the offending character in the given string. Unlike {@code Expression.validate(false)} it also rejects
+ * expressions without any operand, such as {@code ()}, with {@link SyntaxError#MISSING_OPERAND}.
+ * <p>
+ * A validator can be reused for any number of expressions but is not thread safe, use one instance per thread.
+ */
+public final class SyntaxValidator {
+
+    private static final Operator MULTIPLICATION = Operators.getBuiltinOperator('*', 2);
+
+    private final boolean implicitMultiplication;
+
+    /* open addressing table of the variable and function names, the function is null for variables */
+    private final String[] names;
+
+    private final int[] hashes;
+
+    private final Function[] functions;
+
+    private final int mask;
+
+    /* the operator stack of the shunting yard */
+    private int[] kinds = new int[16];
+
+    private Operator[] operators = new Operator[16];
+
+    private int[] arities = new int[16];
+
+    private int[] positions = new int[16];
+
+    private int size;
+
+    /* the operand count of the validation of the reverse polish notation */
+    private int count;
+
+    private boolean counting;
+
+    private SyntaxError countError;
+
+    private int countErrorPosition;
+
+    private int lastType;
+
+    private Operator lastOperator;
+
+    private SyntaxError error = SyntaxError.NONE;
+
+    private int errorPosition = -1;
+
+    /**
+     * Create a new validator with implicit multiplication enabled
+     *
+     * @param variableNames the variable names declared for the expressions
+     */
+    public SyntaxValidator(Set<String> variableNames) {
+        this(variableNames, true);
+    }
+
+    /**
+     * Create a new validator
+     *
+     * @param variableNames          the variable names declared for the expressions
+     * @param implicitMultiplication set to false to turn off implicit multiplication
+     */
+    public SyntaxValidator(Set<String> variableNames, boolean implicitMultiplication) {
+        this.implicitMultiplication = implicitMultiplication;
+        final String[] builtins = Functions.getBuiltinFunctionNames();
+        int capacity = 16;
+        while (capacity < 2 * (builtins.length + variableNames.size())) {
+            capacity <<= 1;
+        }
+        this.names = new String[capacity];
+        this.hashes = new int[capacity];
+        this.functions = new Function[capacity];
+        this.mask = capacity - 1;
+        for (String name : variableNames) {
+            if (Functions.getBuiltinFunction(name) != null) {
+                throw new IllegalArgumentException("A variable can not have the same name as a function [" + name + "]");
+            }
+            insert(name, null);
+        }
+        for (String name : builtins) {
+            insert(name, Functions.getBuiltinFunction(name));
+        }
+    }
+
+    private void insert(final String name, final Function function) {
+        final int hash = name.hashCode();
+        int i = spread(hash) & mask;
+        while (names[i] != null) {
+            if (names[i].equals(name)) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        names[i] = name;
+        hashes[i] = hash;
+        functions[i] = function;
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int lookup(final String expression, final int offset, final int length, final int hash) {
+        int i = spread(hash) & mask;
+        while (names[i] != null) {
+            if (hashes[i] == hash && names[i].length() == length && expression.regionMatches(offset, names[i], 0, length)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the error found by the last validation
+     *
+     * @return the error, {@link SyntaxError#NONE} if the expression is valid
+     */
+    public SyntaxError getError() {
+        return error;
+    }
+
+    /**
+     * Get the position of the error found by the last validation
+     *
+     * @return the index of the offending character in the expression, -1 if the expression is valid
+     */
+    public int getErrorPosition() {
+        return errorPosition;
+    }
+
+    /**
+     * Validate the syntax of an expression
+     *
+     * @param expression the expression
+     * @return the first error in the expression, {@link SyntaxError#NONE} if it is valid
+     */
+    public SyntaxError validate(final String expression) {
+        size = 0;
+        count = 0;
+        counting = true;
+        countError = null;
+        lastType = 0;
+        lastOperator = null;
+        error = SyntaxError.NONE;
+        errorPosition = -1;
+
+        int pos = 0;
+        int end = expression.length();
+        while (pos < end && expression.charAt(pos) <= ' ') {
+            pos++;
+        }
+        while (end > pos && expression.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (pos == end) {
+            return fail(SyntaxError.EMPTY_EXPRESSION, 0);
+        }
+        while (pos < end) {
+            final char ch = expression.charAt(pos);
+            if (Character.isWhitespace(ch)) {
+                pos++;
+            } else if (Character.isDigit(ch) || ch == '.') {
+                if (lastType == Token.TOKEN_NUMBER) {
+                    return fail(SyntaxError.UNEXPECTED_CHARACTER, pos);
+                }
+                implicitMultiplication(pos);
+                int length = 1;
+                while (pos + length < end && Tokenizer.isNumeric(expression.charAt(pos + length),
+                        expression.charAt(pos + length - 1) == 'e' || expression.charAt(pos + length - 1) == 'E')) {
+                    length++;
+                }
+                final char last = expression.charAt(pos + length - 1);
+                if (length > 1 && (last == 'e' || last == 'E')) {
+                    length--;
+                }
+                if (!isNumber(expression, pos, pos + length)) {
+                    return fail(SyntaxError.INVALID_NUMBER, pos);
+                }
+                count++;
+                lastType = Token.TOKEN_NUMBER;
+                pos += length;
+            } else if (Tokenizer.isArgumentSeparator(ch)) {
+                lastType = Token.TOKEN_SEPARATOR;
+                while (size > 0 && kinds[size - 1] != Token.TOKEN_PARENTHESES_OPEN) {
+                    pop();
+                }
+                if (size == 0) {
+                    return fail(SyntaxError.MISPLACED_SEPARATOR, pos);
+                }
+                pos++;
+            } else if (Tokenizer.isOpenParentheses(ch)) {
+                implicitMultiplication(pos);
+                push(Token.TOKEN_PARENTHESES_OPEN, null, 0, pos);
+                lastType = Token.TOKEN_PARENTHESES_OPEN;
+                pos++;
+            } else if (Tokenizer.isCloseParentheses(ch)) {
+                lastType = Token.TOKEN_PARENTHESES_CLOSE;
+                while (size > 0 && kinds[size - 1] != Token.TOKEN_PARENTHESES_OPEN) {
+                    pop();
+                }
+                if (size == 0) {
+                    return fail(SyntaxError.MISMATCHED_PARENTHESES, pos);
+                }
+                size--;
+                if (size > 0 && kinds[size - 1] == Token.TOKEN_FUNCTION) {
+                    pop();
+                }
+                pos++;
+            } else if (Operator.isAllowedOperatorChar(ch)) {
+                int run = 1;
+                while (pos + run < end && Operator.isAllowedOperatorChar(expression.charAt(pos + run))) {
+                    run++;
+                }
+                Operator op = null;
+                int length = Math.min(run, 2);
+                for (; length > 0 && op == null; length--) {
+                    op = length == 2 ? Operators.getBuiltinOperator(ch, expression.charAt(pos + 1))
+                            : Operators.getBuiltinOperator(ch, unaryContext() ? 1 : 2);
+                }
+                if (op == null) {
+                    return fail(SyntaxError.UNKNOWN_OPERATOR, pos);
+                }
+                operator(op, pos);
+                pos += length + 1;
+            } else if (Tokenizer.isAlphabetic(ch) || ch == '_') {
+                implicitMultiplication(pos);
+                int hash = 0;
+                int found = -1;
+                int foundLength = 0;
+                for (int length = 1; pos + length - 1 < end
+                        && Tokenizer.isVariableOrFunctionCharacter(expression.charAt(pos + length - 1)); length++) {
+                    hash = 31 * hash + expression.charAt(pos + length - 1);
+                    final int entry = lookup(expression, pos, length, hash);
+                    if (entry >= 0) {
+                        found = entry;
+                        foundLength = length;
+                    }
+                }
+                if (found < 0) {
+                    return fail(SyntaxError.UNKNOWN_NAME, pos);
+                }
+                if (functions[found] == null) {
+                    count++;
+                    lastType = Token.TOKEN_VARIABLE;
+                } else {
+                    push(Token.TOKEN_FUNCTION, null, functions[found].getNumArguments(), pos);
+                    lastType = Token.TOKEN_FUNCTION;
+                }
+                pos += foundLength;
+            } else {
+                return fail(SyntaxError.UNEXPECTED_CHARACTER, pos);
+            }
+        }
+        while (size > 0) {
+            if (kinds[size - 1] == Token.TOKEN_PARENTHESES_OPEN) {
+                return fail(SyntaxError.MISMATCHED_PARENTHESES, positions[size - 1]);
+            }
+            pop();
+        }
+        if (countError != null) {
+            return fail(countError, countErrorPosition);
+        }
+        if (count > 1) {
+            return fail(SyntaxError.TOO_MANY_OPERANDS, end - 1);
+        }
+        if (count == 0) {
+            return fail(SyntaxError.MISSING_OPERAND, end - 1);
+        }
+        return SyntaxError.NONE;
+    }
+
+    private SyntaxError fail(final SyntaxError error, final int position) {
+        this.error = error;
+        this.errorPosition = position;
+        return error;
+    }
+
+    /* insert an implicit multiplication before an operand or an opening parenthesis */
+    private void implicitMultiplication(final int pos) {
+        if (implicitMultiplication && lastType != 0
+                && lastType != Token.TOKEN_OPERATOR
+                && lastType != Token.TOKEN_PARENTHESES_OPEN
+                && lastType != Token.TOKEN_FUNCTION
+                && lastType != Token.TOKEN_SEPARATOR) {
+            operator(MULTIPLICATION, pos);
+        }
+    }
+
+    /* whether a single character operator at this point takes one operand, as decided by the tokenizer */
+    private boolean unaryContext() {
+        if (lastType == 0 || lastType == Token.TOKEN_PARENTHESES_OPEN || lastType == Token.TOKEN_SEPARATOR) {
+            return true;
+        }
+        return lastType == Token.TOKEN_OPERATOR && (lastOperator.getNumOperands() == 2
+                || (lastOperator.getNumOperands() == 1 && !lastOperator.isLeftAssociative()));
+    }
+
+    private void operator(final Operator o1, final int pos) {
+        while (size > 0 && kinds[size - 1] == Token.TOKEN_OPERATOR) {
+            final Operator o2 = operators[size - 1];
+            if (o1.getNumOperands() == 1 && o2.getNumOperands() == 2) {
+                break;
+            } else if ((o1.isLeftAssociative() && o1.getPrecedence() <= o2.getPrecedence())
+                    || (o1.getPrecedence() < o2.getPrecedence())) {
+                pop();
+            } else {
+                break;
+            }
+        }
+        push(Token.TOKEN_OPERATOR, o1, 0, pos);
+        lastType = Token.TOKEN_OPERATOR;
+        lastOperator = o1;
+    }
+
+    private void push(final int kind, final Operator operator, final int arity, final int pos) {
+        if (size == kinds.length) {
+            final int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            operators = Arrays.copyOf(operators, capacity);
+            arities = Arrays.copyOf(arities, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+        kinds[size] = kind;
+        operators[size] = operator;
+        arities[size] = arity;
+        positions[size++] = pos;
+    }
+
+    /* pop the top of the stack to the output, applying the operand count rules of Expression.validate */
+    private void pop() {
+        size--;
+        if (!counting) {
+            return;
+        }
+        final int pos = positions[size];
+        if (kinds[size] == Token.TOKEN_FUNCTION) {
+            final int arity = arities[size];
+            if (arity > count && countError == null) {
+                countError = SyntaxError.NOT_ENOUGH_ARGUMENTS;
+                countErrorPosition = pos;
+            }
+            if (arity > 1) {
+                count -= arity - 1;
+            } else if (arity == 0) {
+                count++;
+            }
+        } else if (operators[size].getNumOperands() == 2) {
+            count--;
+        }
+        if (count < 1) {
+            if (countError == null) {
+                countError = SyntaxError.TOO_MANY_OPERATORS;
+                countErrorPosition = pos;
+            }
+            counting = false;
+        }
+    }
+
+    /* whether a run of digits, dots, exponent markers and exponent signs is a number Double.parseDouble accepts */
+    private static boolean isNumber(final String expression, int pos, final int end) {
+        int digits = 0;
+        while (pos < end && Character.isDigit(expression.charAt(pos))) {
+            pos++;
+            digits++;
+        }
+        if (pos < end && expression.charAt(pos) == '.') {
+            pos++;
+            while (pos < end && Character.isDigit(expression.charAt(pos))) {
+                pos++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (pos < end && (expression.charAt(pos) == 'e' || expression.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < end && (expression.charAt(pos) == '+' || expression.charAt(pos) == '-')) {
+                pos++;
+            }
+            final int exponentStart = pos;
+            while (pos < end && Character.isDigit(expression.charAt(pos))) {
+                pos++;
+            }
+            if (pos == exponentStart) {
+                return false;
+            }
+        }
+        return pos == end;
+    }
+}
@@ -17,6 +17,7 @@ package net.objecthunter.exp4j.tokenizer;
 
 import net.objecthunter.exp4j.function.Function;
 import net.objecthunter.exp4j.function.Functions;
+import net.objecthunter.exp4j.function.MathMode;
 import net.objecthunter.exp4j.operator.Operator;
 import net.objecthunter.exp4j.operator.Operators;
 
@@ -37,29 +38,33 @@ public class Tokenizer {
 
     private final boolean implicitMultiplication;
 
+    private final MathMode mathMode;
+
     private int pos = 0;
 
     private Token lastToken;
 
 
     public Tokenizer(String expression, final Map<String, Function> userFunctions,
-                     final Map<String, Operator> userOperators, final Set<String> variableNames, final boolean implicitMultiplication) {
+                     final Map<String, Operator> userOperators, final Set<String> variableNames,
+                     final boolean implicitMultiplication, final MathMode mathMode) {
         this.expression = expression.trim().toCharArray();
         this.expressionLength = this.expression.length;
         this.userFunctions = userFunctions;
         this.userOperators = userOperators;
         this.variableNames = variableNames;
         this.implicitMultiplication = implicitMultiplication;
+        this.mathMode = mathMode;
+    }
+
+    public Tokenizer(String expression, final Map<String, Function> userFunctions,
+                     final Map<String, Operator> userOperators, final Set<String> variableNames, final boolean implicitMultiplication) {
+        this(expression, userFunctions, userOperators, variableNames, implicitMultiplication, MathMode.STRICT);
     }
 
     public Tokenizer(String expression, final Map<String, Function> userFunctions,
                      final Map<String, Operator> userOperators, final Set<String> variableNames) {
-        this.expression = expression.trim().toCharArray();
-        this.expressionLength = this.expression.length;
-        this.userFunctions = userFunctions;
-        this.userOperators = userOperators;
-        this.variableNames = variableNames;
-        this.implicitMultiplication = true;
+        this(expression, userFunctions, userOperators, variableNames, true, MathMode.STRICT);
     }
 
     public boolean hasNext() {
@@ -125,7 +130,7 @@ public class Tokenizer {
         return lastToken;
     }
 
-    private boolean isArgumentSeparator(char ch) {
+    static boolean isArgumentSeparator(char ch) {
         return ch == ',';
     }
 
@@ -139,11 +144,11 @@ public class Tokenizer {
         return lastToken;
     }
 
-    private boolean isOpenParentheses(char ch) {
+    static boolean isOpenParentheses(char ch) {
         return ch == '(' || ch == '{' || ch == '[';
     }
 
-    private boolean isCloseParentheses(char ch) {
+    static boolean isCloseParentheses(char ch) {
         return ch == ')' || ch == '}' || ch == ']';
     }
 
@@ -187,7 +192,7 @@ public class Tokenizer {
             f = this.userFunctions.get(name);
         }
         if (f == null) {
-            f = Functions.getBuiltinFunction(name);
+            f = Functions.getBuiltinFunction(name, mathMode);
         }
         return f;
     }
@@ -239,7 +244,9 @@ public class Tokenizer {
                 }
 
             }
-            op = Operators.getBuiltinOperator(symbol.charAt(0), argc);
+            op = Operators.getBuiltinOperator(symbol.charAt(0), argc, mathMode);
+        } else if (op == null && symbol.length() == 2) {
+            op = Operators.getBuiltinOperator(symbol);
         }
         return op;
     }
@@ -268,7 +275,7 @@ public class Tokenizer {
         return lastToken;
     }
 
-    private static boolean isNumeric(char ch, boolean lastCharE) {
+    static boolean isNumeric(char ch, boolean lastCharE) {
         return Character.isDigit(ch) || ch == '.' || ch == 'e' || ch == 'E' ||
                 (lastCharE && (ch == '-' || ch == '+'));
     }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks {@link ChebyshevApproximation} against the approximated expression on random points of the domain, which
+ * includes the points between the verification grid
+ */
+public class ChebyshevApproximationTest {
+
+    @Test
+    public void testSmoothFunctionsMeetTheTolerance() {
+        assertApproximates("sin(x) * exp(-x/4)", -10d, 10d, 1e-10, 16);
+        assertApproximates("1 / (1 + x^2)", -5d, 5d, 1e-9, 16);
+        assertApproximates("log(x) + sqrt(x)", 0.5, 100d, 1e-8, 16);
+        assertApproximates("3*x^3 - 2*x + 1", -1d, 1d, 1e-12, 16);
+    }
+
+    @Test
+    public void testLowerDegreeUsesMorePieces() {
+        final Expression expression = new ExpressionBuilder("exp(x)").variable("x").build();
+        final ChebyshevApproximation high = assertApproximates(expression, 0d, 4d, 1e-9, 16);
+        final ChebyshevApproximation low = assertApproximates(expression, 0d, 4d, 1e-9, 4);
+        assertTrue(low.getDegree() <= 4);
+        assertTrue(low.getPieces() > high.getPieces());
+    }
+
+    @Test
+    public void testOtherVariablesKeepTheirValues() {
+        final Expression expression = new ExpressionBuilder("a * cos(x)").variable("x").variable("a").build()
+                .setVariable("a", 3d);
+        final ChebyshevApproximation approximation = ChebyshevApproximation.of(expression, "x", 0d, 3d, 1e-10);
+        assertEquals(3d * Math.cos(1d), approximation.applyAsDouble(1d), 1e-10);
+        expression.setVariable("a", 5d);
+        assertEquals(3d * Math.cos(1d), approximation.applyAsDouble(1d), 1e-10);
+    }
+
+    @Test
+    public void testBoundExpressionLeavesTheScopeUntouched() {
+        final VariableScope scope = new VariableScope(new java.util.HashSet<>(java.util.Arrays.asList("x", "a")));
+        scope.setVariable("a", 2d).setVariable("x", 7d);
+        final Expression bound = new ExpressionBuilder("a * x^2").variable("x").variable("a").build().bind(scope);
+        final ChebyshevApproximation approximation = ChebyshevApproximation.of(bound, "x", -1d, 1d, 1e-12);
+        assertEquals(0.5, approximation.applyAsDouble(0.5), 1e-12);
+        assertEquals(7d, scope.getVariable(scope.getIndex("x")), 0d);
+    }
+
+    @Test
+    public void testNonFiniteExpressionIsRejected() {
+        try {
+            ChebyshevApproximation.of(new ExpressionBuilder("1/x").variable("x").build(), "x", -1d, 1d, 1e-6);
+            fail("1/x is not finite at 0");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        final Expression expression = new ExpressionBuilder("x").variable("x").build();
+        assertInvalid(() -> ChebyshevApproximation.of(expression, "x", 1d, 0d, 1e-6));
+        assertInvalid(() -> ChebyshevApproximation.of(expression, "x", 0d, Double.POSITIVE_INFINITY, 1e-6));
+        assertInvalid(() -> ChebyshevApproximation.of(expression, "x", 0d, 1d, 0d));
+        assertInvalid(() -> ChebyshevApproximation.of(expression, "x", 0d, 1d, 1e-6, 0));
+        assertInvalid(() -> ChebyshevApproximation.of(expression, "y", 0d, 1d, 1e-6));
+    }
+
+    private static ChebyshevApproximation assertApproximates(final String expression, final double lower,
+                                                             final double upper, final double tolerance,
+                                                             final int maxDegree) {
+        return assertApproximates(new ExpressionBuilder(expression).variable("x").build(), lower, upper, tolerance,
+                maxDegree);
+    }
+
+    private static ChebyshevApproximation assertApproximates(final Expression expression, final double lower,
+                                                             final double upper, final double tolerance,
+                                                             final int maxDegree) {
+        final ChebyshevApproximation approximation =
+                ChebyshevApproximation.of(expression, "x", lower, upper, tolerance, maxDegree);
+        assertTrue(approximation + " exceeds the tolerance", approximation.getMaxError() <= tolerance);
+        final Random random = new Random(45);
+        for (int i = 0; i < 10000; i++) {
+            final double x = lower + (upper - lower) * random.nextDouble();
+            final double expected = expression.setVariable("x", x).evaluate();
+            assertEquals("x = " + x, expected, approximation.applyAsDouble(x), tolerance);
+        }
+        return approximation;
+    }
+
+    private static void assertInvalid(final Runnable call) {
+        try {
+            call.run();
+            fail("The arguments have not been rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import org.junit.Test;
+
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that {@link Expression#evaluateStream(Stream, VariableBinder)} evaluates every element on the values of the
+ * expression plus those the binder writes for that element
+ */
+public class EvaluateStreamTest {
+
+    @Test
+    public void testUnwrittenSlotsKeepTheValuesOfTheExpression() {
+        final Expression expression = new ExpressionBuilder("x + 10*y").variable("x").variable("y").build()
+                .setVariable("x", 1d).setVariable("y", 2d);
+        final int y = expression.getSlot("y");
+        /* the binder writes y for the first element only */
+        final double[] results = expression.evaluateStream(Stream.of(5d, 6d, 7d), (Double e, double[] values) -> {
+            if (e == 5d) {
+                values[y] = e;
+            }
+        }).toArray();
+        assertArrayEquals(new double[]{51d, 21d, 21d}, results, 0d);
+    }
+
+    @Test
+    public void testBinderWritingAllSlots() {
+        final Expression expression = new ExpressionBuilder("x * y").variable("x").variable("y").build();
+        final int x = expression.getSlot("x");
+        final int y = expression.getSlot("y");
+        final double[] results = expression.evaluateStream(Stream.of(1d, 2d, 3d), (Double e, double[] values) -> {
+            values[x] = e;
+            values[y] = e + 1d;
+        }).toArray();
+        assertArrayEquals(new double[]{2d, 6d, 12d}, results, 0d);
+    }
+
+    @Test
+    public void testMissingVariableNotWrittenByTheBinderThrows() {
+        final Expression expression = new ExpressionBuilder("x + y").variable("x").variable("y").build()
+                .setVariable("x", 1d);
+        final int y = expression.getSlot("y");
+        try {
+            expression.evaluateStream(Stream.of(1d, 2d), (Double e, double[] values) -> {
+                if (e == 1d) {
+                    values[y] = e;
+                }
+            }).toArray();
+            fail("The second element did not bind y");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMissingVariableWithNonThrowingPolicyIsNaN() {
+        final Expression expression = new ExpressionBuilder("x + y").variable("x").variable("y")
+                .errorPolicy(ErrorPolicy.IEEE_NAN).build().setVariable("x", 1d);
+        final double[] results = expression.evaluateStream(Stream.of(1d), (Double e, double[] values) -> {
+        }).toArray();
+        assertArrayEquals(new double[]{Double.NaN}, results, 0d);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the versions, snapshots and rollbacks of an {@link ExpressionRegistry}, and that concurrent readers see
+ * every update either completely or not at all
+ */
+public class ExpressionRegistryTest {
+
+    private static Expression constant(final double value) {
+        return new ExpressionBuilder(Double.toString(value)).build();
+    }
+
+    @Test
+    public void testPutGetAndRemove() {
+        final ExpressionRegistry registry = new ExpressionRegistry();
+        assertEquals(0L, registry.getVersion());
+        final Expression one = constant(1d);
+        final RegistrySnapshot first = registry.put("a", one);
+        assertEquals(1L, first.getVersion());
+        assertSame(one, registry.get("a"));
+        assertSame(first, registry.snapshot());
+        registry.put("a", constant(2d));
+        registry.put("b", constant(3d));
+        assertEquals(2d, registry.get("a").evaluate(), 0d);
+        assertEquals(2, registry.snapshot().size());
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), new HashSet<>(registry.snapshot().getIds()));
+        final RegistrySnapshot removed = registry.remove("a");
+        assertEquals(4L, removed.getVersion());
+        assertNull(registry.get("a"));
+        assertFalse(removed.contains("a"));
+        assertEquals(1, removed.size());
+        assertEquals(5L, registry.remove("unknown").getVersion());
+        assertEquals(1, registry.snapshot().size());
+    }
+
+    @Test
+    public void testPinnedSnapshotIsUnaffectedByUpdates() {
+        final ExpressionRegistry registry = new ExpressionRegistry();
+        registry.put("a", constant(1d));
+        final RegistrySnapshot pinned = registry.snapshot();
+        registry.put("a", constant(2d));
+        registry.remove("a");
+        assertEquals(1d, pinned.get("a").evaluate(), 0d);
+        assertEquals(1, pinned.size());
+        assertEquals(1L, pinned.getVersion());
+    }
+
+    @Test
+    public void testUpdateIsOneVersion() {
+        final ExpressionRegistry registry = new ExpressionRegistry();
+        registry.put("a", constant(1d));
+        final Map<String, Expression> expressions = new HashMap<>();
+        expressions.put("b", constant(2d));
+        expressions.put("c", constant(3d));
+        final RegistrySnapshot snapshot = registry.update(expressions, Collections.singleton("a"));
+        assertEquals(2L, snapshot.getVersion());
+        assertEquals(new HashSet<>(Arrays.asList("b", "c")), new HashSet<>(snapshot.getIds()));
+        try {
+            registry.update(Collections.singletonMap("d", null), Collections.<String>emptySet());
+            fail("A null expression has been accepted");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(2L, registry.getVersion());
+        }
+    }
+
+    @Test
+    public void testRollbackPublishesANewVersion() {
+        final ExpressionRegistry registry = new ExpressionRegistry(3);
+        registry.put("a", constant(1d));
+        registry.put("a", constant(2d));
+        registry.put("a", constant(3d));
+        assertNull(registry.getSnapshot(0L));
+        assertEquals(1d, registry.getSnapshot(1L).get("a").evaluate(), 0d);
+        final RegistrySnapshot rolledBack = registry.rollback(2L);
+        assertEquals(4L, rolledBack.getVersion());
+        assertEquals(2d, registry.get("a").evaluate(), 0d);
+        assertEquals(3d, registry.getSnapshot(3L).get("a").evaluate(), 0d);
+        try {
+            registry.rollback(1L);
+            fail("A version which is not retained has been rolled back to");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(4L, registry.getVersion());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHistoryMustBePositive() {
+        new ExpressionRegistry(0);
+    }
+
+    @Test
+    public void testConcurrentReadersSeeWholeUpdates() throws Exception {
+        final ExpressionRegistry registry = new ExpressionRegistry();
+        final String[] ids = new String[64];
+        final Expression[] generations = new Expression[100];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = "formula-" + i;
+        }
+        for (int g = 0; g < generations.length; g++) {
+            generations[g] = constant(g);
+        }
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                final RegistrySnapshot snapshot = registry.snapshot();
+                final Expression first = snapshot.get(ids[0]);
+                for (final String id : ids) {
+                    if (snapshot.get(id) != first) {
+                        failure.set("Version " + snapshot.getVersion() + " mixes two updates at " + id);
+                        return;
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (final Expression generation : generations) {
+            final Map<String, Expression> update = new HashMap<>();
+            for (final String id : ids) {
+                update.put(id, generation);
+            }
+            registry.update(update, Collections.<String>emptySet());
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(generations.length, registry.getVersion());
+        assertEquals(ids.length, registry.snapshot().size());
+    }
+}
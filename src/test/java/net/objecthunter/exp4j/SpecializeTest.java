@@ -0,0 +1,146 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import net.objecthunter.exp4j.tokenizer.Token;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that {@link Expression#specialize(Map)} evaluates to the same bits, the same flagged errors and the same
+ * exceptions as the unspecialized expression under every error policy
+ */
+public class SpecializeTest {
+
+    private static final String[] EXPRESSIONS = {
+            "a*y + sin(a)*y^2 - cos(a)",
+            "y/(a-1) + a/y",
+            "log(a)*y + sqrt(a-2)",
+            "pow(a, 3)*y/a - a^0.5",
+            "exp(a*100)*y - exp(a*100)",
+            "(a+1)*1 - 0 + y^1 + a/1",
+            "a/0 + y",
+            "a % y + abs(a - y)",
+            "-a^2 + 2^-a*y"
+    };
+
+    private static final double[] FIXED = {
+            0d, -0d, 1d, -1d, 0.5, 2d, 3d, 1e308, Double.MIN_VALUE, Double.POSITIVE_INFINITY, Double.NaN
+    };
+
+    @Test
+    public void testSameResultsUnderAllPolicies() {
+        final Random random = new Random(46);
+        for (final ErrorPolicy policy : ErrorPolicy.values()) {
+            for (final String formula : EXPRESSIONS) {
+                final Expression expression = build(formula, policy);
+                for (final double a : FIXED) {
+                    final Expression specialized = expression.specialize(Collections.singletonMap("a", a));
+                    for (int i = 0; i < 200; i++) {
+                        final double y = i < FIXED.length ? FIXED[i] : (random.nextDouble() - 0.5) * 10d;
+                        assertSame(policy + " " + formula + " a = " + a + " y = " + y,
+                                expression.setVariable("a", a).setVariable("y", y), specialized.setVariable("y", y));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConstantsAreFolded() {
+        final Expression expression = build("a*2 + sin(a) + y", ErrorPolicy.THROW);
+        final Expression specialized = expression.specialize(Collections.singletonMap("a", 1d));
+        assertEquals(3, specialized.getTokens().length);
+        assertEquals(2d + Math.sin(1d) + 4d, specialized.setVariable("y", 4d).evaluate(), 0d);
+    }
+
+    @Test
+    public void testNonDeterministicFunctionsAreKept() {
+        final Expression specialized = build("random(a, a + 1) + y", ErrorPolicy.THROW)
+                .specialize(Collections.singletonMap("a", 1d));
+        boolean function = false;
+        for (final Token token : specialized.getTokens()) {
+            function |= token.getType() == Token.TOKEN_FUNCTION;
+        }
+        assertTrue(function);
+        final double result = specialized.setVariable("y", 0d).evaluate();
+        assertTrue(result >= 1d && result < 2d);
+    }
+
+    @Test
+    public void testThrowingOperationsStillThrow() {
+        final Expression specialized = build("a/0 + y", ErrorPolicy.THROW).specialize(Collections.singletonMap("a", 1d));
+        try {
+            specialized.setVariable("y", 1d).evaluate();
+            fail("The division by zero has been folded");
+        } catch (ArithmeticException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRemainingVariablesAndCacheAreKept() {
+        final Expression expression = new ExpressionBuilder("a*y + z").variable("a").variable("y").variable("z")
+                .cache(64).build().setVariable("z", 5d).setVariable("a", 7d);
+        final Map<String, Double> fixed = new HashMap<>();
+        fixed.put("a", 2d);
+        final Expression specialized = expression.specialize(fixed);
+        assertEquals(2d * 3d + 5d, specialized.setVariable("y", 3d).evaluate(), 0d);
+        assertNotNull(specialized.getResultCache());
+        assertTrue(specialized.getResultCache() != expression.getResultCache());
+        assertEquals(64, specialized.getResultCache().getCapacity());
+        assertNull(build("a*y", ErrorPolicy.THROW).specialize(fixed).getResultCache());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingValueIsRejected() {
+        build("a*y", ErrorPolicy.THROW).specialize(Collections.singletonMap("a", null));
+    }
+
+    private static Expression build(final String formula, final ErrorPolicy policy) {
+        return new ExpressionBuilder(formula).variable("a").variable("y").errorPolicy(policy).build();
+    }
+
+    private static void assertSame(final String message, final Expression expected, final Expression actual) {
+        final long[] expectedErrors = new long[1];
+        final long[] actualErrors = new long[1];
+        double e;
+        try {
+            e = expected.evaluate(expectedErrors, 0);
+        } catch (RuntimeException ex) {
+            try {
+                actual.evaluate(actualErrors, 0);
+                fail(message + ": expected " + ex);
+            } catch (RuntimeException ax) {
+                assertEquals(message, ex.getClass(), ax.getClass());
+            }
+            return;
+        }
+        final double a = actual.evaluate(actualErrors, 0);
+        assertEquals(message, Double.doubleToLongBits(e), Double.doubleToLongBits(a));
+        assertEquals(message, expectedErrors[0], actualErrors[0]);
+    }
+}
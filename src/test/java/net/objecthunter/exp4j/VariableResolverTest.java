@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the lazy resolution of variables by {@link Expression#evaluate(VariableResolver)}, in particular that the
+ * resolved values never leak into the values of the expression or of a shared scope
+ */
+public class VariableResolverTest {
+
+    @Test
+    public void testResolvedOncePerVariableAndEvaluation() {
+        final Expression expression = new ExpressionBuilder("x*x + x + y").variable("x").variable("y").variable("z")
+                .build();
+        final Map<String, Integer> calls = new HashMap<>();
+        final VariableResolver resolver = name -> {
+            calls.merge(name, 1, Integer::sum);
+            return "x".equals(name) ? 3d : 1d;
+        };
+        assertEquals(13d, expression.evaluate(resolver), 0d);
+        assertEquals(13d, expression.evaluate(resolver), 0d);
+        assertEquals(2, (int) calls.get("x"));
+        assertEquals(2, (int) calls.get("y"));
+        assertFalse(calls.containsKey("z"));
+    }
+
+    @Test
+    public void testAssignedVariablesAreNotResolved() {
+        final Expression expression = new ExpressionBuilder("x - y").variable("x").variable("y").build()
+                .setVariable("x", 10d);
+        final List<String> calls = new ArrayList<>();
+        assertEquals(6d, expression.evaluate(name -> {
+            calls.add(name);
+            return 4d;
+        }), 0d);
+        assertEquals(Arrays.asList("y"), calls);
+    }
+
+    @Test
+    public void testResolvedValuesAreNotKept() {
+        final Expression expression = new ExpressionBuilder("x + 1").variable("x").errorPolicy(ErrorPolicy.IEEE_NAN)
+                .build();
+        assertEquals(3d, expression.evaluate(name -> 2d), 0d);
+        assertTrue(Double.isNaN(expression.evaluate()));
+        assertEquals(5d, expression.evaluate(name -> 4d), 0d);
+    }
+
+    @Test
+    public void testScopeIsNotWritten() {
+        final VariableScope scope = new VariableScope(new HashSet<>(Arrays.asList("x", "y")));
+        scope.setVariable("y", 1d);
+        final Expression resolving = new ExpressionBuilder("x + y").variable("x").variable("y").build().bind(scope);
+        final Expression other = new ExpressionBuilder("x * 2").variable("x").errorPolicy(ErrorPolicy.IEEE_NAN)
+                .build().bind(scope);
+        final double[] seen = new double[2];
+        assertEquals(6d, resolving.evaluate(name -> {
+            seen[0] = scope.getVariable(scope.getIndex("x"));
+            seen[1] = other.evaluate();
+            return 5d;
+        }), 0d);
+        assertTrue(Double.isNaN(seen[0]));
+        assertTrue(Double.isNaN(seen[1]));
+        assertTrue(Double.isNaN(scope.getVariable(scope.getIndex("x"))));
+        assertTrue(Double.isNaN(other.evaluate()));
+    }
+
+    @Test
+    public void testConcurrentResolutionOnASharedScope() throws Exception {
+        final VariableScope scope = new VariableScope(new HashSet<>(Arrays.asList("x", "y")));
+        scope.setVariable("y", 1d);
+        final Expression prototype = new ExpressionBuilder("x * 1000 + y").variable("x").variable("y").build();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final double x = t;
+                final Expression bound = prototype.bind(scope);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        assertEquals(x * 1000d + 1d, bound.evaluate(name -> x), 0d);
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(Double.isNaN(scope.getVariable(scope.getIndex("x"))));
+    }
+}
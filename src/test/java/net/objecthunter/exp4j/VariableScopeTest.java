@@ -0,0 +1,132 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks expressions bound to a {@link VariableScope}: shared values, result caches keyed on the slots an expression
+ * reads, and internal snapshots which leave the scope untouched
+ */
+public class VariableScopeTest {
+
+    private static VariableScope scope() {
+        return new VariableScope(new HashSet<>(Arrays.asList("x", "y", "z")));
+    }
+
+    private static Expression build(final String formula) {
+        return new ExpressionBuilder(formula).variable("x").variable("y").variable("z").build();
+    }
+
+    @Test
+    public void testBoundExpressionsShareValues() {
+        final VariableScope scope = scope();
+        final Expression sum = build("x + y").bind(scope);
+        final Expression product = build("y * z").bind(scope);
+        assertSame(scope, sum.getScope());
+        scope.setVariable("x", 1d).setVariable("y", 2d).setVariable("z", 3d);
+        assertEquals(3d, sum.evaluate(), 0d);
+        assertEquals(6d, product.evaluate(), 0d);
+        product.setVariable("y", 5d);
+        assertEquals(6d, sum.evaluate(), 0d);
+        assertEquals(5d, scope.getVariable(scope.getIndex("y")), 0d);
+        assertSame(scope, new Expression(sum).getScope());
+    }
+
+    @Test
+    public void testCacheIgnoresUnusedScopeVariables() {
+        final VariableScope scope = scope();
+        final Expression expression = new ExpressionBuilder("x * y").variable("x").variable("y").cache(64).build()
+                .bind(scope);
+        final ResultCache cache = expression.getResultCache();
+        assertNotNull(cache);
+        scope.setVariable("x", 2d).setVariable("y", 3d);
+        for (int i = 0; i < 100; i++) {
+            scope.setVariable("z", i);
+            assertEquals(6d, expression.evaluate(), 0d);
+        }
+        assertEquals(1L, cache.getMissCount());
+        assertEquals(99L, cache.getHitCount());
+        scope.setVariable("y", 4d);
+        assertEquals(8d, expression.evaluate(), 0d);
+        assertEquals(2L, cache.getMissCount());
+    }
+
+    @Test
+    public void testSnapshotsLeaveTheScopeUntouched() throws Exception {
+        final VariableScope scope = scope();
+        scope.setVariable("x", 1d).setVariable("y", 2d).setVariable("z", 3d);
+        final Expression expression = build("x + y * z").bind(scope);
+        final DoubleUnaryOperator f = expression.toDoubleUnaryOperator("x");
+        assertEquals(16d, f.applyAsDouble(10d), 0d);
+        final EvaluationService service = new EvaluationService(1L, TimeUnit.MILLISECONDS, 16);
+        try {
+            assertEquals(31d, service.submit(expression, Collections.singletonMap("y", 10d)).get(), 0d);
+        } finally {
+            service.shutdown();
+        }
+        assertEquals(1d, scope.getVariable(scope.getIndex("x")), 0d);
+        assertEquals(2d, scope.getVariable(scope.getIndex("y")), 0d);
+        assertEquals(3d, scope.getVariable(scope.getIndex("z")), 0d);
+        assertEquals(7d, expression.evaluate(), 0d);
+    }
+
+    @Test
+    public void testBoundAndUnboundExpressionsAreNotBatchedTogether() throws Exception {
+        final VariableScope scope = new VariableScope(new HashSet<>(Arrays.asList("a", "y", "x")));
+        scope.setVariable("a", 100d);
+        final Expression unbound = new ExpressionBuilder("x - y").variable("x").variable("y").build();
+        final Expression bound = unbound.bind(scope);
+        final EvaluationService service = new EvaluationService(50L, TimeUnit.MILLISECONDS, 64);
+        try {
+            final List<CompletableFuture<Double>> futures = Arrays.asList(
+                    service.submit(unbound, values(5d, 1d)),
+                    service.submit(bound, values(7d, 2d)),
+                    service.submit(unbound, values(9d, 3d)),
+                    service.submit(bound, values(11d, 4d)));
+            final double[] expected = {4d, 5d, 6d, 7d};
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], futures.get(i).get(), 0d);
+            }
+            assertTrue(service.getBatchCount() >= 2L);
+        } finally {
+            service.shutdown();
+        }
+        assertEquals(100d, scope.getVariable(scope.getIndex("a")), 0d);
+    }
+
+    private static Map<String, Double> values(final double x, final double y) {
+        final Map<String, Double> values = new HashMap<>();
+        values.put("x", x);
+        values.put("y", y);
+        return values;
+    }
+}
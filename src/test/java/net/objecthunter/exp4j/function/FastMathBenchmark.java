@@ -0,0 +1,79 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.function;
+
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Compares the throughput of the {@link FastMath} approximations with {@link Math}. Not a unit test, run the main
+ * method from the test classpath. Each function is timed over the same inputs after a warm up, and the result of every
+ * call is consumed so that the JIT compiler can not eliminate it.
+ */
+public final class FastMathBenchmark {
+
+    private static final int SIZE = 1 << 16;
+
+    private static final int ROUNDS = 200;
+
+    private static volatile double sink;
+
+    private FastMathBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        final Random random = new Random(42);
+        final double[] exponents = new double[SIZE];
+        final double[] positives = new double[SIZE];
+        final double[] angles = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            exponents[i] = random.nextDouble() * 200d - 100d;
+            positives[i] = Math.scalb(1d + random.nextDouble(), random.nextInt(200) - 100);
+            angles[i] = random.nextDouble() * 200d - 100d;
+        }
+        compare("exp", exponents, FastMath::exp, Math::exp);
+        compare("log", positives, FastMath::log, Math::log);
+        compare("sin", angles, FastMath::sin, Math::sin);
+        compare("cos", angles, FastMath::cos, Math::cos);
+        compare("pow(x, 3)", positives, x -> FastMath.pow(x, 3d), x -> Math.pow(x, 3d));
+        compare("pow(x, -3)", positives, x -> FastMath.pow(x, -3d), x -> Math.pow(x, -3d));
+    }
+
+    private static void compare(final String name, final double[] inputs, final DoubleUnaryOperator fast,
+                                final DoubleUnaryOperator strict) {
+        for (int i = 0; i < 5; i++) {
+            time(inputs, fast);
+            time(inputs, strict);
+        }
+        final double f = time(inputs, fast);
+        final double s = time(inputs, strict);
+        System.out.printf("%-12s FastMath %6.2f ns  Math %6.2f ns  speedup %5.2fx%n", name, f, s, s / f);
+    }
+
+    /* the mean nanoseconds per call */
+    private static double time(final double[] inputs, final DoubleUnaryOperator function) {
+        double sum = 0d;
+        final long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (final double x : inputs) {
+                sum += function.applyAsDouble(x);
+            }
+        }
+        final long nanos = System.nanoTime() - start;
+        sink = sum;
+        return (double) nanos / ((long) ROUNDS * inputs.length);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.function;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sweeps the domains of the {@link FastMath} approximations and checks their errors against the bounds in their
+ * documentation, which are given in ulps of the correctly rounded result, i.e. an error of {@code n} ulp allows the
+ * approximation to be {@code n + 0.5} ulps away from the exact result
+ */
+public class FastMathTest {
+
+    private static final int SAMPLES = 20000;
+
+    private static final double MAX_REDUCIBLE = 0x1p19 * (Math.PI / 2d);
+
+    private static final double[] SPECIAL = {
+            Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0d, -0d
+    };
+
+    @Test
+    public void testExpError() {
+        final Random random = new Random(1);
+        for (int i = 0; i < SAMPLES; i++) {
+            final double x = i % 4 == 0 ? random.nextDouble() * 2d - 1d : -745d + random.nextDouble() * 1455d;
+            check("exp", x, FastMath.exp(x), Reference.exp(x), 1d);
+        }
+        for (int e = -60; e < 0; e++) {
+            final double x = Math.scalb(random.nextDouble(), e);
+            check("exp", x, FastMath.exp(x), Reference.exp(x), 1d);
+            check("exp", -x, FastMath.exp(-x), Reference.exp(-x), 1d);
+        }
+    }
+
+    @Test
+    public void testLogError() {
+        final Random random = new Random(2);
+        for (int i = 0; i < SAMPLES; i++) {
+            final double x = i % 4 == 0 ? 0.5 + random.nextDouble() * 1.5
+                    : Double.longBitsToDouble(1L + (random.nextLong() >>> 1) % 0x7fefffffffffffffL);
+            check("log", x, FastMath.log(x), Reference.log(x), 2d);
+        }
+        check("log", Double.MIN_VALUE, FastMath.log(Double.MIN_VALUE), Reference.log(Double.MIN_VALUE), 2d);
+        check("log", Double.MAX_VALUE, FastMath.log(Double.MAX_VALUE), Reference.log(Double.MAX_VALUE), 2d);
+        assertEquals(0d, FastMath.log(1d), 0d);
+    }
+
+    @Test
+    public void testSinError() {
+        final Random random = new Random(3);
+        for (int i = 0; i < SAMPLES; i++) {
+            final double x = angle(random, i);
+            checkTrigonometric("sin", x, FastMath.sin(x), Reference.sin(x));
+        }
+    }
+
+    @Test
+    public void testCosError() {
+        final Random random = new Random(4);
+        for (int i = 0; i < SAMPLES; i++) {
+            final double x = angle(random, i);
+            checkTrigonometric("cos", x, FastMath.cos(x), Reference.cos(x));
+        }
+    }
+
+    @Test
+    public void testTrigonometricNearZeros() {
+        for (int k = 1; k < 1000; k++) {
+            final double zero = Math.rint(k * Math.PI * 0.5 * 1e6) / 1e6;
+            for (final double x : new double[]{k * Math.PI, k * Math.PI + Math.PI / 2, Math.nextUp(k * Math.PI), zero}) {
+                checkTrigonometric("sin", x, FastMath.sin(x), Reference.sin(x));
+                checkTrigonometric("cos", x, FastMath.cos(x), Reference.cos(x));
+            }
+        }
+    }
+
+    @Test
+    public void testIntegralPowerError() {
+        final Random random = new Random(5);
+        for (int n = -4; n <= 4; n++) {
+            if (n == 0) {
+                continue;
+            }
+            for (int i = 0; i < SAMPLES / 4; i++) {
+                final double magnitude = i % 4 == 0 ? random.nextDouble() * 4d
+                        : Math.scalb(1d + random.nextDouble(), random.nextInt(2098) - 1074);
+                final double x = random.nextBoolean() ? magnitude : -magnitude;
+                check("pow(x, " + n + ")", x, FastMath.pow(x, n), Reference.pow(x, n), n == -4 ? 3d : 2d);
+            }
+        }
+    }
+
+    @Test
+    public void testNegativePowerOfSubnormalPower() {
+        for (final double x : new double[]{1e-103, -1e-103, 3e-155, 1e-160, 1e-200, 1e-250, 1e-300, 1e-310}) {
+            for (int n = -4; n <= -2; n++) {
+                check("pow(x, " + n + ")", x, FastMath.pow(x, n), Reference.pow(x, n), n == -4 ? 3d : 2d);
+            }
+        }
+        for (final double x : new double[]{1e103, -1e103, 1e77, 1e155, 4e102}) {
+            for (int n = -4; n <= -2; n++) {
+                check("pow(x, " + n + ")", x, FastMath.pow(x, n), Reference.pow(x, n), n == -4 ? 3d : 2d);
+            }
+        }
+    }
+
+    @Test
+    public void testSquareRootPower() {
+        final Random random = new Random(6);
+        for (int i = 0; i < SAMPLES; i++) {
+            final double x = Math.scalb(random.nextDouble(), random.nextInt(2000) - 1000);
+            assertEquals(Math.pow(x, 0.5), FastMath.pow(x, 0.5), 0d);
+        }
+    }
+
+    @Test
+    public void testSpecialValues() {
+        for (final double x : SPECIAL) {
+            assertSame(Math.exp(x), FastMath.exp(x));
+            assertSame(Math.log(x), FastMath.log(x));
+            assertSame(Math.sin(x), FastMath.sin(x));
+            assertSame(Math.cos(x), FastMath.cos(x));
+            for (final double y : new double[]{-4d, -3d, -2d, -1d, 0.5, 1d, 2d, 3d, 4d}) {
+                assertSame(Math.pow(x, y), FastMath.pow(x, y));
+            }
+        }
+        assertSame(Math.exp(710d), FastMath.exp(710d));
+        assertSame(Math.exp(-746d), FastMath.exp(-746d));
+        assertSame(Math.log(-1d), FastMath.log(-1d));
+    }
+
+    private static double angle(final Random random, final int i) {
+        final double magnitude = i % 4 == 0 ? random.nextDouble() * 10d
+                : Math.min(MAX_REDUCIBLE, Math.scalb(1d + random.nextDouble(), random.nextInt(50) - 30));
+        return random.nextBoolean() ? magnitude : -magnitude;
+    }
+
+    /*
+     * The documented bound is 2 ulp plus an absolute error below 2^-98, which only matters for results within 2^-40
+     * of zero
+     */
+    private static void checkTrigonometric(final String name, final double x, final double approximation,
+                                           final BigDecimal exact) {
+        if (exact.abs().compareTo(new BigDecimal(0x1p-40)) < 0) {
+            final double error = new BigDecimal(approximation).subtract(exact).abs().doubleValue();
+            final double bound = 2.5 * Math.ulp(exact.doubleValue()) + 0x1p-98;
+            assertTrue(name + "(" + x + ") has an absolute error of " + error, error <= bound);
+        } else {
+            check(name, x, approximation, exact, 2d);
+        }
+    }
+
+    private static void check(final String name, final double x, final double approximation,
+                              final BigDecimal exact, final double bound) {
+        final double ulps = Reference.ulps(approximation, exact);
+        assertTrue(name + "(" + x + ") = " + approximation + " is " + ulps + " ulps away from " + exact,
+                ulps <= bound + 0.5);
+    }
+
+    private static void assertSame(final double expected, final double actual) {
+        assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+}
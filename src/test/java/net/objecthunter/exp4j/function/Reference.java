@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.function;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Reference implementations of the elementary functions in {@link BigDecimal} arithmetic with far more precision
+ * than a double, used to measure the errors of {@link FastMath} in ulps of the exact result
+ */
+final class Reference {
+
+    private static final MathContext MC = new MathContext(60, RoundingMode.HALF_EVEN);
+
+    private static final BigDecimal PI = new BigDecimal("3.14159265358979323846264338327950288419716939937510"
+            + "58209749445923078164062862089986280348253421170679821480865132823066470938446");
+
+    private static final BigDecimal HALF_PI = PI.divide(BigDecimal.valueOf(2), new MathContext(120));
+
+    private static final BigDecimal LN2 = new BigDecimal("0.69314718055994530941723212145817656807550013436025"
+            + "525412068000949339362196969471560586332699641868754200148102057068573368552");
+
+    private static final BigDecimal EPSILON = BigDecimal.ONE.movePointLeft(70);
+
+    private Reference() {
+    }
+
+    static BigDecimal exp(final double x) {
+        final BigDecimal bx = new BigDecimal(x);
+        final BigInteger k = bx.divide(LN2, MC).setScale(0, RoundingMode.HALF_EVEN).toBigInteger();
+        final BigDecimal r = bx.subtract(LN2.multiply(new BigDecimal(k)), MC);
+        BigDecimal term = BigDecimal.ONE;
+        BigDecimal sum = BigDecimal.ONE;
+        for (int n = 1; term.abs().compareTo(EPSILON) > 0; n++) {
+            term = term.multiply(r, MC).divide(BigDecimal.valueOf(n), MC);
+            sum = sum.add(term, MC);
+        }
+        return scalb(sum, k.intValue());
+    }
+
+    static BigDecimal log(final double x) {
+        /* one Newton step y + x * exp(-y) - 1 from the double result squares its relative error */
+        final double y = Math.log(x);
+        final BigDecimal e = exp(y);
+        return new BigDecimal(y).add(new BigDecimal(x).divide(e, MC), MC).subtract(BigDecimal.ONE, MC);
+    }
+
+    /**
+     * The argument reduced by pi/2: the remainder and the quadrant
+     */
+    static BigDecimal[] reduce(final double x) {
+        final BigDecimal bx = new BigDecimal(x);
+        final BigDecimal n = bx.divide(HALF_PI, MC).setScale(0, RoundingMode.HALF_EVEN);
+        return new BigDecimal[]{bx.subtract(HALF_PI.multiply(n), new MathContext(120)), n};
+    }
+
+    static BigDecimal sin(final double x) {
+        final BigDecimal[] reduced = reduce(x);
+        return quadrant(reduced[0], reduced[1].toBigInteger().intValue());
+    }
+
+    static BigDecimal cos(final double x) {
+        final BigDecimal[] reduced = reduce(x);
+        return quadrant(reduced[0], reduced[1].toBigInteger().intValue() + 1);
+    }
+
+    static BigDecimal pow(final double x, final int n) {
+        final BigDecimal power = new BigDecimal(x).pow(Math.abs(n));
+        return n >= 0 ? power : BigDecimal.ONE.divide(power, MC);
+    }
+
+    /* sin(r + n * pi/2) */
+    private static BigDecimal quadrant(final BigDecimal r, final int n) {
+        final BigDecimal r2 = r.multiply(r, MC);
+        BigDecimal term = (n & 1) == 0 ? r : BigDecimal.ONE;
+        BigDecimal sum = term;
+        for (int k = (n & 1) == 0 ? 2 : 1; term.abs().compareTo(EPSILON.multiply(sum.abs())) > 0; k += 2) {
+            term = term.multiply(r2, MC).negate().divide(BigDecimal.valueOf((long) k * (k + 1)), MC);
+            sum = sum.add(term, MC);
+            if (sum.signum() == 0) {
+                break;
+            }
+        }
+        return (n & 2) == 0 ? sum : sum.negate();
+    }
+
+    private static BigDecimal scalb(final BigDecimal value, final int k) {
+        return k >= 0 ? value.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(k)))
+                : value.divide(new BigDecimal(BigInteger.ONE.shiftLeft(-k)), MC);
+    }
+
+    /**
+     * The error of an approximation in ulps of the exact result rounded to a double
+     *
+     * @param approximation the approximation
+     * @param exact         the exact result
+     * @return the absolute error divided by the ulp of the rounded exact result
+     */
+    static double ulps(final double approximation, final BigDecimal exact) {
+        final double rounded = exact.doubleValue();
+        if (Double.isInfinite(rounded)) {
+            return approximation == rounded ? 0d : Double.POSITIVE_INFINITY;
+        }
+        if (Double.isInfinite(approximation)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return new BigDecimal(approximation).subtract(exact).abs()
+                .divide(new BigDecimal(Math.ulp(rounded)), MC).doubleValue();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.metrics;
+
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+
+/**
+ * Compares the throughput of {@link Expression#evaluate()} with the uninstrumented evaluation it delegates to. Not a
+ * unit test, run the main method from the test classpath, once as is and once with {@code -Dexp4j.metrics=true}. The
+ * best of several interleaved runs is reported; with metrics disabled both times should be equal within the noise of
+ * the measurement.
+ */
+public final class MetricsBenchmark {
+
+    private static final int SIZE = 1 << 16;
+
+    private static final int ROUNDS = 100;
+
+    private static final MethodHandle UNOBSERVED = unobserved();
+
+    private static volatile double sink;
+
+    private MetricsBenchmark() {
+    }
+
+    public static void main(final String[] args) throws Throwable {
+        if (Metrics.ENABLED) {
+            Metrics.setListener(new ExpressionMetrics());
+        }
+        final Expression expression = new ExpressionBuilder("x * y + sin(x) - y / 3").variable("x").variable("y").build();
+        expression.setVariable("y", 2d);
+        for (int i = 0; i < 5; i++) {
+            timeEvaluate(expression);
+            timeUnobserved(expression);
+        }
+        double observed = Double.MAX_VALUE;
+        double unobserved = Double.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            observed = Math.min(observed, timeEvaluate(expression));
+            unobserved = Math.min(unobserved, timeUnobserved(expression));
+        }
+        System.out.printf("metrics %s  evaluate() %6.2f ns  uninstrumented %6.2f ns  overhead %+6.2f%%%n",
+                Metrics.ENABLED ? "enabled " : "disabled", observed, unobserved, (observed / unobserved - 1d) * 100d);
+    }
+
+    /* the mean nanoseconds per evaluation */
+    private static double timeEvaluate(final Expression expression) {
+        double sum = 0d;
+        final long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (int i = 0; i < SIZE; i++) {
+                sum += expression.setVariable("x", i).evaluate();
+            }
+        }
+        final long nanos = System.nanoTime() - start;
+        sink = sum;
+        return (double) nanos / ((long) ROUNDS * SIZE);
+    }
+
+    private static double timeUnobserved(final Expression expression) throws Throwable {
+        double sum = 0d;
+        final long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (int i = 0; i < SIZE; i++) {
+                sum += (double) UNOBSERVED.invokeExact(expression.setVariable("x", i));
+            }
+        }
+        final long nanos = System.nanoTime() - start;
+        sink = sum;
+        return (double) nanos / ((long) ROUNDS * SIZE);
+    }
+
+    private static MethodHandle unobserved() {
+        try {
+            final Method method = Expression.class.getDeclaredMethod("evaluateUnobserved");
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to access the uninstrumented evaluation", e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+import net.objecthunter.exp4j.shuntingyard.ShuntingYard;
+import net.objecthunter.exp4j.tokenizer.Token;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link HornerForm} against the untransformed expression for the documented tolerance of {@code 2n} units of
+ * roundoff relative to {@code sum |c_k*x^k|}, where the sum also includes the terms which are not monomials
+ */
+public class HornerFormTest {
+
+    private static final double UNIT_ROUNDOFF = 0x1p-53;
+
+    private static final int SAMPLES = 2000;
+
+    @Test
+    public void testRandomPolynomials() {
+        final Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            final int degree = 2 + random.nextInt(14);
+            final List<String> terms = new ArrayList<>();
+            for (int k = 0; k <= degree; k++) {
+                if (k == degree || random.nextInt(4) > 0) {
+                    terms.add(monomial(random, coefficient(random), k));
+                }
+            }
+            Collections.shuffle(terms, random);
+            assertHorner(String.join(" + ", terms), terms, degree, "x");
+        }
+    }
+
+    @Test
+    public void testSubtractedTerms() {
+        assertHorner("x^3 - 2*x + 1", Arrays.asList("x^3", "-2*x", "1"), 3, "x");
+        assertHorner("1 - (x^2 - 3*x^4)", Arrays.asList("1", "-x^2", "3*x^4"), 4, "x");
+    }
+
+    @Test
+    public void testCoefficientsOfOtherVariables() {
+        assertHorner("(a+1)*x^2 + b*x - a*b", Arrays.asList("(a+1)*x^2", "b*x", "-a*b"), 2, "x", "a", "b");
+        assertHorner("a*x^4 + x^3*b*a - pow(x, 2)*sin(b) + x*(a-b) + 3",
+                Arrays.asList("a*x^4", "x^3*b*a", "-pow(x, 2)*sin(b)", "x*(a-b)", "3"), 4, "x", "a", "b");
+        final Random random = new Random(11);
+        for (int i = 0; i < 50; i++) {
+            final int degree = 2 + random.nextInt(8);
+            final List<String> terms = new ArrayList<>();
+            for (int k = 0; k <= degree; k++) {
+                final String coefficient = random.nextBoolean() ? coefficient(random)
+                        : "(" + coefficient(random) + "*a + b)";
+                terms.add(monomial(random, coefficient, k));
+            }
+            Collections.shuffle(terms, random);
+            assertHorner(String.join(" + ", terms), terms, degree, "x", "a", "b");
+        }
+    }
+
+    @Test
+    public void testMixedNonMonomialTerms() {
+        assertHorner("3*x^3 + sin(x) + 2*x^2 - x + exp(x)/4 + 1",
+                Arrays.asList("3*x^3", "sin(x)", "2*x^2", "-x", "exp(x)/4", "1"), 3, "x");
+        assertHorner("x^5 + x^0.5*2 + sqrt(x)*x - 4*x^2 + x^(y+1)",
+                Arrays.asList("x^5", "x^0.5*2", "sqrt(x)*x", "-4*x^2", "x^(y+1)"), 5, "x", "y");
+        assertHorner("x^2 + -x*sin(x)", Arrays.asList("x^2", "-x*sin(x)"), 2, "x");
+        assertHorner("x^2 - x*(-2)*sin(x)", Arrays.asList("x^2", "-x*(-2)*sin(x)"), 2, "x");
+        assertHorner("x^3 - (-x)*cos(x) + 1", Arrays.asList("x^3", "-(-x)*cos(x)", "1"), 3, "x");
+        assertHorner("-(-x^2)*x - -(x*exp(-x)) - 3*x", Arrays.asList("-(-x^2)*x", "x*exp(-x)", "-3*x"), 3, "x");
+    }
+
+    @Test
+    public void testLowDegreeSumsAreKept() {
+        assertUnchanged("2*x + 1", "x");
+        assertUnchanged("x*y + x + y", "x", "y");
+        assertUnchanged("sin(x)*x + x^0.5", "x");
+    }
+
+    /*
+     * Check that the expression is rewritten and that for random arguments the rewritten result stays within 2n units
+     * of roundoff of the original result, relative to the sum of the absolute values of the given terms
+     */
+    private static void assertHorner(final String expression, final List<String> terms, final int degree,
+                                     final String... variables) {
+        final Set<String> names = new HashSet<>(Arrays.asList(variables));
+        assertFalse(expression + " has not been rewritten",
+                Canonicalizer.structurallyEqual(rpn(expression, names), HornerForm.apply(rpn(expression, names))));
+        final Expression original = build(expression, names, false);
+        final Expression horner = build(expression, names, true);
+        final List<Expression> magnitudes = new ArrayList<>();
+        for (String term : terms) {
+            magnitudes.add(build(term, names, false));
+        }
+        final Random random = new Random(expression.hashCode());
+        for (int i = 0; i < SAMPLES; i++) {
+            final StringBuilder arguments = new StringBuilder();
+            for (String name : variables) {
+                final double value = (i % 2 == 0 ? 4d : 0.5) * (random.nextDouble() - 0.5);
+                original.setVariable(name, value);
+                horner.setVariable(name, value);
+                for (Expression magnitude : magnitudes) {
+                    magnitude.setVariable(name, value);
+                }
+                arguments.append(' ').append(name).append(" = ").append(value);
+            }
+            double sum = 0d;
+            for (Expression magnitude : magnitudes) {
+                sum += Math.abs(magnitude.evaluate());
+            }
+            final double expected = original.evaluate();
+            final double actual = horner.evaluate();
+            final String message = expression + " for" + arguments + ": " + actual + " instead of " + expected;
+            if (Double.isNaN(expected)) {
+                assertTrue(message, Double.isNaN(actual));
+            } else {
+                assertTrue(message, Math.abs(actual - expected) <= 2 * degree * UNIT_ROUNDOFF * sum);
+            }
+        }
+    }
+
+    private static void assertUnchanged(final String expression, final String... variables) {
+        final Set<String> names = new HashSet<>(Arrays.asList(variables));
+        assertTrue(expression + " has been rewritten",
+                Canonicalizer.structurallyEqual(rpn(expression, names), HornerForm.apply(rpn(expression, names))));
+    }
+
+    private static String monomial(final Random random, final String coefficient, final int k) {
+        if (k == 0) {
+            return coefficient;
+        }
+        final String power = k == 1 ? "x" : random.nextBoolean() ? "x^" + k : "pow(x, " + k + ")";
+        return random.nextBoolean() ? coefficient + "*" + power : power + "*" + coefficient;
+    }
+
+    private static String coefficient(final Random random) {
+        final double c = (random.nextInt(2000) + 1) / 100d;
+        return String.format(Locale.ROOT, "%.2f", random.nextBoolean() ? c : -c);
+    }
+
+    private static Expression build(final String expression, final Set<String> variables, final boolean horner) {
+        return new ExpressionBuilder(expression).variables(variables).hornerForm(horner).build();
+    }
+
+    private static Token[] rpn(final String expression, final Set<String> variables) {
+        return ShuntingYard.convertToRPN(expression, variables, true);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+import net.objecthunter.exp4j.ExpressionBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the registration, ordering and toggling of the passes of an {@link OptimizerPipeline} and the reports of
+ * {@link ExpressionBuilder#getOptimizationReport()}
+ */
+public class OptimizerPipelineTest {
+
+    @Test
+    public void testBuiltinsAreDisabledByDefault() {
+        final OptimizerPipeline pipeline = OptimizerPipeline.withBuiltins();
+        assertEquals(Arrays.asList("constantFolding", "hornerForm", "strengthReduction", "canonicalize"),
+                pipeline.getNames());
+        for (final String name : pipeline.getNames()) {
+            assertFalse(pipeline.isEnabled(name));
+        }
+        final ExpressionBuilder builder = new ExpressionBuilder("2*3 + x^2").variable("x");
+        assertEquals(10d, builder.build().setVariable("x", 2d).evaluate(), 0d);
+        assertTrue(builder.getOptimizationReport().isEmpty());
+    }
+
+    @Test
+    public void testPassesRunInOrder() {
+        final List<String> runs = new ArrayList<>();
+        final ExpressionBuilder builder = new ExpressionBuilder("x + 1").variable("x")
+                .optimizer(new Recording("a", runs))
+                .optimizer(new Recording("b", runs))
+                .optimizer(new Recording("c", runs), "a")
+                .optimizer(new Recording("d", runs), "constantFolding")
+                .optimizer("constantFolding", true);
+        builder.build();
+        assertEquals(Arrays.asList("d", "c", "a", "b"), runs);
+        assertEquals(Arrays.asList("d", "constantFolding", "c", "a", "b"), names(builder.getOptimizationReport()));
+    }
+
+    @Test
+    public void testDisabledPassesDoNotRun() {
+        final List<String> runs = new ArrayList<>();
+        final ExpressionBuilder builder = new ExpressionBuilder("x + 1").variable("x")
+                .optimizer(new Recording("a", runs))
+                .optimizer(new Recording("b", runs))
+                .optimizer("a", false);
+        builder.build();
+        assertEquals(Collections.singletonList("b"), runs);
+        builder.optimizer("a", true).optimizer("b", false);
+        builder.build();
+        assertEquals(Arrays.asList("b", "a"), runs);
+        assertEquals(Collections.singletonList("a"), names(builder.getOptimizationReport()));
+    }
+
+    @Test
+    public void testReportCountsNodes() {
+        final ExpressionBuilder builder = new ExpressionBuilder("2*3 + x*1").variable("x")
+                .optimizer("constantFolding", true);
+        assertEquals(8d, builder.build().setVariable("x", 2d).evaluate(), 0d);
+        final List<PassReport> report = builder.getOptimizationReport();
+        assertEquals(1, report.size());
+        assertEquals("constantFolding", report.get(0).getName());
+        assertEquals(7, report.get(0).getNodesBefore());
+        assertEquals(3, report.get(0).getNodesAfter());
+        assertTrue(report.get(0).getNanos() >= 0L);
+    }
+
+    @Test
+    public void testPassResultIsBuilt() {
+        final Optimizer constant = new Optimizer("constant") {
+            @Override
+            public Node optimize(final Node root) {
+                return Node.number(42d);
+            }
+        };
+        assertEquals(42d, new ExpressionBuilder("x + 1").variable("x").optimizer(constant).build()
+                .setVariable("x", 1d).evaluate(), 0d);
+    }
+
+    @Test
+    public void testInvalidRegistrations() {
+        final ExpressionBuilder builder = new ExpressionBuilder("x").variable("x");
+        assertInvalid(() -> builder.optimizer(new Recording("hornerForm", new ArrayList<>())));
+        assertInvalid(() -> builder.optimizer(new Recording("a", new ArrayList<>()), "unknown"));
+        assertInvalid(() -> builder.optimizer("unknown", true));
+        assertInvalid(() -> new Recording("", new ArrayList<>()));
+    }
+
+    private static List<String> names(final List<PassReport> report) {
+        final List<String> names = new ArrayList<>(report.size());
+        for (final PassReport pass : report) {
+            names.add(pass.getName());
+        }
+        return names;
+    }
+
+    private static void assertInvalid(final Runnable call) {
+        try {
+            call.run();
+            fail("The registration has not been rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    private static final class Recording extends Optimizer {
+        private final List<String> runs;
+
+        Recording(final String name, final List<String> runs) {
+            super(name);
+            this.runs = runs;
+        }
+
+        @Override
+        public Node optimize(final Node root) {
+            runs.add(getName());
+            return root;
+        }
+    }
+}
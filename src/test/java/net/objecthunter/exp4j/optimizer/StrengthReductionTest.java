@@ -0,0 +1,160 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.optimizer;
+
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+import net.objecthunter.exp4j.shuntingyard.ShuntingYard;
+import net.objecthunter.exp4j.tokenizer.Token;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks each rule of {@link StrengthReduction} against the unreduced expression for the bit-exactness or the
+ * tolerance the rule documents, over random arguments of all magnitudes and the special values
+ */
+public class StrengthReductionTest {
+
+    private static final double[] SPECIAL = {
+            0d, -0d, 1d, -1d, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE,
+            -Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN
+    };
+
+    @Test
+    public void testIdentityPowers() {
+        assertReduction("x^1", 0d);
+        assertReduction("pow(x, 1)", 0d);
+    }
+
+    @Test
+    public void testSquare() {
+        assertReduction("x^2", 1d);
+        assertReduction("pow(x, 2)", 1d);
+        assertReduction("(x+1)^2", 1d);
+    }
+
+    @Test
+    public void testCubeAndFourthPower() {
+        assertReduction("x^3", 2d);
+        assertReduction("x^4", 2d);
+    }
+
+    @Test
+    public void testReciprocal() {
+        assertReduction("x^-1", 1d);
+    }
+
+    @Test
+    public void testReciprocalSquare() {
+        assertReduction("x^-2", 2d);
+    }
+
+    @Test
+    public void testSquareRoot() {
+        assertReduction("x^0.5", 1d);
+        assertReduction("pow(x, 0.5)", 1d);
+        assertEquals(Double.doubleToLongBits(0d), Double.doubleToLongBits(reduced("x^0.5").setVariable("x", -0d).evaluate()));
+        assertEquals(Double.POSITIVE_INFINITY, reduced("x^0.5").setVariable("x", Double.NEGATIVE_INFINITY).evaluate(), 0d);
+    }
+
+    @Test
+    public void testDivisionByPowerOfTwo() {
+        assertReduction("x/2", 0d);
+        assertReduction("x/0.25", 0d);
+        assertReduction("x/-8", 0d);
+        assertReduction("x/2.2250738585072014E-308", 0d);
+    }
+
+    @Test
+    public void testDivisionByOtherConstantsIsKept() {
+        assertUnchanged("x/3");
+        assertUnchanged("x/0.1");
+        assertUnchanged("x/8.98846567431158E307");
+        assertUnchanged("x/4.9E-324");
+    }
+
+    @Test
+    public void testMultiplicativeIdentities() {
+        assertReduction("x*1", 0d);
+        assertReduction("1*x", 0d);
+        assertReduction("x/1", 0d);
+        assertReduction("x-0", 0d);
+        assertReduction("x*-1", 0d);
+        assertReduction("-1*x", 0d);
+        assertReduction("x/-1", 0d);
+        assertReduction("--x", 0d);
+    }
+
+    @Test
+    public void testAdditionOfZeroIsKept() {
+        assertUnchanged("x+0");
+    }
+
+    @Test
+    public void testLogarithmToConstantBase() {
+        assertReduction("logb(2, x)", 0d);
+        assertReduction("logb(10, x)", 0d);
+    }
+
+    /*
+     * Check that the rule rewrites the expression and that the results stay within the given number of ulps of the
+     * unreduced results, or are bit-exact for 0 ulps. Non-finite results of the unreduced expression must be matched
+     * exactly.
+     */
+    private static void assertReduction(final String expression, final double ulps) {
+        assertFalse(expression + " has not been rewritten", Canonicalizer.structurallyEqual(rpn(expression),
+                StrengthReduction.apply(rpn(expression))));
+        final Expression original = new ExpressionBuilder(expression).variable("x").build();
+        final Expression reduced = reduced(expression);
+        final Random random = new Random(expression.hashCode());
+        for (int i = 0; i < 100000 + SPECIAL.length; i++) {
+            final double x = i < SPECIAL.length ? SPECIAL[i] : sample(random, i);
+            final double expected = original.setVariable("x", x).evaluate();
+            final double actual = reduced.setVariable("x", x).evaluate();
+            final String message = expression + " for x = " + x + ": " + actual + " instead of " + expected;
+            if (ulps == 0d || !Double.isFinite(expected)) {
+                assertEquals(message, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+            } else {
+                assertTrue(message, Math.abs(actual - expected) <= ulps * Math.ulp(expected));
+            }
+        }
+    }
+
+    private static void assertUnchanged(final String expression) {
+        assertTrue(expression + " has been rewritten", Canonicalizer.structurallyEqual(rpn(expression),
+                StrengthReduction.apply(rpn(expression))));
+    }
+
+    private static double sample(final Random random, final int i) {
+        final double magnitude = i % 4 == 0 ? random.nextDouble() * 4d
+                : Math.scalb(1d + random.nextDouble(), random.nextInt(2098) - 1074);
+        return random.nextBoolean() ? magnitude : -magnitude;
+    }
+
+    private static Expression reduced(final String expression) {
+        return new ExpressionBuilder(expression).variable("x").strengthReduction(true).build();
+    }
+
+    private static Token[] rpn(final String expression) {
+        return ShuntingYard.convertToRPN(expression, Collections.singleton("x"), true);
+    }
+}
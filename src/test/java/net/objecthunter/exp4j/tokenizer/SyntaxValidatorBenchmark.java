@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.tokenizer;
+
+import net.objecthunter.exp4j.ExpressionBuilder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compares the throughput of {@link SyntaxValidator} with building an expression and validating it with
+ * {@code validate(false)}. Not a unit test, run the main method from the test classpath. The best of several
+ * interleaved runs is reported.
+ */
+public final class SyntaxValidatorBenchmark {
+
+    private static final Set<String> VARIABLES = new HashSet<>(Arrays.asList("price", "qty", "fee", "rate", "x"));
+
+    private static final String[] FORMULAS = {
+            "price*qty - fee > 100",
+            "3*x^2 + 2*x - sin(x)/4 + pow(rate, 2)",
+            "max(price, fee) * (1 + rate)^12 - qty % 7",
+            "log10(price) - 2x (rate + 1) != 0",
+            "-(x - 1)^-2 + exp(-rate*x) / (1 + x)"
+    };
+
+    private static final int ROUNDS = 200000;
+
+    private static volatile int sink;
+
+    private SyntaxValidatorBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        final SyntaxValidator validator = new SyntaxValidator(VARIABLES);
+        for (int i = 0; i < 3; i++) {
+            timeValidator(validator);
+            timeBuild();
+        }
+        double validate = Double.MAX_VALUE;
+        double build = Double.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            validate = Math.min(validate, timeValidator(validator));
+            build = Math.min(build, timeBuild());
+        }
+        System.out.printf("validator %7.1f ns  build + validate %7.1f ns  speedup %5.2fx%n", validate, build,
+                build / validate);
+    }
+
+    /* the mean nanoseconds per formula */
+    private static double timeValidator(final SyntaxValidator validator) {
+        int valid = 0;
+        final long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (String formula : FORMULAS) {
+                valid += validator.validate(formula) == SyntaxError.NONE ? 1 : 0;
+            }
+        }
+        final long nanos = System.nanoTime() - start;
+        sink = valid;
+        return (double) nanos / ((long) ROUNDS * FORMULAS.length);
+    }
+
+    private static double timeBuild() {
+        int valid = 0;
+        final long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (String formula : FORMULAS) {
+                valid += new ExpressionBuilder(formula).variables(VARIABLES).build().validate(false).isValid() ? 1 : 0;
+            }
+        }
+        final long nanos = System.nanoTime() - start;
+        sink = valid;
+        return (double) nanos / ((long) ROUNDS * FORMULAS.length);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.objecthunter.exp4j.tokenizer;
+
+import net.objecthunter.exp4j.ExpressionBuilder;
+import net.objecthunter.exp4j.shuntingyard.ShuntingYard;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link SyntaxValidator} agrees with building an expression and validating it with
+ * {@code validate(false)}, which rejects blank expressions and expressions without an operand only in the validator
+ */
+public class SyntaxValidatorTest {
+
+    private static final Set<String> VARIABLES = new HashSet<>(Arrays.asList("x", "y", "rate"));
+
+    private static final String[] FRAGMENTS = {
+            "x", "y", "rate", "z", "1", "2.5", ".5", "3.", "1e3", "1E-3", "1e+", "1.2.3", "+", "-", "*", "/", "^", "%",
+            "<", ">", "=", "<=", ">=", "!=", "$", "(", ")", "(", ")", ",", " ", "sin(", "pow(", "max(", "log10(",
+            "signum(", "e", "pi"
+    };
+
+    @Test
+    public void testEdgeCases() {
+        assertError("1e+", SyntaxError.INVALID_NUMBER, 0);
+        assertError("1.2.3", SyntaxError.INVALID_NUMBER, 0);
+        assertError("x)(", SyntaxError.MISMATCHED_PARENTHESES, 1);
+        assertError("sin(x", SyntaxError.MISMATCHED_PARENTHESES, 3);
+        assertError("()", SyntaxError.MISSING_OPERAND, 1);
+        assertError("pow(x)", SyntaxError.NOT_ENOUGH_ARGUMENTS, 0);
+        assertError("sin()", SyntaxError.NOT_ENOUGH_ARGUMENTS, 0);
+        assertError("", SyntaxError.EMPTY_EXPRESSION, 0);
+        assertError("   ", SyntaxError.EMPTY_EXPRESSION, 0);
+        assertError("z + x", SyntaxError.UNKNOWN_NAME, 0);
+        assertError("x,y", SyntaxError.MISPLACED_SEPARATOR, 1);
+        assertError("x $ y", SyntaxError.UNKNOWN_OPERATOR, 2);
+        assertError("3 4", SyntaxError.UNEXPECTED_CHARACTER, 2);
+        assertError("x+", SyntaxError.TOO_MANY_OPERATORS, 1);
+        assertError("x=<y", SyntaxError.TOO_MANY_OPERATORS, 1);
+        assertError("max(x,y,1)", SyntaxError.TOO_MANY_OPERANDS, 9);
+        assertError("x<=-1", SyntaxError.NONE, -1);
+        assertError("-x^-2 + 2x (y) sin x", SyntaxError.NONE, -1);
+        assertError("x >= y != 1E-3x", SyntaxError.NONE, -1);
+        for (String expression : new String[]{"1e+", "x)(", "()", "x<=-1", "pow(x)", "x y", "--x", "(x)(y)"}) {
+            assertAgrees(expression);
+        }
+    }
+
+    @Test
+    public void testRandomFormulas() {
+        final Random random = new Random(38);
+        int valid = 0;
+        for (int i = 0; i < 50000; i++) {
+            final StringBuilder expression = new StringBuilder();
+            final int length = 1 + random.nextInt(10);
+            for (int j = 0; j < length; j++) {
+                expression.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            valid += assertAgrees(expression.toString()) ? 1 : 0;
+        }
+        assertTrue("Too few valid formulas: " + valid, valid > 1000);
+    }
+
+    @Test
+    public void testRandomValidFormulas() {
+        final Random random = new Random(83);
+        for (int i = 0; i < 10000; i++) {
+            final String expression = formula(random, 4);
+            assertTrue(expression, assertAgrees(expression));
+        }
+    }
+
+    @Test
+    public void testValidatorIsReusable() {
+        final SyntaxValidator validator = new SyntaxValidator(VARIABLES);
+        assertEquals(SyntaxError.MISMATCHED_PARENTHESES, validator.validate("(x"));
+        assertEquals(SyntaxError.NONE, validator.validate("x"));
+        assertEquals(-1, validator.getErrorPosition());
+        assertEquals(SyntaxError.NONE, validator.getError());
+    }
+
+    @Test
+    public void testWithoutImplicitMultiplication() {
+        final SyntaxValidator validator = new SyntaxValidator(VARIABLES, false);
+        for (String expression : new String[]{"2x", "x y", "(x)(y)", "2*x", "x*(y)"}) {
+            boolean expected;
+            try {
+                expected = new ExpressionBuilder(expression).variables(VARIABLES).implicitMultiplication(false)
+                        .build().validate(false).isValid();
+            } catch (RuntimeException e) {
+                expected = false;
+            }
+            assertEquals(expression, expected, validator.validate(expression) == SyntaxError.NONE);
+        }
+    }
+
+    /* a random well formed formula of the given depth */
+    private static String formula(final Random random, final int depth) {
+        if (depth == 0 || random.nextInt(3) == 0) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    return "x";
+                case 1:
+                    return "rate";
+                case 2:
+                    return String.valueOf(random.nextInt(100));
+                default:
+                    return random.nextInt(100) + "." + random.nextInt(100) + "e-" + random.nextInt(5);
+            }
+        }
+        switch (random.nextInt(6)) {
+            case 0:
+                return "(" + formula(random, depth - 1) + ")";
+            case 1:
+                return "-" + formula(random, depth - 1);
+            case 2:
+                return "pow(" + formula(random, depth - 1) + ", " + formula(random, depth - 1) + ")";
+            case 3:
+                return "sin(" + formula(random, depth - 1) + ")";
+            default:
+                final String[] operators = {"+", "-", "*", "/", "^", "%", "<", ">=", "!="};
+                return formula(random, depth - 1) + " " + operators[random.nextInt(operators.length)] + " "
+                        + formula(random, depth - 1);
+        }
+    }
+
+    private static void assertError(final String expression, final SyntaxError error, final int position) {
+        final SyntaxValidator validator = new SyntaxValidator(VARIABLES);
+        assertEquals(expression, error, validator.validate(expression));
+        assertEquals(expression, error, validator.getError());
+        assertEquals(expression, position, validator.getErrorPosition());
+    }
+
+    /* check that the validator agrees with the build and return whether the expression is valid */
+    private static boolean assertAgrees(final String expression) {
+        final SyntaxError error = new SyntaxValidator(VARIABLES).validate(expression);
+        final boolean expected = isValid(expression);
+        assertEquals("'" + expression + "' is " + error, expected, error == SyntaxError.NONE);
+        return expected;
+    }
+
+    private static boolean isValid(final String expression) {
+        try {
+            if (expression.trim().isEmpty() || !hasOperand(expression)) {
+                return false;
+            }
+            return new ExpressionBuilder(expression).variables(VARIABLES).build().validate(false).isValid();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasOperand(final String expression) {
+        for (Token token : ShuntingYard.convertToRPN(expression, VARIABLES, true)) {
+            if (token.getType() == Token.TOKEN_NUMBER || token.getType() == Token.TOKEN_VARIABLE) {
+                return true;
+            }
+        }
+        return false;
+    }
+}